@@ -0,0 +1,185 @@
+package treasurehunter;
+
+/**
+ * Writes a game's save file on a background thread, so the game never waits on the disk.<p>
+ * Only the newest snapshot matters: once a snapshot arrives, the writer waits a short debounce
+ * window before writing, so a burst of moves (e.g. commands typed ahead, or a bot) becomes one write
+ * of the latest snapshot, and any that arrive while a write is in progress are merged the same way.
+ * A save is therefore at most the debounce window behind the game, and close() writes the last one
+ * right away. Each write goes to a temporary file that is then moved over the save, so a crash
+ * never leaves half a save behind.
+ */
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Autosaver
+{
+	public static final long DEFAULT_DEBOUNCE_MS = 200;
+
+	// stands in for "delete the save" in the pending slot
+	private static final byte[] DISCARD = new byte[0];
+
+	//instance variables
+	private final Path file;
+	private final Path tempFile;
+	private final long debounceMs;
+	private final AtomicReference<byte[]> pending;
+	private final Thread writer;
+	private volatile boolean closed;
+
+	//Constructor
+	/**
+	 * @param file The save file; it is written next to a temporary file with the same name plus ".tmp".
+	 * @param debounceMs How long to wait for more snapshots before writing; 0 writes right away.
+	 */
+	public Autosaver(Path file, long debounceMs)
+	{
+		this.file = file;
+		this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		this.debounceMs = debounceMs;
+		pending = new AtomicReference<byte[]>();
+		closed = false;
+
+		writer = new Thread(this::writeLoop, "autosave-" + file.getFileName());
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public Autosaver(Path file)
+	{
+		this(file, DEFAULT_DEBOUNCE_MS);
+	}
+
+	/**
+	 * Loads the save file.
+	 *
+	 * @param file The save file.
+	 * @param io Where the restored game reads its input and prints its output.
+	 * @return The restored game, or null if there is no save.
+	 * @throws IOException if the save can't be read.
+	 */
+	public static TreasureHunter load(Path file, GameIO io) throws IOException
+	{
+		if (!Files.exists(file))
+		{
+			return null;
+		}
+		return GameSnapshot.decode(Files.readAllBytes(file), io);
+	}
+
+	/**
+	 * Queues a snapshot to be written; returns right away.
+	 * @param snapshot Bytes from GameSnapshot.encode().
+	 */
+	public void save(byte[] snapshot)
+	{
+		offer(snapshot);
+	}
+
+	/**
+	 * Queues the save file to be deleted, e.g. because the game is over.
+	 */
+	public void discard()
+	{
+		offer(DISCARD);
+	}
+
+	/**
+	 * Writes whatever is still queued and stops the writer.
+	 */
+	public void close()
+	{
+		closed = true;
+		synchronized (pending)
+		{
+			pending.notifyAll();
+		}
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void offer(byte[] snapshot)
+	{
+		// an older snapshot that hasn't been written yet is simply replaced
+		if (pending.getAndSet(snapshot) == null)
+		{
+			synchronized (pending)
+			{
+				pending.notifyAll();
+			}
+		}
+	}
+
+	private void writeLoop()
+	{
+		while (true)
+		{
+			try
+			{
+				synchronized (pending)
+				{
+					// check under the lock so a notify between the check and the wait isn't missed
+					while (pending.get() == null && !closed)
+					{
+						pending.wait();
+					}
+				}
+				if (pending.get() == null)
+				{
+					// closed, with everything written
+					return;
+				}
+				settle();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+
+			byte[] snapshot = pending.getAndSet(null);
+			try
+			{
+				if (snapshot == DISCARD)
+				{
+					Files.deleteIfExists(file);
+				}
+				else
+				{
+					Files.write(tempFile, snapshot);
+					Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				}
+			}
+			catch (IOException e)
+			{
+				System.err.println("Autosave failed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Waits out the debounce window, during which newer snapshots quietly replace the pending one;
+	 * close() cuts it short.
+	 */
+	private void settle() throws InterruptedException
+	{
+		long deadline = System.nanoTime() + debounceMs * 1000000;
+		synchronized (pending)
+		{
+			long left = deadline - System.nanoTime();
+			while (left > 0 && !closed)
+			{
+				pending.wait(Math.max(1, left / 1000000));
+				left = deadline - System.nanoTime();
+			}
+		}
+	}
+}
@@ -0,0 +1,485 @@
+package treasurehunter;
+
+/**
+ * Plays huge numbers of bot games at once, with the games laid out as parallel arrays instead of
+ * one TreasureHunter, Hunter, Town and Shop per game.<p>
+ * A batch keeps each game's gold, kit bitmask, terrain, treasure, tough and found flags, counters
+ * and random generator state in primitive arrays indexed by slot, so a whole batch of games sits
+ * in a few dense arrays. Every pass advances each unfinished game by one action, looping over a
+ * packed list of the games still playing; finished games drop out of the list and are recorded.
+ * Batches are spread across every core with a parallel stream, as in TreasureHunterSimulator.<p>
+ * The rules are the ones Town, Shop and Hunter play by, and each game rolls the same numbers in
+ * the same order as the object model would from the same root seed, so a batch game plays out
+ * exactly like the TreasureHunterSimulator game with the same number; BatchSimulatorTest plays
+ * games in every mode both ways and compares every game's ending and the whole report.<p>
+ * Only bots that decide from the state alone can play in a batch: the explorer and the optimal policy.
+ * Worlds, markets, save files and journals are not supported.<p>
+ * Usage: java treasurehunter.BatchSimulator [--games N] [--mode e|n|h|cheat|all] [--policy explorer|optimal]
+ *        [--batch N] [--max-actions N] [--seed N]
+ */
+import java.util.stream.LongStream;
+
+public class BatchSimulator
+{
+	public static final int DEFAULT_BATCH = 1 << 16;
+
+	private static final String[] ALL_MODES = { "e", "n", "h", "cheat" };
+
+	// how a game has ended, in outcome[]; games still being played are PLAYING
+	private static final byte PLAYING = 0;
+	private static final byte ENDED_WON = 1;
+	private static final byte ENDED_BANKRUPT = 2;
+	private static final byte ENDED_QUIT = 3;
+	private static final byte ENDED_UNFINISHED = 4;
+	private static final TreasureHunter.Outcome[] OUTCOMES = { null, TreasureHunter.Outcome.WON,
+		TreasureHunter.Outcome.BANKRUPT, TreasureHunter.Outcome.QUIT, null };
+
+	// the kit bit of the item each terrain needs, and of the first treasure
+	private static final int[] NEEDED = neededItems();
+	private static final int FIRST_TREASURE = Item.GOLD_THING.ordinal();
+	private static final int ALL_TREASURES = (int)Item.TREASURE_MASK;
+	private static final int TERRAINS = Terrain.count();
+
+	//instance variables
+	// the rules
+	private final int[] buyPrices;
+	private final int[] sellPrices;
+	private final int startingGold;
+	private final double toughness;
+	private final double brawlWinChance;
+	private final double brawlGoldExtra;
+	private final boolean cheating;
+	private final OptimalPolicy policy;
+	private final int maxActions;
+
+	// the games, one slot each
+	private final int size;
+	private final long[] seeds;
+	private final long[] gammas;
+	private final int[] gold;
+	private final int[] kit;
+	private final byte[] terrain;
+	private final byte[] treasure;
+	private final boolean[] tough;
+	private final boolean[] found;
+	private final int[] actions;
+	private final int[] brawls;
+	private final int[] itemBreaks;
+	private final byte[] outcome;
+
+	// the slots of the games still being played
+	private final int[] live;
+	private int liveCount;
+
+	//Constructor
+	/**
+	 * @param difficulty The rules every game in the batch plays by.
+	 * @param policy The optimal policy to play, or null to play the explorer.
+	 * @param maxActions The most actions a single game may take.
+	 * @param size The number of games in the batch.
+	 */
+	public BatchSimulator(Difficulty difficulty, OptimalPolicy policy, int maxActions, int size)
+	{
+		PriceTable prices = difficulty.getPrices();
+		buyPrices = new int[Item.SHOP_ITEM_COUNT];
+		sellPrices = new int[Item.SHOP_ITEM_COUNT];
+		for (int i = 0; i < Item.SHOP_ITEM_COUNT; i++)
+		{
+			buyPrices[i] = prices.getBuyPrice(Item.fromOrdinal(i));
+			sellPrices[i] = prices.getSellPrice(Item.fromOrdinal(i));
+		}
+		startingGold = difficulty.getStartingGold();
+		toughness = difficulty.getToughness();
+		brawlWinChance = difficulty.getBrawlWinChance();
+		brawlGoldExtra = difficulty.getBrawlGoldExtra();
+		cheating = difficulty.isCheating();
+		this.policy = policy;
+		this.maxActions = maxActions;
+
+		this.size = size;
+		seeds = new long[size];
+		gammas = new long[size];
+		gold = new int[size];
+		kit = new int[size];
+		terrain = new byte[size];
+		treasure = new byte[size];
+		tough = new boolean[size];
+		found = new boolean[size];
+		actions = new int[size];
+		brawls = new int[size];
+		itemBreaks = new int[size];
+		outcome = new byte[size];
+		live = new int[size];
+		liveCount = 0;
+	}
+
+	public static void main(String[] args)
+	{
+		long games = 10000000;
+		String mode = "all";
+		String policy = "explorer";
+		int batch = DEFAULT_BATCH;
+		int maxActions = 1000;
+		long seed = System.nanoTime();
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--games")) {
+				games = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("--mode")) {
+				mode = args[i + 1];
+			} else if (args[i].equals("--policy")) {
+				policy = args[i + 1];
+			} else if (args[i].equals("--batch")) {
+				batch = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--max-actions")) {
+				maxActions = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+		if (!policy.equals("explorer") && !policy.equals("optimal"))
+		{
+			System.out.println("Only the explorer and optimal policies can play in a batch.");
+			return;
+		}
+
+		String[] modes = ALL_MODES;
+		if (!mode.equals("all"))
+		{
+			modes = new String[] { mode };
+		}
+
+		System.out.println("Simulating " + games + " games per mode with the " + policy + " policy in batches of "
+			+ batch + " on " + Runtime.getRuntime().availableProcessors() + " cores, seed " + seed);
+		for (String m : modes)
+		{
+			long start = System.nanoTime();
+			SimulationStats stats = simulate(m, policy, games, maxActions, batch, new GameRandom(seed));
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.print(stats.report("Mode " + m));
+			System.out.println(String.format("  %.0f games/sec", games / seconds));
+		}
+	}
+
+	/**
+	 * Plays games in parallel batches and collects their results; the same games as
+	 * TreasureHunterSimulator.simulate() with the same arguments.
+	 *
+	 * @param mode The difficulty, as typed at the difficulty prompt.
+	 * @param policy "explorer" or "optimal".
+	 * @param games How many games to play.
+	 * @param maxActions The most actions a single game may take.
+	 * @param batch How many games each batch holds.
+	 * @param root The generator every game forks its random streams from; it is never advanced.
+	 * @return The combined results.
+	 */
+	public static SimulationStats simulate(String mode, String policy, long games, int maxActions, int batch, GameRandom root)
+	{
+		OptimalPolicy optimal = policy.equals("optimal") ? TreasureHunterSimulator.getOptimalPolicy(mode) : null;
+		return play(Difficulty.fromInput(mode), optimal, games, maxActions, batch, root, null);
+	}
+
+	/**
+	 * Plays games in parallel batches, optionally keeping how each game ended.
+	 * @param optimal The optimal policy to play, or null to play the explorer.
+	 * @param endings If not null, filled in by game number: outcome code (see outcomeOf()), actions, gold and kit.
+	 */
+	static SimulationStats play(Difficulty difficulty, OptimalPolicy optimal, long games, int maxActions, int batch,
+		GameRandom root, int[][] endings)
+	{
+		long batches = (games + batch - 1) / batch;
+		return LongStream.range(0, batches).parallel().collect(
+			() -> new SimulationStats(maxActions),
+			(stats, b) -> {
+				long first = b * batch;
+				BatchSimulator simulator = new BatchSimulator(difficulty, optimal, maxActions, (int)Math.min(batch, games - first));
+				simulator.start(root, first);
+				simulator.play(stats);
+				if (endings != null)
+				{
+					for (int i = 0; i < simulator.size; i++)
+					{
+						int game = (int)(first + i);
+						endings[0][game] = simulator.outcome[i];
+						endings[1][game] = simulator.actions[i];
+						endings[2][game] = simulator.gold[i];
+						endings[3][game] = simulator.kit[i];
+					}
+				}
+			},
+			SimulationStats::merge);
+	}
+
+	/**
+	 * @param ending An outcome code, as play() keeps them.
+	 * @return How the game ended, or null if it ran out of actions.
+	 */
+	static TreasureHunter.Outcome outcomeOf(int ending)
+	{
+		return OUTCOMES[ending];
+	}
+
+	/**
+	 * Sets up a new game in every slot: slot i gets game number firstGame + i.
+	 * @param root The generator every game forks its random streams from; it is never advanced.
+	 */
+	public void start(GameRandom root, long firstGame)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			// the same stream a TreasureHunter gets, after it splits off its brawl animator's rolls
+			GameRandom random = root.fork(2 * (firstGame + i));
+			random.split();
+			seeds[i] = random.getSeed();
+			gammas[i] = random.getGamma();
+
+			gold[i] = startingGold;
+			kit[i] = 0;
+			actions[i] = 0;
+			brawls[i] = 0;
+			itemBreaks[i] = 0;
+			arrive(i);
+			outcome[i] = maxActions > 0 ? PLAYING : ENDED_UNFINISHED;
+		}
+
+		liveCount = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (outcome[i] == PLAYING)
+			{
+				live[liveCount++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Plays every game in the batch to the end.
+	 * @param stats Where the games are recorded, or null to not record them.
+	 */
+	public void play(SimulationStats stats)
+	{
+		if (stats != null)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				if (outcome[i] != PLAYING)
+				{
+					record(i, stats);
+				}
+			}
+		}
+		while (liveCount > 0)
+		{
+			step(stats);
+		}
+	}
+
+	/**
+	 * Advances every game still being played by one action.
+	 */
+	private void step(SimulationStats stats)
+	{
+		int kept = 0;
+		for (int n = 0; n < liveCount; n++)
+		{
+			int g = live[n];
+			act(g, choose(g));
+			actions[g]++;
+			if (outcome[g] == PLAYING && actions[g] >= maxActions)
+			{
+				outcome[g] = ENDED_UNFINISHED;
+			}
+
+			if (stats != null)
+			{
+				stats.recordGold(actions[g], gold[g]);
+			}
+			if (outcome[g] == PLAYING)
+			{
+				live[kept++] = g;
+			}
+			else if (stats != null)
+			{
+				record(g, stats);
+			}
+		}
+		liveCount = kept;
+	}
+
+	private void record(int g, SimulationStats stats)
+	{
+		stats.record(OUTCOMES[outcome[g]], actions[g], gold[g], brawls[g], itemBreaks[g]);
+	}
+
+	/**
+	 * @return The action code, as in OptimalPolicy, of the bot's next move.
+	 */
+	private byte choose(int g)
+	{
+		if (policy != null)
+		{
+			int town = (terrain[g] * 3 + treasure[g]) * 2 + (tough[g] ? 1 : 0);
+			return policy.getAction(gold[g], kit[g], town);
+		}
+
+		// the explorer: hunt, then move on, buying what it takes to cross, and brawl when it can't afford it
+		if (!found[g] && (kit[g] & (1 << (FIRST_TREASURE + treasure[g]))) == 0)
+		{
+			return OptimalPolicy.HUNT;
+		}
+		int needed = NEEDED[terrain[g]];
+		if ((kit[g] & (1 << needed)) != 0)
+		{
+			return OptimalPolicy.MOVE;
+		}
+		if (gold[g] >= buyPrices[needed])
+		{
+			return (byte)(OptimalPolicy.BUY + needed);
+		}
+		return OptimalPolicy.LOOK;
+	}
+
+	private void act(int g, byte action)
+	{
+		if (action == OptimalPolicy.HUNT) {
+			hunt(g);
+		} else if (action == OptimalPolicy.MOVE) {
+			move(g);
+		} else if (action == OptimalPolicy.LOOK) {
+			lookForTrouble(g);
+		} else if (action >= OptimalPolicy.SELL) {
+			sell(g, action - OptimalPolicy.SELL);
+		} else if (action >= OptimalPolicy.BUY) {
+			buy(g, action - OptimalPolicy.BUY);
+		} else {
+			outcome[g] = ENDED_QUIT;
+		}
+	}
+
+	// the rules, as in Town.huntForTreasure() and TreasureHunter.huntForTreasure()
+	private void hunt(int g)
+	{
+		if (found[g])
+		{
+			return;
+		}
+		if (roll(g) >= 0.5)
+		{
+			int bit = 1 << (FIRST_TREASURE + treasure[g]);
+			// a treasure the hunter already has is left for someone else
+			if ((kit[g] & bit) == 0)
+			{
+				kit[g] |= bit;
+				found[g] = true;
+				if ((kit[g] & ALL_TREASURES) == ALL_TREASURES)
+				{
+					outcome[g] = ENDED_WON;
+				}
+			}
+		}
+	}
+
+	// as in Town.leaveTown() and Town.regenerate()
+	private void move(int g)
+	{
+		int needed = 1 << NEEDED[terrain[g]];
+		if ((kit[g] & needed) == 0)
+		{
+			return;
+		}
+		if (roll(g) < Town.ITEM_BREAK_CHANCE)
+		{
+			kit[g] &= ~needed;
+			itemBreaks[g]++;
+		}
+		arrive(g);
+	}
+
+	private void arrive(int g)
+	{
+		terrain[g] = (byte)(int)(roll(g) * TERRAINS);
+		treasure[g] = (byte)(int)(roll(g) * 3);
+		tough[g] = roll(g) < toughness;
+		found[g] = false;
+	}
+
+	// as in Town.lookForTrouble() and TreasureHunter.lookForTrouble()
+	private void lookForTrouble(int g)
+	{
+		double noTroubleChance = tough[g] ? 0.66 : 0.33;
+		if (roll(g) <= noTroubleChance)
+		{
+			int goldDiff = (int)(roll(g) * 10) + 1;
+			boolean won = roll(g) < brawlWinChance || cheating;
+			if (won)
+			{
+				goldDiff += brawlGoldExtra;
+				if (cheating)
+				{
+					goldDiff = 100;
+				}
+				gold[g] += goldDiff;
+			}
+			else
+			{
+				gold[g] = Math.max(0, gold[g] - goldDiff);
+			}
+			brawls[g]++;
+		}
+		if (gold[g] <= 0)
+		{
+			outcome[g] = ENDED_BANKRUPT;
+		}
+	}
+
+	// as in Shop.buyItem() and Hunter.buyItem()
+	private void buy(int g, int item)
+	{
+		int price = buyPrices[item];
+		int bit = 1 << item;
+		if (price == 0 || gold[g] < price || (kit[g] & bit) != 0)
+		{
+			return;
+		}
+		gold[g] -= price;
+		kit[g] |= bit;
+	}
+
+	// as in Shop.sellItem() and Hunter.sellItem()
+	private void sell(int g, int item)
+	{
+		int price = sellPrices[item];
+		int bit = 1 << item;
+		if (price <= 0 || (kit[g] & bit) == 0)
+		{
+			return;
+		}
+		gold[g] += price;
+		kit[g] &= ~bit;
+	}
+
+	/**
+	 * Rolls the game's next random double, exactly as its GameRandom would.
+	 */
+	private double roll(int g)
+	{
+		long seed = seeds[g] + gammas[g];
+		seeds[g] = seed;
+		return (GameRandom.mix64(seed) >>> 11) * 0x1.0p-53;
+	}
+
+	private static int[] neededItems()
+	{
+		int[] needed = new int[Terrain.count()];
+		for (int i = 0; i < needed.length; i++)
+		{
+			needed[i] = Terrain.fromIndex(i).getNeededItem().ordinal();
+		}
+		return needed;
+	}
+}
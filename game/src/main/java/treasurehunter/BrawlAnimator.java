@@ -0,0 +1,194 @@
+package treasurehunter;
+
+/**
+ * Plays the health bar animation for a brawl.<p>
+ * The brawl has already been decided by the time the animation starts, so the frames are
+ * worked out up front and the game's own thread shows one per interval, sleeping in between.
+ * Nothing is shared between games: on the server every session draws its own frames, so a player
+ * whose connection stalls only holds up their own game. A player can press Enter to skip straight
+ * to the result.
+ * The frames are printed and the skip is read through the game's CommandInput, like everything
+ * else, so the menu knows its screen was cleared and a command typed to skip still runs.
+ * Each frame replaces the last on a terminal with cursor control; anywhere else the frames are
+ * printed one after another, separated by a blank line.
+ * With a frame interval of 0 (or when nobody is watching) only the result is shown, instantly.
+ */
+import java.util.ArrayList;
+
+public class BrawlAnimator
+{
+	public static final long DEFAULT_FRAME_INTERVAL_MS = 750;
+
+	// moves the cursor to the top left and clears the screen in one go
+	private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+	private static final int BAR_WIDTH = 50;
+	private static final int MAX_HP = 100;
+
+	// how often the game thread checks whether the player wants to skip while it waits for a frame
+	private static final long SKIP_POLL_MS = 20;
+
+	//instance variables
+	private CommandInput io;
+	private GameRandom effectsRandom;
+	private long frameIntervalMs;
+	private boolean skippable;
+
+	//Constructor
+	/**
+	 * @param io The game's input, where the frames are drawn and the skip is read.
+	 * @param effectsRandom Rolls for the damage shown in the animation.
+	 */
+	public BrawlAnimator(CommandInput io, GameRandom effectsRandom)
+	{
+		this.io = io;
+		this.effectsRandom = effectsRandom;
+		frameIntervalMs = DEFAULT_FRAME_INTERVAL_MS;
+		skippable = true;
+	}
+
+	//Accessors
+	public long getFrameIntervalMs() { return frameIntervalMs; }
+	public boolean isSkippable() { return skippable; }
+	public GameRandom getEffectsRandom() { return effectsRandom; }
+
+	// Setters
+	/**
+	 * @param frameIntervalMs Time between frames; 0 skips the animation and only shows the result.
+	 */
+	public void setFrameIntervalMs(long frameIntervalMs) { this.frameIntervalMs = frameIntervalMs; }
+	public void setSkippable(boolean skippable) { this.skippable = skippable; }
+
+	/**
+	 * Shows a brawl whose result has already been decided, returning once the result is on screen.
+	 * @param winner true if the hunter won the brawl.
+	 */
+	public void play(boolean winner)
+	{
+		if (!io.isInteractive())
+		{
+			return;
+		}
+
+		ArrayList<String> frames = buildFrames(winner);
+		String result = frames.get(frames.size() - 1);
+		if (frameIntervalMs <= 0)
+		{
+			io.print(result);
+			io.flush();
+			return;
+		}
+
+		try
+		{
+			// each frame is due a fixed interval after the last one was due, so slow writes don't add up
+			long due = System.nanoTime();
+			for (String frame : frames)
+			{
+				due += frameIntervalMs * 1000000;
+				if (waitForSkip(due))
+				{
+					io.skipLine();
+					io.print(result);
+					io.flush();
+					return;
+				}
+				io.print(frame);
+				io.flush();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits until a frame is due, watching for the player pressing Enter.
+	 * @param due The System.nanoTime() the frame is due.
+	 * @return true if the player wants to skip to the result.
+	 */
+	private boolean waitForSkip(long due) throws InterruptedException
+	{
+		long left = due - System.nanoTime();
+		while (left > 0)
+		{
+			if (skippable && io.hasPendingInput())
+			{
+				return true;
+			}
+			Thread.sleep(Math.min(SKIP_POLL_MS, (left + 999999) / 1000000));
+			left = due - System.nanoTime();
+		}
+		return false;
+	}
+
+	/**
+	 * Works out every frame of the fight. The winner always deals more damage.
+	 */
+	private ArrayList<String> buildFrames(boolean winner)
+	{
+		ArrayList<String> frames = new ArrayList<String>();
+		String start = io.supportsCursorControl() ? CLEAR_SCREEN : "\n";
+		int ownHp = MAX_HP;
+		int oppHp = MAX_HP;
+
+		while (true) {
+			// Generate damage amounts (winner always deals more damage)
+			int oppDmg = 15 + (int)((effectsRandom.nextDouble() - 0.5) * 10);
+			int ownDmg = oppDmg + (int)(effectsRandom.nextDouble() * 5 + 1);
+			if (!winner) {
+				int swapTmp = ownDmg;
+				ownDmg = oppDmg;
+				oppDmg = swapTmp;
+			}
+
+			// Since the Hunter always attacks first, make sure they don't
+			// defeat the opponent if they are supposed to lose
+			if (!winner && oppHp - ownDmg <= 0) {
+				ownDmg = oppHp - (int)(effectsRandom.nextDouble() * 5 + 1);
+			}
+
+			// Make sure damage amounts don't exceed the remaining health
+			// of the target
+			ownDmg = Math.min(ownDmg, oppHp);
+			oppDmg = Math.min(oppDmg, ownHp);
+
+			// Hunter attacks opponent
+			oppHp -= ownDmg;
+			frames.add(start
+				+ "You      " + visualizeHpBar(BAR_WIDTH, ownHp, MAX_HP) + "\n"
+				+ "Opponent " + visualizeHpBar(BAR_WIDTH, oppHp, MAX_HP) + " -" + ownDmg + "\n");
+
+			if (oppHp <= 0) break;
+
+			// Opponent attacks Hunter
+			ownHp -= oppDmg;
+			frames.add(start
+				+ "You      " + visualizeHpBar(BAR_WIDTH, ownHp, MAX_HP) + " -" + oppDmg + "\n"
+				+ "Opponent " + visualizeHpBar(BAR_WIDTH, oppHp, MAX_HP) + "\n");
+
+			if (ownHp <= 0) break;
+		}
+
+		// battle results
+		if (winner) frames.add(start + "You won!\n\n");
+		else frames.add(start + "You lost!\n\n");
+		return frames;
+	}
+
+	/**
+	 * Draws a health bar, e.g. "<[|||||     ] 50/100>".
+	 */
+	static String visualizeHpBar(int width, int hp, int maxHp) {
+		int fillAmt = (int)Math.ceil((double)hp / maxHp * width);
+		int emptAmt = width - fillAmt;
+
+		String fill = "";
+		for (int i = 0; i < fillAmt; i++)
+			fill += "|";
+		for (int i = 0; i < emptAmt; i++)
+			fill += " ";
+		return String.format("<[%s] %d/%d>", fill, hp, maxHp);
+	}
+}
@@ -0,0 +1,43 @@
+package treasurehunter;
+
+/**
+ * A bot that secures its way out of every town before doing anything else.<p>
+ * It buys the item for the town's terrain as soon as it arrives, and hunts only once the way out is
+ * paid for. Short of gold in an ordinary town, it brawls for it. It stays out of fights in tough towns,
+ * where brawls are easier to find and harder to win: there it sells off items it doesn't need here
+ * first, and only brawls when it has nothing left to sell.
+ */
+public class CautiousShopperStrategy implements Strategy
+{
+	public String nextAction(Hunter hunter, Town town)
+	{
+		Item needed = town.getTerrain().getNeededItem();
+		if (!hunter.hasItemInKit(needed))
+		{
+			if (hunter.getGold() > town.getShop().getCostOfItem(needed))
+			{
+				// buying with gold to spare, so a bad brawl later can't end the game outright
+				return "b " + needed.getName() + " y";
+			}
+			if (town.isToughTown())
+			{
+				// raise the gold from the rest of the kit, the most valuable item first
+				for (int i = Item.BOAT.ordinal(); i >= 0; i--)
+				{
+					Item item = Item.fromOrdinal(i);
+					if (hunter.hasItemInKit(item) && town.getShop().getBuyBackCost(item) > 0)
+					{
+						return "s " + item.getName() + " y";
+					}
+				}
+			}
+			return "l";
+		}
+
+		if (!town.isTreasureFound() && !hunter.hasItemInKit(town.getTreasure()))
+		{
+			return "h";
+		}
+		return "m";
+	}
+}
@@ -0,0 +1,187 @@
+package treasurehunter;
+
+/**
+ * Splits the player's input into commands, so several can be typed on one line.<p>
+ * Commands are separated by semicolons, and a command can carry the answers to the prompts it
+ * leads to, separated by spaces: "b w y; m; h; h" buys water, moves on and hunts twice.
+ * Commands typed ahead wait in a queue and run back to back. When a command runs out of answers,
+ * the next prompt reads a fresh line as usual.<p>
+ * It wraps the game's GameIO: readLine() answers prompts, nextCommand() reads the next menu choice.
+ */
+import java.util.ArrayDeque;
+
+public class CommandInput implements GameIO
+{
+	//instance variables
+	private GameIO io;
+	private ArrayDeque<String[]> queued;
+	private String[] current;
+	private int nextAnswer;
+	private GameJournal journal;
+
+	//Constructor
+	public CommandInput(GameIO io)
+	{
+		this.io = io;
+		queued = new ArrayDeque<String[]>();
+		current = null;
+		nextAnswer = 0;
+		journal = null;
+	}
+
+	/**
+	 * @param journal Records every command and answer read from now on, or null to not record them.
+	 */
+	public void setJournal(GameJournal journal) { this.journal = journal; }
+
+	/**
+	 * Reads the next menu choice, reading a new line only when no commands are queued.
+	 *
+	 * @return The command, or null if there is no more input.
+	 */
+	public String nextCommand()
+	{
+		current = null;
+		if (queued.isEmpty())
+		{
+			String line = io.readLine();
+			if (line == null)
+			{
+				return null;
+			}
+			queue(line);
+		}
+
+		current = queued.poll();
+		nextAnswer = 1;
+		if (journal != null)
+		{
+			journal.recordCommand(current[0]);
+		}
+		return current[0];
+	}
+
+	/**
+	 * @return true if commands typed ahead are still waiting to run.
+	 */
+	public boolean hasQueuedCommands()
+	{
+		return !queued.isEmpty();
+	}
+
+	/**
+	 * Answers a prompt with the next word of the current command, or with a fresh line once
+	 * the command has no words left.
+	 */
+	public String readLine()
+	{
+		String answer;
+		if (current != null && nextAnswer < current.length)
+		{
+			answer = current[nextAnswer++];
+		}
+		else
+		{
+			answer = io.readLine();
+		}
+
+		if (journal != null && answer != null)
+		{
+			journal.recordAnswer(answer);
+		}
+		return answer;
+	}
+
+	/**
+	 * Reads the line the player pressed Enter on to skip an animation. Anything typed on it is
+	 * queued like any other commands, so a player can skip straight into their next move; a blank
+	 * line is simply used up. Queued commands are journaled when they run, so the skip itself
+	 * leaves nothing in the journal.
+	 *
+	 * @return false if there is no more input.
+	 */
+	public boolean skipLine()
+	{
+		String line = io.readLine();
+		if (line == null)
+		{
+			return false;
+		}
+		if (line.trim().length() > 0)
+		{
+			queue(line);
+		}
+		return true;
+	}
+
+	private void queue(String line)
+	{
+		boolean queuedAny = false;
+		for (String command : line.split(";"))
+		{
+			String trimmed = command.trim();
+			if (trimmed.length() > 0)
+			{
+				queued.add(trimmed.split("\\s+"));
+				queuedAny = true;
+			}
+		}
+
+		if (!queuedAny)
+		{
+			// a blank line is still a (bad) choice, like it always was
+			queued.add(new String[] { line.trim() });
+		}
+	}
+
+	// the rest of GameIO passes straight through
+	public boolean hasPendingInput()
+	{
+		return io.hasPendingInput();
+	}
+
+	public void print(String text)
+	{
+		io.print(text);
+	}
+
+	public void println(String text)
+	{
+		io.println(text);
+	}
+
+	public void println()
+	{
+		io.println();
+	}
+
+	public void flush()
+	{
+		io.flush();
+	}
+
+	public boolean isInteractive()
+	{
+		return io.isInteractive();
+	}
+
+	public boolean isInputInteractive()
+	{
+		return io.isInputInteractive();
+	}
+
+	public boolean isOutputDiscarded()
+	{
+		return io.isOutputDiscarded();
+	}
+
+	public boolean isLatencyRecorded()
+	{
+		return io.isLatencyRecorded();
+	}
+
+	public boolean supportsCursorControl()
+	{
+		return io.supportsCursorControl();
+	}
+}
@@ -0,0 +1,88 @@
+package treasurehunter;
+
+/**
+ * GameIO implementation that talks to the player through System.in and System.out.<p>
+ * A single Scanner is shared for the whole game so that buffered input is never lost between prompts.
+ * Output is buffered and only flushed when the game is about to wait for the player, so a whole
+ * screen goes out in one write instead of one write per line.
+ */
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+public class ConsoleIO implements GameIO
+{
+	//instance variables
+	private Scanner scanner;
+	private PrintStream out;
+	private boolean terminal;
+
+	//Constructor
+	public ConsoleIO()
+	{
+		scanner = new Scanner(System.in);
+		out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 8192), false);
+		terminal = System.console() != null;
+	}
+
+	public String readLine()
+	{
+		out.flush();
+		if (!scanner.hasNextLine())
+		{
+			return null;
+		}
+		return scanner.nextLine();
+	}
+
+	public boolean hasPendingInput()
+	{
+		try
+		{
+			return System.in.available() > 0;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	public void print(String text)
+	{
+		out.print(text);
+	}
+
+	public void println(String text)
+	{
+		out.println(text);
+	}
+
+	public void println()
+	{
+		out.println();
+	}
+
+	public void flush()
+	{
+		out.flush();
+	}
+
+	public boolean isInteractive()
+	{
+		return true;
+	}
+
+	public boolean isInputInteractive()
+	{
+		// System.console() is null when the input is piped in from a file
+		return terminal;
+	}
+
+	public boolean supportsCursorControl()
+	{
+		return terminal;
+	}
+}
@@ -0,0 +1,101 @@
+package treasurehunter;
+
+/**
+ * The settings for one difficulty of the Treasure Hunter game.<p>
+ * The four standard difficulties are shared constants, each with its own PriceTable,
+ * so every game and every town on the same difficulty uses the same objects.
+ */
+public final class Difficulty
+{
+	// normal mode values
+	public static final Difficulty NORMAL = new Difficulty("N", 0.5, 0.4, 1, 0.5, 0, 10, false);
+
+	// easy mode, lower buy value, higher resell value, and easier towns
+	public static final Difficulty EASY = new Difficulty("E", 0.9, 0.2, 0.5, 0.75, 5, 15, false);
+
+	// hard mode, higher buy value, lower resell value, and tougher towns
+	public static final Difficulty HARD = new Difficulty("H", 0.25, 0.75, 1, 0.5, 0, 10, false);
+
+	// cheat mode plays like normal mode, except everything in the shop costs 1 gold and every brawl is won
+	public static final Difficulty CHEAT = new Difficulty("C", 0.5, 0.4, 1, 0.5, 0, 10, true, PriceTable.flat(1));
+
+	//instance variables
+	private final String code;
+	private final double markdown;
+	private final double toughness;
+	private final double priceMod;
+	private final double brawlWinChance;
+	private final double brawlGoldExtra;
+	private final int startingGold;
+	private final boolean cheating;
+	private final PriceTable prices;
+
+	//Constructor
+	/**
+	 * Creates a difficulty whose prices are the standard base costs scaled by priceMod.
+	 *
+	 * @param code The one letter code for the difficulty.
+	 * @param markdown Fraction of the price the shop pays when buying an item back.
+	 * @param toughness Chance that a town is a tough town.
+	 * @param priceMod Multiplier applied to the shop's base costs.
+	 * @param brawlWinChance Chance of winning a brawl.
+	 * @param brawlGoldExtra Extra gold for winning a brawl.
+	 * @param startingGold The gold the hunter starts with.
+	 * @param cheating true if the hunter always wins brawls.
+	 */
+	public Difficulty(String code, double markdown, double toughness, double priceMod, double brawlWinChance,
+		double brawlGoldExtra, int startingGold, boolean cheating)
+	{
+		this(code, markdown, toughness, priceMod, brawlWinChance, brawlGoldExtra, startingGold, cheating,
+			new PriceTable(PriceTable.defaultCosts(), priceMod, markdown));
+	}
+
+	/**
+	 * Creates a difficulty with its own price table.
+	 */
+	public Difficulty(String code, double markdown, double toughness, double priceMod, double brawlWinChance,
+		double brawlGoldExtra, int startingGold, boolean cheating, PriceTable prices)
+	{
+		this.code = code;
+		this.markdown = markdown;
+		this.toughness = toughness;
+		this.priceMod = priceMod;
+		this.brawlWinChance = brawlWinChance;
+		this.brawlGoldExtra = brawlGoldExtra;
+		this.startingGold = startingGold;
+		this.cheating = cheating;
+		this.prices = prices;
+	}
+
+	//Accessors
+	public String getCode() { return code; }
+	public double getMarkdown() { return markdown; }
+	public double getToughness() { return toughness; }
+	public double getPriceMod() { return priceMod; }
+	public double getBrawlWinChance() { return brawlWinChance; }
+	public double getBrawlGoldExtra() { return brawlGoldExtra; }
+	public int getStartingGold() { return startingGold; }
+	public boolean isCheating() { return cheating; }
+	public PriceTable getPrices() { return prices; }
+
+	/**
+	 * Reads a difficulty the way the player types it at the difficulty prompt.
+	 *
+	 * @param input e.g. "e", "easy", "n", "normal", "h", "hard" or "cheat", in any case.
+	 * @return The matching difficulty, or null if the input isn't one.
+	 */
+	public static Difficulty fromInput(String input)
+	{
+		String mode = input.toLowerCase();
+		if (mode.equals("easy") || mode.equals("e")) {
+			return EASY;
+		} else if (mode.equals("normal") || mode.equals("n")) {
+			return NORMAL;
+		} else if (mode.equals("hard") || mode.equals("h")) {
+			return HARD;
+		} else if (mode.equals("cheat")) {
+			return CHEAT;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,404 @@
+package treasurehunter;
+
+/**
+ * Searches for difficulty settings that give the win rates we want, by playing bot games on every
+ * combination of the given settings.<p>
+ * Each setting (markdown, toughness, price modifier, brawl win chance, brawl gold extra, starting
+ * gold and the base cost of each shop item) is given as one value, a list "a,b,c" or a range
+ * "low:high:step"; the rest stay at normal's values. Every combination is played by the same bot
+ * on the same games: game g gets the same random streams under every combination, so differences
+ * between combinations come from the settings and not from luck.<p>
+ * Combinations are played in rounds of a batch of games each, spread across every core. After each
+ * round a combination stops being played once the 95% Wilson interval of its win rate is narrower
+ * than the precision, or once the interval is clearly away from every target so it can't be the
+ * answer. The search ends when every combination has stopped or played the most games allowed.<p>
+ * Finally, for each mode's target win rate, the combinations closest to it are listed.<p>
+ * Usage: java treasurehunter.DifficultyTuner [--SETTING VALUES]... [--target e=0.8,n=0.5,h=0.3] [--policy P]
+ *        [--precision X] [--batch N] [--max-games N] [--max-actions N] [--top N] [--seed N]<br>
+ * Settings: --markdown --toughness --price-mod --brawl-win-chance --brawl-gold-extra --starting-gold
+ *        --water-cost --rope-cost --machete-cost --lantern-cost --horse-cost --boat-cost
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+public class DifficultyTuner
+{
+	private static final String[] SETTINGS = { "markdown", "toughness", "price-mod", "brawl-win-chance",
+		"brawl-gold-extra", "starting-gold", "water-cost", "rope-cost", "machete-cost", "lantern-cost", "horse-cost", "boat-cost" };
+	private static final int MAX_COMBINATIONS = 100000;
+
+	// for a 95% confidence interval
+	private static final double Z = 1.96;
+
+	//instance variables
+	private final double[][] values;
+	private final String policy;
+	private final int maxActions;
+	private final GameRandom root;
+	private final int combinations;
+	private long[] wins;
+	private long[] played;
+
+	//Constructor
+	/**
+	 * @param values The values to try for each setting, in the order of SETTINGS.
+	 * @param policy The bot that plays the games.
+	 * @param maxActions The most actions a single game may take.
+	 * @param root The generator every game forks its random streams from; it is never advanced.
+	 */
+	public DifficultyTuner(double[][] values, String policy, int maxActions, GameRandom root)
+	{
+		this.values = values;
+		this.policy = policy;
+		this.maxActions = maxActions;
+		this.root = root;
+
+		long count = 1;
+		for (double[] setting : values)
+		{
+			count *= setting.length;
+			if (count > MAX_COMBINATIONS)
+			{
+				throw new IllegalArgumentException("More than " + MAX_COMBINATIONS + " combinations; narrow the ranges");
+			}
+		}
+		combinations = (int)count;
+		wins = new long[combinations];
+		played = new long[combinations];
+	}
+
+	public static void main(String[] args)
+	{
+		double[][] values = defaults();
+		double[] targets = { 0.8, 0.5, 0.3 };
+		String[] targetModes = { "e", "n", "h" };
+		String policy = "explorer";
+		double precision = 0.01;
+		int batch = 1000;
+		long maxGames = 50000;
+		int maxActions = 1000;
+		int top = 3;
+		long seed = System.nanoTime();
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			int setting = Arrays.asList(SETTINGS).indexOf(args[i].startsWith("--") ? args[i].substring(2) : "");
+			if (setting >= 0) {
+				values[setting] = parseValues(args[i + 1]);
+			} else if (args[i].equals("--target")) {
+				String[] pairs = args[i + 1].split(",");
+				targetModes = new String[pairs.length];
+				targets = new double[pairs.length];
+				for (int t = 0; t < pairs.length; t++)
+				{
+					String[] pair = pairs[t].split("=");
+					targetModes[t] = pair[0];
+					targets[t] = Double.parseDouble(pair[1]);
+				}
+			} else if (args[i].equals("--policy")) {
+				policy = args[i + 1];
+			} else if (args[i].equals("--precision")) {
+				precision = Double.parseDouble(args[i + 1]);
+			} else if (args[i].equals("--batch")) {
+				batch = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--max-games")) {
+				maxGames = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("--max-actions")) {
+				maxActions = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--top")) {
+				top = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		if (policy.equals("optimal"))
+		{
+			// the optimal policy is solved for one of the standard difficulties, not for arbitrary settings
+			System.out.println("The optimal policy can't be tuned against; pick another policy.");
+			return;
+		}
+		TreasureHunterSimulator.newStrategy(policy, "n", new GameRandom(0));
+
+		DifficultyTuner tuner = new DifficultyTuner(values, policy, maxActions, new GameRandom(seed));
+		System.out.println("Tuning " + tuner.combinations + " combinations with the " + policy + " policy on "
+			+ Runtime.getRuntime().availableProcessors() + " cores, seed " + seed);
+		long start = System.nanoTime();
+		long games = tuner.run(targets, precision, batch, maxGames);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%,d games in %.1f s (%.0f games/sec); playing every combination %,d times would have taken %,d",
+			games, seconds, games / seconds, maxGames, maxGames * tuner.combinations));
+
+		for (int t = 0; t < targets.length; t++)
+		{
+			System.out.println();
+			System.out.println(String.format("Closest to %.1f%% for mode %s:", 100 * targets[t], targetModes[t]));
+			for (int c : tuner.closest(targets[t], top))
+			{
+				System.out.println(String.format("  win %6.2f%% +/- %.2f%% over %,d games: %s",
+					100 * tuner.getWinRate(c), 100 * tuner.getHalfWidth(c), tuner.played[c], tuner.describe(c)));
+			}
+		}
+	}
+
+	/**
+	 * Plays rounds of games until every combination has stopped.
+	 *
+	 * @param targets The win rates being looked for.
+	 * @param precision The half-width of the confidence interval at which a combination stops.
+	 * @param batch Games per combination per round.
+	 * @param maxGames The most games any combination plays.
+	 * @return The number of games played.
+	 */
+	public long run(double[] targets, double precision, int batch, long maxGames)
+	{
+		Difficulty[] difficulties = new Difficulty[combinations];
+		for (int c = 0; c < combinations; c++)
+		{
+			difficulties[c] = toDifficulty(c);
+		}
+
+		int[] active = new int[combinations];
+		for (int c = 0; c < combinations; c++)
+		{
+			active[c] = c;
+		}
+		int activeCount = combinations;
+		long total = 0;
+
+		for (long first = 0; activeCount > 0 && first < maxGames; first += batch)
+		{
+			int[] playing = Arrays.copyOf(active, activeCount);
+			int games = (int)Math.min(batch, maxGames - first);
+			long firstGame = first;
+
+			// the same game numbers for every combination still playing
+			long[] roundWins = LongStream.range(0, (long)playing.length * games).parallel().collect(
+				() -> new long[playing.length],
+				(counts, index) -> {
+					int slot = (int)(index / games);
+					long gameNumber = firstGame + index % games;
+					if (playGame(difficulties[playing[slot]], gameNumber).getOutcome() == TreasureHunter.Outcome.WON)
+					{
+						counts[slot]++;
+					}
+				},
+				(a, b) -> {
+					for (int i = 0; i < a.length; i++)
+					{
+						a[i] += b[i];
+					}
+				});
+
+			activeCount = 0;
+			for (int slot = 0; slot < playing.length; slot++)
+			{
+				int c = playing[slot];
+				wins[c] += roundWins[slot];
+				played[c] += games;
+				total += games;
+				if (!isSettled(c, targets, precision))
+				{
+					active[activeCount++] = c;
+				}
+			}
+		}
+		return total;
+	}
+
+	//Accessors
+	public double getWinRate(int combination)
+	{
+		return played[combination] == 0 ? 0 : (double)wins[combination] / played[combination];
+	}
+
+	/**
+	 * @return Half the width of the 95% Wilson interval of a combination's win rate.
+	 */
+	public double getHalfWidth(int combination)
+	{
+		double n = played[combination];
+		if (n == 0)
+		{
+			return 0.5;
+		}
+		double p = getWinRate(combination);
+		return Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4 * n * n)) / (1 + Z * Z / n);
+	}
+
+	/**
+	 * @return The centre of the 95% Wilson interval of a combination's win rate.
+	 */
+	public double getCentre(int combination)
+	{
+		double n = played[combination];
+		if (n == 0)
+		{
+			return 0.5;
+		}
+		return (getWinRate(combination) + Z * Z / (2 * n)) / (1 + Z * Z / n);
+	}
+
+	/**
+	 * @return The combinations whose win rates are closest to the target, closest first.
+	 */
+	public int[] closest(double target, int count)
+	{
+		Integer[] order = new Integer[combinations];
+		for (int c = 0; c < combinations; c++)
+		{
+			order[c] = c;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(Math.abs(getWinRate(a) - target), Math.abs(getWinRate(b) - target)));
+
+		int[] best = new int[Math.min(count, combinations)];
+		for (int i = 0; i < best.length; i++)
+		{
+			best[i] = order[i];
+		}
+		return best;
+	}
+
+	/**
+	 * @return A combination's settings, e.g. "markdown=0.5 toughness=0.4 ...".
+	 */
+	public String describe(int combination)
+	{
+		double[] setting = settingsOf(combination);
+		StringBuilder text = new StringBuilder();
+		for (int s = 0; s < SETTINGS.length; s++)
+		{
+			if (s > 0)
+			{
+				text.append(' ');
+			}
+			text.append(SETTINGS[s]).append('=');
+			text.append(setting[s] == Math.rint(setting[s]) ? String.valueOf((long)setting[s]) : String.valueOf(setting[s]));
+		}
+		return text.toString();
+	}
+
+	/**
+	 * A combination has played enough once its interval is narrow, or is clearly away from every target.
+	 */
+	private boolean isSettled(int combination, double[] targets, double precision)
+	{
+		double halfWidth = getHalfWidth(combination);
+		if (halfWidth <= precision)
+		{
+			return true;
+		}
+
+		double low = getCentre(combination) - halfWidth;
+		double high = getCentre(combination) + halfWidth;
+		for (double target : targets)
+		{
+			if (target >= low - precision && target <= high + precision)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private TreasureHunter playGame(Difficulty difficulty, long gameNumber)
+	{
+		Strategy strategy = TreasureHunterSimulator.newStrategy(policy, difficulty.getCode(), root.fork(2 * gameNumber + 1));
+		StrategyIO io = new StrategyIO(strategy, "Bot", null, maxActions);
+		TreasureHunter game = new TreasureHunter(io, root.fork(2 * gameNumber));
+		io.setGame(game);
+		game.setDifficulty(difficulty);
+		game.play();
+		return game;
+	}
+
+	/**
+	 * @return The value of each setting in a combination, in the order of SETTINGS.
+	 */
+	private double[] settingsOf(int combination)
+	{
+		double[] setting = new double[SETTINGS.length];
+		int rest = combination;
+		for (int s = SETTINGS.length - 1; s >= 0; s--)
+		{
+			setting[s] = values[s][rest % values[s].length];
+			rest /= values[s].length;
+		}
+		return setting;
+	}
+
+	private Difficulty toDifficulty(int combination)
+	{
+		double[] setting = settingsOf(combination);
+		int[] costs = new int[Item.count()];
+		for (int i = 0; i < Item.SHOP_ITEM_COUNT; i++)
+		{
+			costs[i] = (int)setting[6 + i];
+		}
+		return new Difficulty("T", setting[0], setting[1], setting[2], setting[3], setting[4], (int)setting[5], false,
+			new PriceTable(costs, setting[2], setting[0]));
+	}
+
+	/**
+	 * @return Normal's value for every setting.
+	 */
+	private static double[][] defaults()
+	{
+		Difficulty normal = Difficulty.NORMAL;
+		int[] costs = PriceTable.defaultCosts();
+		double[][] values = new double[SETTINGS.length][];
+		values[0] = new double[] { normal.getMarkdown() };
+		values[1] = new double[] { normal.getToughness() };
+		values[2] = new double[] { normal.getPriceMod() };
+		values[3] = new double[] { normal.getBrawlWinChance() };
+		values[4] = new double[] { normal.getBrawlGoldExtra() };
+		values[5] = new double[] { normal.getStartingGold() };
+		for (int i = 0; i < Item.SHOP_ITEM_COUNT; i++)
+		{
+			values[6 + i] = new double[] { costs[i] };
+		}
+		return values;
+	}
+
+	/**
+	 * Reads "x", "a,b,c" or "low:high:step".
+	 */
+	static double[] parseValues(String text)
+	{
+		if (text.contains(":"))
+		{
+			String[] parts = text.split(":");
+			double low = Double.parseDouble(parts[0]);
+			double high = Double.parseDouble(parts[1]);
+			double step = Double.parseDouble(parts[2]);
+			if (step <= 0 || high < low)
+			{
+				throw new IllegalArgumentException("Bad range " + text);
+			}
+			ArrayList<Double> range = new ArrayList<Double>();
+			// a little slack so rounding doesn't drop the top of the range
+			for (int i = 0; low + i * step <= high + step * 1e-9; i++)
+			{
+				range.add(Math.round((low + i * step) * 1e9) / 1e9);
+			}
+			double[] values = new double[range.size()];
+			for (int i = 0; i < values.length; i++)
+			{
+				values[i] = range.get(i);
+			}
+			return values;
+		}
+
+		String[] parts = text.split(",");
+		double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i++)
+		{
+			values[i] = Double.parseDouble(parts[i]);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,29 @@
+package treasurehunter;
+
+/**
+ * A simple bot that hunts each town until its treasure is found, buys whatever it needs to
+ * move on, and only goes looking for trouble when it can't afford to leave.
+ */
+public class ExplorerStrategy implements Strategy
+{
+	public String nextAction(Hunter hunter, Town town)
+	{
+		if (!town.isTreasureFound() && !hunter.hasItemInKit(town.getTreasure()))
+		{
+			return "h";
+		}
+
+		Item needed = town.getTerrain().getNeededItem();
+		if (hunter.hasItemInKit(needed))
+		{
+			return "m";
+		}
+
+		if (hunter.getGold() >= town.getShop().getCostOfItem(needed))
+		{
+			return "b " + needed.getName() + " y";
+		}
+
+		return "l";
+	}
+}
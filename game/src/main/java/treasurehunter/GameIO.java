@@ -0,0 +1,74 @@
+package treasurehunter;
+
+/**
+ * The GameIO interface is everything the Treasure Hunter game needs from the outside world:
+ * a way to read the player's input and a place to print messages.<p>
+ * Swapping the implementation lets the same game run on a console or completely headless.
+ */
+public interface GameIO
+{
+	/**
+	 * Reads the next line of input from the player.
+	 *
+	 * @return The line that was read, or null if there is no more input.
+	 */
+	String readLine();
+
+	/**
+	 * @return true if input is waiting to be read, so that readLine() would not have to wait.
+	 */
+	default boolean hasPendingInput()
+	{
+		return false;
+	}
+
+	void print(String text);
+
+	void println(String text);
+
+	void println();
+
+	/**
+	 * Makes sure everything printed so far has actually been written out.
+	 */
+	default void flush() {}
+
+	/**
+	 * @return true if a person is watching the output, false if nobody will ever see it.
+	 */
+	boolean isInteractive();
+
+	/**
+	 * @return true if a person is typing the input, so it is worth prompting them for it.
+	 *         false if the input is piped in or generated, so prompts can be skipped.
+	 */
+	default boolean isInputInteractive()
+	{
+		return isInteractive();
+	}
+
+	/**
+	 * @return true if everything printed is thrown away, so there is no point building text to print.
+	 */
+	default boolean isOutputDiscarded()
+	{
+		return false;
+	}
+
+	/**
+	 * @return true if the time each action takes should be recorded in GameMetrics. Bots playing
+	 *         huge numbers of games turn it off, so the game doesn't read the clock on every action.
+	 */
+	default boolean isLatencyRecorded()
+	{
+		return true;
+	}
+
+	/**
+	 * @return true if the output is a terminal that understands ANSI cursor movement.
+	 */
+	default boolean supportsCursorControl()
+	{
+		return false;
+	}
+}
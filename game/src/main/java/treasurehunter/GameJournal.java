@@ -0,0 +1,165 @@
+package treasurehunter;
+
+/**
+ * An append-only record of one Treasure Hunter session, for reproducing it exactly later.<p>
+ * The journal starts with the game's starting point (the random generator states, or a
+ * GameSnapshot for a game restored from a save) and then logs, in order, every menu command,
+ * every answer to a prompt (name, difficulty, shop questions) and every random roll made in a
+ * town. Commands and answers are enough to replay the game; the rolls let JournalReplay check
+ * that the replay really went the same way.<p>
+ * Format (big-endian, as written by DataOutputStream):
+ * <pre>
+ *   int   magic "THJR"
+ *   short format version
+ *   int   snapshot length, then that many snapshot bytes (length 0 for a new game)
+ *   long  game random seed, gamma, effects random seed, gamma (new game only)
+ *   then entries, each a one byte tag:
+ *     'C' UTF    menu command
+ *     'A' UTF    answer to a prompt
+ *     'D' double town roll
+ * </pre>
+ * Output is buffered and flushed after every command, so the journal of a session that crashes
+ * is complete up to its last move.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class GameJournal
+{
+	static final int MAGIC = 0x54484A52;
+	static final short VERSION = 1;
+
+	static final byte COMMAND = 'C';
+	static final byte ANSWER = 'A';
+	static final byte DRAW = 'D';
+
+	//instance variables
+	private final DataOutputStream out;
+	private boolean started;
+
+	//Constructor
+	/**
+	 * @param out Where the journal is written; closed by close().
+	 */
+	public GameJournal(OutputStream out)
+	{
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 4096));
+		started = false;
+	}
+
+	/**
+	 * Opens a journal file, replacing any journal already there.
+	 * @param file The journal file.
+	 */
+	public static GameJournal create(Path file) throws IOException
+	{
+		return new GameJournal(Files.newOutputStream(file));
+	}
+
+	/**
+	 * Writes the journal's header; called by TreasureHunter when the journal is attached.
+	 * @param game A game that hasn't started yet, or one restored from a save.
+	 */
+	void recordStart(TreasureHunter game)
+	{
+		if (started)
+		{
+			throw new IllegalStateException("The journal already has a game in it");
+		}
+		started = true;
+
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			if (game.getHunter() != null)
+			{
+				byte[] snapshot = GameSnapshot.encode(game);
+				out.writeInt(snapshot.length);
+				out.write(snapshot);
+			}
+			else
+			{
+				out.writeInt(0);
+				out.writeLong(game.getRandom().getSeed());
+				out.writeLong(game.getRandom().getGamma());
+				out.writeLong(game.getAnimator().getEffectsRandom().getSeed());
+				out.writeLong(game.getAnimator().getEffectsRandom().getGamma());
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param command A menu choice, as the game is about to process it.
+	 */
+	public void recordCommand(String command)
+	{
+		try
+		{
+			out.writeByte(COMMAND);
+			out.writeUTF(command);
+			// once per move is cheap enough, and keeps the file current if the process dies
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param answer What the player answered to a prompt.
+	 */
+	public void recordAnswer(String answer)
+	{
+		try
+		{
+			out.writeByte(ANSWER);
+			out.writeUTF(answer);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param roll A random roll made in a town.
+	 */
+	public void recordDraw(double roll)
+	{
+		try
+		{
+			out.writeByte(DRAW);
+			out.writeDouble(roll);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes everything still buffered and closes the journal.
+	 */
+	public void close()
+	{
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package treasurehunter;
+
+/**
+ * Counts what happens in every Treasure Hunter game running in this JVM, and how long each action takes.<p>
+ * There is one GameMetrics per JVM, shared by every game. All counters are LongAdders, which
+ * keep a separate cell per contending thread, so thousands of concurrent sessions (or simulator
+ * threads) record without ever waiting on one another; the cells are only added up when someone reads them.<p>
+ * The numbers are published as a JMX MXBean named "TreasureHunter:type=GameMetrics".
+ */
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class GameMetrics implements GameMetricsMXBean
+{
+	/**
+	 * The actions whose latency is measured.<p>
+	 * PROCESS_CHOICE covers a whole menu command, including any time spent waiting on the
+	 * player to answer the shop's questions; the others are pure game logic.
+	 */
+	public enum Action { PROCESS_CHOICE, LOOK_FOR_TROUBLE, HUNT_FOR_TREASURE, LEAVE_TOWN, BUY_ITEM, SELL_ITEM }
+
+	public static final String OBJECT_NAME = "TreasureHunter:type=GameMetrics";
+
+	private static final Action[] ACTIONS = Action.values();
+
+	// stands in for the start time of an action that isn't being timed
+	private static final long NOT_TIMED = Long.MIN_VALUE;
+	private static final GameMetrics INSTANCE = new GameMetrics();
+
+	static
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		}
+		catch (JMException | RuntimeException e)
+		{
+			// no JMX (or already registered by another class loader); the counters still work
+		}
+	}
+
+	//instance variables
+	private final LongAdder brawlsWon;
+	private final LongAdder brawlsLost;
+	private final LongAdder treasuresFound;
+	private final LongAdder itemBreaks;
+	private final LongAdder bankruptcies;
+	private final LongAdder[] purchases;
+	private final LatencyHistogram[] latencies;
+
+	//Constructor
+	private GameMetrics()
+	{
+		brawlsWon = new LongAdder();
+		brawlsLost = new LongAdder();
+		treasuresFound = new LongAdder();
+		itemBreaks = new LongAdder();
+		bankruptcies = new LongAdder();
+
+		purchases = new LongAdder[Item.count()];
+		for (int i = 0; i < purchases.length; i++)
+		{
+			purchases[i] = new LongAdder();
+		}
+
+		latencies = new LatencyHistogram[ACTIONS.length];
+		for (int i = 0; i < latencies.length; i++)
+		{
+			latencies[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * @return The JVM's metrics.
+	 */
+	public static GameMetrics get()
+	{
+		return INSTANCE;
+	}
+
+	// Recording
+	public void recordBrawl(boolean won)
+	{
+		if (won) {
+			brawlsWon.increment();
+		} else {
+			brawlsLost.increment();
+		}
+	}
+
+	public void recordTreasureFound() { treasuresFound.increment(); }
+	public void recordItemBreak() { itemBreaks.increment(); }
+	public void recordBankruptcy() { bankruptcies.increment(); }
+	public void recordPurchase(Item item) { purchases[item.ordinal()].increment(); }
+
+	/**
+	 * Starts timing an action.
+	 * @param timed false if the game's actions aren't timed (see GameIO.isLatencyRecorded()).
+	 * @return The start time to hand to recordLatency(); the clock isn't read for an untimed action.
+	 */
+	public static long startTiming(boolean timed)
+	{
+		return timed ? System.nanoTime() : NOT_TIMED;
+	}
+
+	/**
+	 * Records one call of an action, unless it wasn't timed.
+	 * @param action The action.
+	 * @param startNanos What startTiming() returned when the action started.
+	 */
+	public void recordLatency(Action action, long startNanos)
+	{
+		if (startNanos != NOT_TIMED)
+		{
+			latencies[action.ordinal()].record(System.nanoTime() - startNanos);
+		}
+	}
+
+	// GameMetricsMXBean
+	public long getBrawlsWon() { return brawlsWon.sum(); }
+	public long getBrawlsLost() { return brawlsLost.sum(); }
+	public long getTreasuresFound() { return treasuresFound.sum(); }
+	public long getItemBreaks() { return itemBreaks.sum(); }
+	public long getBankruptcies() { return bankruptcies.sum(); }
+
+	public Map<String, Long> getPurchasesByItem()
+	{
+		Map<String, Long> byItem = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < purchases.length; i++)
+		{
+			Item item = Item.fromOrdinal(i);
+			if (!item.isTreasure())
+			{
+				byItem.put(item.getName(), purchases[i].sum());
+			}
+		}
+		return byItem;
+	}
+
+	public Map<String, Long> getActionCounts()
+	{
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		for (Action action : ACTIONS)
+		{
+			counts.put(action.name(), latencies[action.ordinal()].count());
+		}
+		return counts;
+	}
+
+	public Map<String, Double> getMeanLatencyMicros()
+	{
+		Map<String, Double> means = new LinkedHashMap<String, Double>();
+		for (Action action : ACTIONS)
+		{
+			means.put(action.name(), latencies[action.ordinal()].mean() / 1000.0);
+		}
+		return means;
+	}
+
+	public Map<String, Double> getP99LatencyMicros()
+	{
+		Map<String, Double> p99s = new LinkedHashMap<String, Double>();
+		for (Action action : ACTIONS)
+		{
+			p99s.put(action.name(), latencies[action.ordinal()].percentile(0.99) / 1000.0);
+		}
+		return p99s;
+	}
+
+	public Map<String, Double> getMaxLatencyMicros()
+	{
+		Map<String, Double> maxes = new LinkedHashMap<String, Double>();
+		for (Action action : ACTIONS)
+		{
+			maxes.put(action.name(), latencies[action.ordinal()].max() / 1000.0);
+		}
+		return maxes;
+	}
+
+	public void reset()
+	{
+		brawlsWon.reset();
+		brawlsLost.reset();
+		treasuresFound.reset();
+		itemBreaks.reset();
+		bankruptcies.reset();
+		for (LongAdder purchase : purchases)
+		{
+			purchase.reset();
+		}
+		for (LatencyHistogram latency : latencies)
+		{
+			latency.reset();
+		}
+	}
+
+	/**
+	 * A lock-free histogram of durations with one bucket per power of two nanoseconds.
+	 */
+	private static class LatencyHistogram
+	{
+		// bucket i holds durations below 2^i ns; 2^40 ns is about 18 minutes
+		private static final int BUCKETS = 41;
+
+		private final LongAdder[] buckets;
+		private final LongAdder totalNanos;
+		private final LongAccumulator maxNanos;
+
+		LatencyHistogram()
+		{
+			buckets = new LongAdder[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				buckets[i] = new LongAdder();
+			}
+			totalNanos = new LongAdder();
+			maxNanos = new LongAccumulator(Math::max, 0);
+		}
+
+		void record(long nanos)
+		{
+			int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+			buckets[bucket].increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		long count()
+		{
+			long count = 0;
+			for (LongAdder bucket : buckets)
+			{
+				count += bucket.sum();
+			}
+			return count;
+		}
+
+		double mean()
+		{
+			long count = count();
+			return count == 0 ? 0 : (double)totalNanos.sum() / count;
+		}
+
+		long max()
+		{
+			return maxNanos.get();
+		}
+
+		/**
+		 * @return The upper bound of the bucket holding the given fraction of the calls.
+		 */
+		long percentile(double fraction)
+		{
+			long[] counts = new long[BUCKETS];
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				counts[i] = buckets[i].sum();
+				total += counts[i];
+			}
+			if (total == 0)
+			{
+				return 0;
+			}
+
+			long rank = (long)Math.ceil(fraction * total);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				seen += counts[i];
+				if (seen >= rank)
+				{
+					return Math.min(1L << i, max());
+				}
+			}
+			return max();
+		}
+
+		void reset()
+		{
+			for (LongAdder bucket : buckets)
+			{
+				bucket.reset();
+			}
+			totalNanos.reset();
+			maxNanos.reset();
+		}
+	}
+}
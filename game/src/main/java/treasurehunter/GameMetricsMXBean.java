@@ -0,0 +1,45 @@
+package treasurehunter;
+
+/**
+ * What GameMetrics publishes over JMX, e.g. to JConsole or VisualVM under "TreasureHunter:type=GameMetrics".
+ */
+import java.util.Map;
+
+public interface GameMetricsMXBean
+{
+	long getBrawlsWon();
+	long getBrawlsLost();
+	long getTreasuresFound();
+	long getItemBreaks();
+	long getBankruptcies();
+
+	/**
+	 * @return The number of items bought, by item name.
+	 */
+	Map<String, Long> getPurchasesByItem();
+
+	/**
+	 * @return How many times each instrumented action ran, by action name.
+	 */
+	Map<String, Long> getActionCounts();
+
+	/**
+	 * @return The mean time each action took, in microseconds.
+	 */
+	Map<String, Double> getMeanLatencyMicros();
+
+	/**
+	 * @return The time 99% of each action's calls finished within, in microseconds (to within a factor of 2).
+	 */
+	Map<String, Double> getP99LatencyMicros();
+
+	/**
+	 * @return The slowest call of each action, in microseconds.
+	 */
+	Map<String, Double> getMaxLatencyMicros();
+
+	/**
+	 * Sets every counter and histogram back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,123 @@
+package treasurehunter;
+
+/**
+ * The source of every random roll in a Treasure Hunter game.<p>
+ * This is the SplitMix64 generator (the same algorithm as java.util.SplittableRandom), kept
+ * as its own class so that its state can be read back and restored. Each game owns one, so games
+ * running on different threads never contend for a shared generator, and the same seed always
+ * rolls the same numbers.
+ */
+public class GameRandom
+{
+	// odd constant used to step through the sequence when no gamma is given
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	//instance variables
+	private long seed;
+	private long gamma;
+
+	//Constructor
+	/**
+	 * @param seed Any seed; the same seed always produces the same rolls.
+	 */
+	public GameRandom(long seed)
+	{
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Recreates a generator from its exact state, as returned by getSeed() and getGamma().
+	 */
+	public GameRandom(long seed, long gamma)
+	{
+		this.seed = seed;
+		this.gamma = gamma | 1L;
+	}
+
+	//Accessors
+	public long getSeed() { return seed; }
+	public long getGamma() { return gamma; }
+
+	/**
+	 * Rewinds or fast-forwards this generator to an exact state, as returned by getSeed() and getGamma().
+	 */
+	public void setState(long seed, long gamma)
+	{
+		this.seed = seed;
+		this.gamma = gamma | 1L;
+	}
+
+	/**
+	 * @return A random long; all values are equally likely.
+	 */
+	public long nextLong()
+	{
+		seed += gamma;
+		return mix64(seed);
+	}
+
+	/**
+	 * @return A random double between 0 (inclusive) and 1 (exclusive), like Math.random().
+	 */
+	public double nextDouble()
+	{
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * @param bound The upper bound (exclusive). Must be positive.
+	 * @return A random int between 0 and bound - 1.
+	 */
+	public int nextInt(int bound)
+	{
+		return (int)(nextDouble() * bound);
+	}
+
+	/**
+	 * Splits off a new generator whose rolls are independent of this one's.
+	 * This advances this generator, so it must only be called by the thread that owns it.
+	 *
+	 * @return The new generator.
+	 */
+	public GameRandom split()
+	{
+		long newSeed = nextLong();
+		seed += gamma;
+		return new GameRandom(newSeed, mixGamma(seed));
+	}
+
+	/**
+	 * Derives the generator for one numbered stream without changing this generator,
+	 * so any number of threads can fork their own streams at once with no synchronization.
+	 * Forking the same index always gives the same stream.
+	 *
+	 * @param index The stream number, e.g. the number of the game being played.
+	 * @return The generator for that stream.
+	 */
+	public GameRandom fork(long index)
+	{
+		long base = seed + (2 * index + 1) * gamma;
+		return new GameRandom(mix64(base), mixGamma(base + gamma));
+	}
+
+	/**
+	 * The output function: turns the state after a step into the roll. Package-private so an engine
+	 * that keeps many games' generator states in arrays can roll exactly as a GameRandom would.
+	 */
+	static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long mixGamma(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		// too few bit transitions make a poor gamma, so flip every other bit
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
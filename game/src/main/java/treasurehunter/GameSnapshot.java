@@ -0,0 +1,250 @@
+package treasurehunter;
+
+/**
+ * Saves a game of Treasure Hunter to a few hundred bytes, and loads it back.<p>
+ * A snapshot holds everything needed to carry on exactly where the game left off: the hunter,
+ * the difficulty, the current town, the news log, the brawl and item break counts and the state of
+ * both random generators, so a restored game rolls the same numbers the original would have and
+ * its news reads the same.<p>
+ * Format (big-endian, as written by DataOutputStream):
+ * <pre>
+ *   int    magic "THSV"
+ *   short  format version
+ *   UTF    hunter name
+ *   int    gold
+ *   long   kit bitmask
+ *   bool   cheating
+ *   UTF    difficulty code
+ *   double markdown, toughness, priceMod, brawlWinChance, brawlGoldExtra
+ *   int    starting gold
+ *   bool   difficulty cheats
+ *   byte   terrain index
+ *   byte   treasure item ordinal
+ *   bool   tough town
+ *   bool   treasure found
+ *   int    brawl count, item break count
+ *   short  news events kept, then for each one, oldest first:
+ *            byte NewsLog.Event ordinal, int number, and for a TEXT event a UTF text
+ *   int    action count
+ *   long   game random seed, gamma
+ *   long   effects random seed, gamma
+ * </pre>
+ * Version 1 saves, which only held the latest news as a UTF and no counts, still load.
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class GameSnapshot
+{
+	// "THSV", so a file that isn't a save is turned away right at the start
+	private static final int MAGIC = 0x54485356;
+	public static final short VERSION = 2;
+	private static final short VERSION_LATEST_NEWS_ONLY = 1;
+
+	private static final NewsLog.Event[] EVENTS = NewsLog.Event.values();
+
+	private static final Difficulty[] STANDARD = { Difficulty.EASY, Difficulty.NORMAL, Difficulty.HARD, Difficulty.CHEAT };
+
+	/**
+	 * @param game A game that has started, i.e. the hunter is in a town.
+	 * @return The game's state as bytes.
+	 */
+	public static byte[] encode(TreasureHunter game)
+	{
+		Hunter hunter = game.getHunter();
+		Difficulty difficulty = game.getDifficulty();
+		Town town = game.getCurrentTown();
+		GameRandom random = game.getRandom();
+		GameRandom effects = game.getAnimator().getEffectsRandom();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+
+			out.writeUTF(hunter.getHunterName());
+			out.writeInt(hunter.getGold());
+			out.writeLong(hunter.getKit());
+			out.writeBoolean(hunter.isCheating());
+
+			out.writeUTF(difficulty.getCode());
+			out.writeDouble(difficulty.getMarkdown());
+			out.writeDouble(difficulty.getToughness());
+			out.writeDouble(difficulty.getPriceMod());
+			out.writeDouble(difficulty.getBrawlWinChance());
+			out.writeDouble(difficulty.getBrawlGoldExtra());
+			out.writeInt(difficulty.getStartingGold());
+			out.writeBoolean(difficulty.isCheating());
+
+			out.writeByte(town.getTerrain().getIndex());
+			out.writeByte(town.getTreasure().ordinal());
+			out.writeBoolean(town.isToughTown());
+			out.writeBoolean(town.isTreasureFound());
+			out.writeInt(town.getBrawlCount());
+			out.writeInt(town.getItemBreakCount());
+			writeNews(out, town.getNewsLog());
+
+			out.writeInt(game.getActionCount());
+			out.writeLong(random.getSeed());
+			out.writeLong(random.getGamma());
+			out.writeLong(effects.getSeed());
+			out.writeLong(effects.getGamma());
+		}
+		catch (IOException e)
+		{
+			// a ByteArrayOutputStream never fails
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Rebuilds a saved game; calling play() on it carries on from where it was saved.
+	 *
+	 * @param data Bytes returned by encode().
+	 * @param io Where the restored game reads its input and prints its output.
+	 * @return The restored game.
+	 * @throws IOException if the data isn't a save this version can read.
+	 */
+	public static TreasureHunter decode(byte[] data, GameIO io) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readInt() != MAGIC)
+		{
+			throw new IOException("Not a Treasure Hunter save");
+		}
+		short version = in.readShort();
+		if (version != VERSION && version != VERSION_LATEST_NEWS_ONLY)
+		{
+			throw new IOException("Unsupported save version " + version);
+		}
+
+		Hunter hunter = new Hunter(in.readUTF(), in.readInt());
+		hunter.setKit(in.readLong());
+		hunter.setCheating(in.readBoolean());
+
+		Difficulty difficulty = readDifficulty(in);
+
+		int terrainIndex = in.readByte();
+		int treasureOrdinal = in.readByte();
+		if (terrainIndex < 0 || terrainIndex >= Terrain.count() || treasureOrdinal < 0 || treasureOrdinal >= Item.count())
+		{
+			throw new IOException("Corrupt save: bad town");
+		}
+		Terrain terrain = Terrain.fromIndex(terrainIndex);
+		Item treasure = Item.fromOrdinal(treasureOrdinal);
+		boolean toughTown = in.readBoolean();
+		boolean treasureFound = in.readBoolean();
+		int brawlCount = 0;
+		int itemBreakCount = 0;
+		NewsLog news;
+		if (version == VERSION_LATEST_NEWS_ONLY)
+		{
+			news = new NewsLog();
+			news.recordText(in.readUTF());
+		}
+		else
+		{
+			brawlCount = in.readInt();
+			itemBreakCount = in.readInt();
+			news = readNews(in);
+		}
+
+		int actionCount = in.readInt();
+		TreasureHunter game = new TreasureHunter(io, new GameRandom(0));
+		game.getRandom().setState(in.readLong(), in.readLong());
+		game.getAnimator().getEffectsRandom().setState(in.readLong(), in.readLong());
+		game.restore(hunter, difficulty, actionCount, terrain, treasure, toughTown, treasureFound, news, brawlCount, itemBreakCount);
+		return game;
+	}
+
+	private static void writeNews(DataOutputStream out, NewsLog news) throws IOException
+	{
+		int kept = news.getKeptCount();
+		out.writeShort(kept);
+		for (int i = 0; i < kept; i++)
+		{
+			NewsLog.Event event = news.getKeptEvent(i);
+			out.writeByte(event.ordinal());
+			out.writeInt(news.getKeptNumber(i));
+			if (event == NewsLog.Event.TEXT)
+			{
+				out.writeUTF(news.getKeptText(i));
+			}
+		}
+	}
+
+	private static NewsLog readNews(DataInputStream in) throws IOException
+	{
+		NewsLog news = new NewsLog();
+		int kept = in.readUnsignedShort();
+		for (int i = 0; i < kept; i++)
+		{
+			int code = in.readByte();
+			int number = in.readInt();
+			if (code < 0 || code >= EVENTS.length || !isValidNumber(EVENTS[code], number))
+			{
+				throw new IOException("Corrupt save: bad news event");
+			}
+			if (EVENTS[code] == NewsLog.Event.TEXT)
+			{
+				news.recordText(in.readUTF());
+			}
+			else
+			{
+				news.record(EVENTS[code], number);
+			}
+		}
+		return news;
+	}
+
+	// the number has to be something the event's text can be built from
+	private static boolean isValidNumber(NewsLog.Event event, int number)
+	{
+		switch (event)
+		{
+			case CROSSED:
+			case CROSSED_AND_BROKE:
+			case CANT_LEAVE:
+				return number >= 0 && number < Terrain.count();
+			case FOUND_TREASURE:
+			case FOUND_DUPLICATE:
+			case TREASURE_GRABBED:
+				return number >= 0 && number < Item.count();
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * Reads the difficulty back as the shared constant it was saved from, so the restored game uses the
+	 * same PriceTable as every other game; a custom difficulty is rebuilt from its saved values.
+	 */
+	private static Difficulty readDifficulty(DataInputStream in) throws IOException
+	{
+		String code = in.readUTF();
+		double markdown = in.readDouble();
+		double toughness = in.readDouble();
+		double priceMod = in.readDouble();
+		double brawlWinChance = in.readDouble();
+		double brawlGoldExtra = in.readDouble();
+		int startingGold = in.readInt();
+		boolean cheating = in.readBoolean();
+
+		for (Difficulty standard : STANDARD)
+		{
+			if (standard.getCode().equals(code) && standard.getMarkdown() == markdown
+				&& standard.getToughness() == toughness && standard.getPriceMod() == priceMod
+				&& standard.getBrawlWinChance() == brawlWinChance && standard.getBrawlGoldExtra() == brawlGoldExtra
+				&& standard.getStartingGold() == startingGold && standard.isCheating() == cheating)
+			{
+				return standard;
+			}
+		}
+		return new Difficulty(code, markdown, toughness, priceMod, brawlWinChance, brawlGoldExtra, startingGold, cheating);
+	}
+}
@@ -0,0 +1,33 @@
+package treasurehunter;
+
+/**
+ * A bot that fights for gold first and asks questions later.<p>
+ * Until it has a healthy purse it goes looking for trouble in every town, then buys what it needs,
+ * hunts the town's treasure and moves on, like the explorer.
+ */
+public class GreedyBrawlerStrategy implements Strategy
+{
+	// brawls until it has this many times the price of the item it needs to leave
+	private static final int PURSE_MULTIPLE = 3;
+
+	public String nextAction(Hunter hunter, Town town)
+	{
+		Item needed = town.getTerrain().getNeededItem();
+		int price = town.getShop().getCostOfItem(needed);
+		if (hunter.getGold() < PURSE_MULTIPLE * price)
+		{
+			return "l";
+		}
+
+		if (!hunter.hasItemInKit(needed))
+		{
+			return "b " + needed.getName() + " y";
+		}
+
+		if (!town.isTreasureFound() && !hunter.hasItemInKit(town.getTreasure()))
+		{
+			return "h";
+		}
+		return "m";
+	}
+}
@@ -1,3 +1,5 @@
+package treasurehunter;
+
 /**
  * Hunter Class<br /><br />
  * This class represents the treasure hunter character (the player) in the Treasure Hunt game.
@@ -5,12 +7,11 @@
  */
 public class Hunter
 {
-	//Keeps the items in the kit separate
-	private static final String KIT_DELIMITER = ";";
-
 	//instance variables
 	private String hunterName;
-	private String kit;
+	private long kit;
+	private String inventory;
+	private String description;
 	private int gold;
 	private boolean cheating;
 
@@ -23,20 +24,33 @@ public class Hunter
 	public Hunter(String hunterName, int startingGold)
 	{
 		this.hunterName = hunterName;
-		kit = "";
+		kit = 0;
+		inventory = "";
+		description = null;
 		gold = startingGold;
 		cheating = false;
 	}
 
 	//Accessors
 	public String getHunterName() { return hunterName; }
-	public String getKit() { return kit; }
+	public long getKit() { return kit; }
 	public int getGold() { return gold; }
 	public boolean isCheating() { return cheating; }
 
 	// Setters
 	public void setCheating(boolean newCheating) { cheating = newCheating; }
 
+	/**
+	 * Replaces the whole kit at once, e.g. when a saved game is loaded.
+	 * @param newKit The kit as a bitmask of Item masks.
+	 */
+	public void setKit(long newKit)
+	{
+		kit = newKit;
+		inventory = null;
+		description = null;
+	}
+
 	public void changeGold(int modifier)   
 	{
 		gold += modifier;
@@ -44,6 +58,7 @@ public class Hunter
 		{
 			gold = 0;
 		}
+		description = null;
 	}
 
 	/**
@@ -56,12 +71,18 @@ public class Hunter
 	 */   
 	public boolean buyItem(String item, int costOfItem)
 	{
-		if (costOfItem == 0 || gold < costOfItem || hasItemInKit(item))
+		return buyItem(Item.fromName(item), costOfItem);
+	}
+
+	public boolean buyItem(Item item, int costOfItem)
+	{
+		if (item == null || costOfItem == 0 || gold < costOfItem || hasItemInKit(item))
 		{
 			return false;
 		}
 
 		gold -= costOfItem;
+		description = null;
 		addItem(item);
 		return true;
 	}
@@ -76,12 +97,18 @@ public class Hunter
 	 */
 	public boolean sellItem(String item, int buyBackPrice)
 	{
-		if (buyBackPrice <= 0 || !hasItemInKit(item))
+		return sellItem(Item.fromName(item), buyBackPrice);
+	}
+
+	public boolean sellItem(Item item, int buyBackPrice)
+	{
+		if (item == null || buyBackPrice <= 0 || !hasItemInKit(item))
 		{
 			return false;
 		}
 
 		gold += buyBackPrice;
+		description = null;
 		removeItemFromKit(item);
 		return true;
 	}
@@ -93,33 +120,38 @@ public class Hunter
 	 */
 	public void removeItemFromKit(String item)
 	{
-		int itmIdx = kit.indexOf(item);
-
-		// if item is found
-		if (itmIdx >= 0)
-		{      
-			String tmpKit = kit.substring(0, itmIdx);
-			int endIdx = kit.indexOf(KIT_DELIMITER, itmIdx);
-			tmpKit += kit.substring(endIdx + 1);
+		removeItemFromKit(Item.fromName(item));
+	}
 
-			// update kit
-			kit = tmpKit;
+	public void removeItemFromKit(Item item)
+	{
+		if (item != null && (kit & item.getMask()) != 0)
+		{
+			kit &= ~item.getMask();
+			inventory = null;
+			description = null;
 		}
 	}
 
 	/**
 	 * Checks to make sure that the item is not already in the kit.
-	 * If not, it adds an item to the end of the String representing the hunter's kit.<br /><br />  
-	 * A KIT_DELIMITER character is added to the end of the of String.
+	 * If not, it sets the item's bit in the kit.
 	 *
 	 * @param item The item to be added to the kit.
 	 * @returns true if the item is not in the kit and has been added.
 	 */
 	public boolean addItem(String item)
 	{
-		if (!hasItemInKit(item))
+		return addItem(Item.fromName(item));
+	}
+
+	public boolean addItem(Item item)
+	{
+		if (item != null && (kit & item.getMask()) == 0)
 		{
-			kit += item + KIT_DELIMITER;
+			kit |= item.getMask();
+			inventory = null;
+			description = null;
 			return true;
 		}
 
@@ -127,7 +159,7 @@ public class Hunter
 	}
 
 	/**
-	 * Searches the kit String for a specified item.
+	 * Checks the kit for a specified item.
 	 *
 	 * @param item The search item
 	 *
@@ -135,20 +167,12 @@ public class Hunter
 	 */
 	public boolean hasItemInKit(String item)
 	{
-		int placeholder = 0;
+		return hasItemInKit(Item.fromName(item));
+	}
 
-		while (placeholder < kit.length() - 1)
-		{
-			int endOfItem = kit.indexOf(KIT_DELIMITER, placeholder);
-			String tmpItem = kit.substring(placeholder, endOfItem);
-			placeholder = endOfItem + 1;
-			if (tmpItem.equals(item))
-			{
-				// early return
-				return true;
-			}
-		}
-		return false;
+	public boolean hasItemInKit(Item item)
+	{
+		return item != null && (kit & item.getMask()) != 0;
 	}
 
 	/**
@@ -156,42 +180,46 @@ public class Hunter
 	  * @return true if the hunter has collected all 3 unique treasures
 	  */
 	public boolean hasAllTreasures() {
-		return
-			hasItemInKit(Town.UNIQUE_TREASURE_1) &&
-			hasItemInKit(Town.UNIQUE_TREASURE_2) &&
-			hasItemInKit(Town.UNIQUE_TREASURE_3);
+		return (kit & Item.TREASURE_MASK) == Item.TREASURE_MASK;
 	}
 
 	/** Returns a printable representation of the inventory, which
-	 *  is a list of the items in kit, with the KIT_DELIMITER replaced with a space
+	 *  is a list of the items in kit, each followed by a space.<p>
+	 *  The String is only rebuilt after the kit changes.
 	 *
 	 * @return  The printable String representation of the inventory
 	 */
 	public String getInventory()
 	{
-		String printableKit = kit;
-		String space = " ";
-
-		int index = 0;
-
-		while (printableKit.indexOf(KIT_DELIMITER) != -1)
+		if (inventory == null)
 		{
-			index = printableKit.indexOf(KIT_DELIMITER);
-			printableKit = printableKit.substring(0, index) + space + printableKit.substring(index + 1);
+			StringBuilder printableKit = new StringBuilder();
+			for (int i = 0; i < Item.count(); i++)
+			{
+				if ((kit & (1L << i)) != 0)
+				{
+					printableKit.append(Item.fromOrdinal(i).getName()).append(' ');
+				}
+			}
+			inventory = printableKit.toString();
 		}
-		return printableKit;
+		return inventory;
 	}
 
 	/**
-	 * @return A string representation of the hunter.
+	 * @return A string representation of the hunter, rebuilt only after the gold or kit changes.
 	 */
 	public String toString()
 	{
-		String str = hunterName + " has " + gold + " gold";
-		if (!kit.equals(""))
+		if (description == null)
 		{
-			str += " and " + getInventory();
+			String str = hunterName + " has " + gold + " gold";
+			if (kit != 0)
+			{
+				str += " and " + getInventory();
+			}
+			description = str;
 		}
-		return str;
+		return description;
 	}
 }
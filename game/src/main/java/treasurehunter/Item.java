@@ -0,0 +1,114 @@
+package treasurehunter;
+
+/**
+ * The Item enum is the registry of every item a Hunter can carry in the Treasure Hunter game.<p>
+ * The first six entries are sold in the shops, the last three are the unique treasures found in towns.<p>
+ * Each item owns one bit of a long, so a whole kit fits in a single bitmask.
+ */
+import java.util.HashMap;
+
+public enum Item
+{
+	WATER("Water"),
+	ROPE("Rope"),
+	MACHETE("Machete"),
+	LANTERN("Lantern"),
+	HORSE("Horse"),
+	BOAT("Boat"),
+	GOLD_THING(Town.UNIQUE_TREASURE_1),
+	DIAMOND_THING(Town.UNIQUE_TREASURE_2),
+	PLATINUM_THING(Town.UNIQUE_TREASURE_3);
+
+	// bitmask holding all 3 unique treasures
+	public static final long TREASURE_MASK = GOLD_THING.mask | DIAMOND_THING.mask | PLATINUM_THING.mask;
+
+	// the shop items come first, so they're the ordinals below this
+	public static final int SHOP_ITEM_COUNT = GOLD_THING.ordinal();
+
+	// values() clones the array every call, so keep one copy around
+	private static final Item[] ALL = values();
+	private static final HashMap<String, Item> BY_NAME = new HashMap<String, Item>();
+
+	// what a player can type at the shop for each item: its first letter or its name, in any case
+	private static final HashMap<String, Item> SHOP_INPUTS = new HashMap<String, Item>();
+
+	static
+	{
+		for (Item item : ALL)
+		{
+			BY_NAME.put(item.itemName, item);
+			if (!item.isTreasure())
+			{
+				String letter = item.itemName.substring(0, 1);
+				SHOP_INPUTS.put(letter.toLowerCase(), item);
+				SHOP_INPUTS.put(letter.toUpperCase(), item);
+				SHOP_INPUTS.put(item.itemName, item);
+				SHOP_INPUTS.put(item.itemName.toLowerCase(), item);
+			}
+		}
+	}
+
+	//instance variables
+	private final String itemName;
+	private final long mask;
+
+	private Item(String itemName)
+	{
+		this.itemName = itemName;
+		this.mask = 1L << ordinal();
+	}
+
+	//Accessors
+	public String getName() { return itemName; }
+	public long getMask() { return mask; }
+	public boolean isTreasure() { return (mask & TREASURE_MASK) != 0; }
+
+	/**
+	 * Looks up an item by its proper name (e.g. "Water" or "GoldThing").
+	 *
+	 * @param name The item name.
+	 * @return The matching Item, or null if there is no item with that name.
+	 */
+	public static Item fromName(String name)
+	{
+		return BY_NAME.get(name);
+	}
+
+	/**
+	 * Looks up an item the way a player types it at the shop, e.g. "w", "Water" or "WATER".
+	 *
+	 * @param input What the player typed.
+	 * @return The matching shop item, or null if the shop doesn't deal in anything by that name.
+	 */
+	public static Item fromShopInput(String input)
+	{
+		Item item = SHOP_INPUTS.get(input);
+		if (item == null)
+		{
+			item = SHOP_INPUTS.get(input.toLowerCase());
+		}
+		return item;
+	}
+
+	/**
+	 * @param ordinal The ordinal of the item.
+	 * @return The Item with that ordinal.
+	 */
+	public static Item fromOrdinal(int ordinal)
+	{
+		return ALL[ordinal];
+	}
+
+	/**
+	 * @return The number of items in the registry.
+	 */
+	public static int count()
+	{
+		return ALL.length;
+	}
+
+	public String toString()
+	{
+		return itemName;
+	}
+}
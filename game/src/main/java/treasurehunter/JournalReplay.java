@@ -0,0 +1,254 @@
+package treasurehunter;
+
+/**
+ * Plays back a GameJournal without a terminal, to reproduce a player's session exactly.<p>
+ * The replayed game reads the journal's commands and answers instead of a player, prints
+ * nowhere and shows no brawl animations, so replays run as fast as the game logic allows.
+ * While it plays, the replay keeps its own journal and checks every town roll against the
+ * original; if they ever differ, the game logic has changed since the journal was written.<p>
+ * A replay can stop after any number of commands, to look at the Hunter and the Town as they were then.<p>
+ * Usage: java treasurehunter.JournalReplay FILE [--step N] [--bench N]
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class JournalReplay
+{
+	//instance variables
+	private byte[] snapshot;
+	private long[] randomStates;
+	private ArrayList<String> inputs;
+	private ArrayList<Integer> commandStarts;
+	private long[] draws;
+	private int drawCount;
+
+	//Constructor
+	/**
+	 * @param data The journal's bytes.
+	 * @throws IOException if the data isn't a journal this version can read.
+	 */
+	public JournalReplay(byte[] data) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readInt() != GameJournal.MAGIC)
+		{
+			throw new IOException("Not a Treasure Hunter journal");
+		}
+		short version = in.readShort();
+		if (version != GameJournal.VERSION)
+		{
+			throw new IOException("Unsupported journal version " + version);
+		}
+
+		int snapshotLength = in.readInt();
+		if (snapshotLength > 0)
+		{
+			snapshot = new byte[snapshotLength];
+			in.readFully(snapshot);
+		}
+		else
+		{
+			snapshot = null;
+			randomStates = new long[] { in.readLong(), in.readLong(), in.readLong(), in.readLong() };
+		}
+
+		inputs = new ArrayList<String>();
+		commandStarts = new ArrayList<Integer>();
+		draws = new long[64];
+		drawCount = 0;
+
+		// a journal cut off mid-entry (the process died while writing) is read up to its last whole entry
+		while (in.available() > 0)
+		{
+			try
+			{
+				byte tag = in.readByte();
+				if (tag == GameJournal.COMMAND) {
+					String command = in.readUTF();
+					commandStarts.add(inputs.size());
+					inputs.add(command);
+				} else if (tag == GameJournal.ANSWER) {
+					inputs.add(in.readUTF());
+				} else if (tag == GameJournal.DRAW) {
+					long roll = Double.doubleToRawLongBits(in.readDouble());
+					if (drawCount == draws.length)
+					{
+						draws = Arrays.copyOf(draws, drawCount * 2);
+					}
+					draws[drawCount++] = roll;
+				} else {
+					throw new IOException("Corrupt journal: unknown entry " + tag);
+				}
+			}
+			catch (EOFException e)
+			{
+				break;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			System.out.println("Usage: java treasurehunter.JournalReplay FILE [--step N] [--bench N]");
+			return;
+		}
+
+		JournalReplay replay = new JournalReplay(Files.readAllBytes(Paths.get(args[0])));
+		int step = replay.getCommandCount();
+		int benchRuns = 0;
+		for (int i = 1; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--step")) {
+				step = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--bench")) {
+				benchRuns = Integer.parseInt(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		if (benchRuns > 0)
+		{
+			long start = System.nanoTime();
+			for (int i = 0; i < benchRuns; i++)
+			{
+				replay.replay();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(String.format("%d replays of %d commands in %.2f s (%.0f sessions/sec)",
+				benchRuns, replay.getCommandCount(), seconds, benchRuns / seconds));
+			return;
+		}
+
+		TreasureHunter game = replay.seek(step);
+		System.out.println("After " + step + " of " + replay.getCommandCount() + " commands"
+			+ (step > 0 ? " (last: \"" + replay.getCommand(step - 1) + "\")" : "") + ":");
+		if (game.getHunter() == null)
+		{
+			System.out.println("The game never started.");
+			return;
+		}
+		System.out.println("Hunter: " + game.getHunter());
+		System.out.println("Town: " + game.getCurrentTown());
+		System.out.println("  treasure " + game.getCurrentTown().getTreasure()
+			+ (game.getCurrentTown().isTreasureFound() ? " (found)" : "")
+			+ (game.getCurrentTown().isToughTown() ? ", tough town" : ""));
+		System.out.println("News: " + game.getCurrentTown().getLatestNews());
+		System.out.println("Outcome: " + (game.getOutcome() == null ? "none yet" : game.getOutcome()));
+	}
+
+	//Accessors
+	/**
+	 * @return The number of menu commands in the journal.
+	 */
+	public int getCommandCount() { return commandStarts.size(); }
+
+	/**
+	 * @param step The index of a command, from 0.
+	 * @return The command.
+	 */
+	public String getCommand(int step) { return inputs.get(commandStarts.get(step)); }
+
+	/**
+	 * Plays the whole journal back.
+	 * @return The game as it was when the journal ended.
+	 */
+	public TreasureHunter replay()
+	{
+		return seek(getCommandCount());
+	}
+
+	/**
+	 * Plays the journal back up to a given point.
+	 *
+	 * @param step How many commands to run; 0 stops right after the hunter arrives in the first town.
+	 * @return The game as it was after that many commands.
+	 * @throws IllegalStateException if the replay rolled differently from the original session.
+	 */
+	public TreasureHunter seek(int step)
+	{
+		if (step < 0 || step > getCommandCount())
+		{
+			throw new IllegalArgumentException("No step " + step + " in a journal of " + getCommandCount() + " commands");
+		}
+
+		// every input before the next command, so the game stops at that command's prompt
+		int end = step < getCommandCount() ? commandStarts.get(step) : inputs.size();
+		ScriptedIO io = new ScriptedIO(false);
+		for (int i = 0; i < end; i++)
+		{
+			io.addInput(inputs.get(i));
+		}
+
+		TreasureHunter game;
+		if (snapshot != null)
+		{
+			try
+			{
+				game = GameSnapshot.decode(snapshot, io);
+			}
+			catch (IOException e)
+			{
+				throw new IllegalStateException("Journal starts from a bad snapshot", e);
+			}
+		}
+		else
+		{
+			game = new TreasureHunter(io, new GameRandom(0));
+			game.getRandom().setState(randomStates[0], randomStates[1]);
+			game.getAnimator().getEffectsRandom().setState(randomStates[2], randomStates[3]);
+		}
+		game.getAnimator().setFrameIntervalMs(0);
+
+		ByteArrayOutputStream replayed = new ByteArrayOutputStream(256);
+		GameJournal check = new GameJournal(replayed);
+		game.setJournal(check);
+		game.play();
+		check.close();
+
+		verify(replayed.toByteArray(), step);
+		return game;
+	}
+
+	/**
+	 * Compares the rolls of a replay with the rolls of the original session.
+	 */
+	private void verify(byte[] replayedJournal, int step)
+	{
+		JournalReplay replayed;
+		try
+		{
+			replayed = new JournalReplay(replayedJournal);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		if (replayed.drawCount > drawCount)
+		{
+			throw new IllegalStateException("Replay diverged: it rolled more often than the original by step " + step);
+		}
+		for (int i = 0; i < replayed.drawCount; i++)
+		{
+			if (replayed.draws[i] != draws[i])
+			{
+				throw new IllegalStateException("Replay diverged at roll " + i + " (by step " + step + ")");
+			}
+		}
+		if (step == getCommandCount() && replayed.drawCount != drawCount)
+		{
+			throw new IllegalStateException("Replay diverged: it rolled less often than the original");
+		}
+	}
+}
@@ -0,0 +1,496 @@
+package treasurehunter;
+
+/**
+ * Ranks players by their best finished game, taking results from any number of sessions at once.<p>
+ * Players are known by an id (see newPlayerId()); their name is only shown, so two players
+ * with the same name are ranked separately.<p>
+ * A result is scored by the treasures found, then by how long the game took, then by the gold
+ * left, and packed into one int (see score()); each player keeps only their best score. A won
+ * game is better the fewer actions it took, but a lost game is better the more actions the
+ * hunter survived, so a quick bankruptcy never beats a long game that ended the same way.<p>
+ * Two structures are kept side by side, both updated without locks:
+ * <ul>
+ * <li>Fenwick trees of how many players have each score, in AtomicLongArrays, which answer
+ *     "what rank is this player" by summing the counts above their score in O(log scores) steps.
+ *     There are too many scores for one tree, so one tree counts the players with each number of
+ *     treasures and actions, and for each of those a tree of its own, made the first time a
+ *     player lands there, counts them by gold;</li>
+ * <li>a ConcurrentSkipListMap of players ordered best first, which answers "who are the top K" by
+ *     reading its first K entries in O(log players + K) steps.</li>
+ * </ul>
+ * A player's best score changes by compare-and-set. Whoever wins the swap moves the player in both
+ * structures. Two improvements racing each other can leave a stale entry behind in the skip list,
+ * and queries skip and remove those. The trees only ever get added to, so they always settle on the right counts.<p>
+ * The board can be written to disk as a compact snapshot, on demand or every so often, and loaded back.
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class Leaderboard
+{
+	static final int MAGIC = 0x54484C42;
+	static final short VERSION = 2;
+
+	// score layout: treasures (2 bits), then actions (12 bits; fewer for a win, more for a loss), then gold (12 bits)
+	static final int MAX_ACTIONS = 4095;
+	static final int MAX_GOLD = 4095;
+	private static final int GOLD_BITS = 12;
+	private static final int ACTION_BITS = 12;
+	static final int SCORES = 4 << (ACTION_BITS + GOLD_BITS);
+
+	// the outer Fenwick tree counts players by score without the gold
+	private static final int BUCKETS = SCORES >>> GOLD_BITS;
+
+	// a player's place in the skip list: higher scores first, then the lower id
+	private static final int ID_BITS = 37;
+	static final long MAX_PLAYER_ID = (1L << ID_BITS) - 1;
+
+	/**
+	 * One player's standing.
+	 */
+	public static final class Entry
+	{
+		private final long playerId;
+		private final String name;
+		private final int score;
+		private final long rank;
+
+		Entry(long playerId, String name, int score, long rank)
+		{
+			this.playerId = playerId;
+			this.name = name;
+			this.score = score;
+			this.rank = rank;
+		}
+
+		public long getPlayerId() { return playerId; }
+		public String getName() { return name; }
+		public int getScore() { return score; }
+		public long getRank() { return rank; }
+		public int getTreasures() { return score >>> (ACTION_BITS + GOLD_BITS); }
+		public int getGold() { return score & MAX_GOLD; }
+
+		public int getActions()
+		{
+			int actions = (score >>> GOLD_BITS) & MAX_ACTIONS;
+			return getTreasures() == 3 ? MAX_ACTIONS - actions : actions;
+		}
+
+		public String toString()
+		{
+			return String.format("%4d. %-20s %d treasures, %3d actions, %3d gold", rank, name, getTreasures(), getActions(), getGold());
+		}
+	}
+
+	/**
+	 * Everything known about one player; best is -1 until their first result.
+	 */
+	private static final class Player
+	{
+		final long id;
+		volatile String name;
+		final AtomicInteger best;
+
+		Player(long id, String name)
+		{
+			this.id = id;
+			this.name = name;
+			this.best = new AtomicInteger(-1);
+		}
+	}
+
+	//instance variables
+	private final ConcurrentHashMap<Long, Player> players;
+	private final ConcurrentSkipListMap<Long, Player> ranking;
+	private final AtomicLongArray buckets;
+	private final AtomicReferenceArray<AtomicLongArray> golds;
+	private final AtomicLong nextId;
+	private ScheduledExecutorService snapshotter;
+
+	//Constructor
+	public Leaderboard()
+	{
+		players = new ConcurrentHashMap<Long, Player>();
+		ranking = new ConcurrentSkipListMap<Long, Player>();
+		buckets = new AtomicLongArray(BUCKETS + 1);
+		golds = new AtomicReferenceArray<AtomicLongArray>(BUCKETS);
+		nextId = new AtomicLong();
+		snapshotter = null;
+	}
+
+	/**
+	 * Packs a game result into a score; better results always score higher.<p>
+	 * With all three treasures the game was won, and fewer actions score higher; with fewer it
+	 * was lost, and more actions score higher.
+	 *
+	 * @param treasures The number of treasures found, 0 to 3.
+	 * @param actions The number of actions the game took; anything over MAX_ACTIONS counts as MAX_ACTIONS.
+	 * @param gold The gold left at the end; anything over MAX_GOLD counts as MAX_GOLD.
+	 */
+	public static int score(int treasures, int actions, int gold)
+	{
+		treasures = Math.max(0, Math.min(3, treasures));
+		actions = Math.max(0, Math.min(MAX_ACTIONS, actions));
+		int length = treasures == 3 ? MAX_ACTIONS - actions : actions;
+		return (treasures << (ACTION_BITS + GOLD_BITS)) | (length << GOLD_BITS) | Math.max(0, Math.min(MAX_GOLD, gold));
+	}
+
+	/**
+	 * @return An id no player on the board has, for a new player.
+	 */
+	public long newPlayerId()
+	{
+		return nextId.getAndIncrement();
+	}
+
+	/**
+	 * Records a finished game. Never blocks; only the player's best result counts.
+	 *
+	 * @param playerId The player, from newPlayerId().
+	 * @param name The name to show for the player; their latest game's name is the one shown.
+	 * @param treasures The number of treasures found.
+	 * @param actions The number of actions the game took.
+	 * @param gold The gold left at the end.
+	 * @return true if this is the player's new best.
+	 */
+	public boolean submit(long playerId, String name, int treasures, int actions, int gold)
+	{
+		return submitScore(playerId, name, score(treasures, actions, gold));
+	}
+
+	/**
+	 * @return The number of players on the board.
+	 */
+	public long size()
+	{
+		return count(0, SCORES);
+	}
+
+	/**
+	 * @param k How many players.
+	 * @return The best k players, best first.
+	 */
+	public List<Entry> getTop(int k)
+	{
+		ArrayList<Entry> top = new ArrayList<Entry>(Math.min(k, 1024));
+		long rank = 0;
+		int lastScore = -1;
+		long lastRank = 0;
+		for (Map.Entry<Long, Player> entry : ranking.entrySet())
+		{
+			if (top.size() >= k)
+			{
+				break;
+			}
+			Player player = entry.getValue();
+			int score = scoreOf(entry.getKey());
+			if (player.best.get() != score)
+			{
+				// left behind by two improvements racing each other
+				ranking.remove(entry.getKey(), player);
+				continue;
+			}
+
+			// players with the same score share a rank
+			rank++;
+			if (score != lastScore)
+			{
+				lastRank = rank;
+				lastScore = score;
+			}
+			top.add(new Entry(player.id, player.name, score, lastRank));
+		}
+		return top;
+	}
+
+	/**
+	 * @param playerId A player.
+	 * @return Where the player stands, or null if they have no results yet.
+	 */
+	public Entry getEntry(long playerId)
+	{
+		Player player = players.get(playerId);
+		int score = player == null ? -1 : player.best.get();
+		if (score < 0)
+		{
+			return null;
+		}
+		return new Entry(playerId, player.name, score, getRankOfScore(score));
+	}
+
+	/**
+	 * @return The rank a player with this score has: 1 plus the number of players with better scores.
+	 */
+	public long getRankOfScore(int score)
+	{
+		return 1 + count(score + 1, SCORES);
+	}
+
+	/**
+	 * Writes the board to a file, through a temporary file so a crash never leaves half a snapshot.<p>
+	 * Players are written best first, and players with the same score are written as one group,
+	 * so each score is stored once. Format (big-endian): int magic "THLB", short version, int player
+	 * count, then groups of int score, int group size and that many players, each a long id and a
+	 * UTF name.
+	 */
+	public void save(Path file) throws IOException
+	{
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		ArrayList<Player> snapshot = new ArrayList<Player>();
+		int[] scores = new int[1024];
+		for (Map.Entry<Long, Player> entry : ranking.entrySet())
+		{
+			int score = scoreOf(entry.getKey());
+			if (entry.getValue().best.get() == score)
+			{
+				if (snapshot.size() == scores.length)
+				{
+					scores = Arrays.copyOf(scores, scores.length * 2);
+				}
+				scores[snapshot.size()] = score;
+				snapshot.add(entry.getValue());
+			}
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 65536)))
+		{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(snapshot.size());
+			for (int start = 0; start < snapshot.size(); )
+			{
+				int end = start + 1;
+				while (end < snapshot.size() && scores[end] == scores[start])
+				{
+					end++;
+				}
+				out.writeInt(scores[start]);
+				out.writeInt(end - start);
+				for (int i = start; i < end; i++)
+				{
+					out.writeLong(snapshot.get(i).id);
+					out.writeUTF(snapshot.get(i).name);
+				}
+				start = end;
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Adds the players in a snapshot file to the board.
+	 */
+	public void load(Path file) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536)))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				throw new IOException("Not a Treasure Hunter leaderboard");
+			}
+			short version = in.readShort();
+			if (version != VERSION)
+			{
+				throw new IOException("Unsupported leaderboard version " + version);
+			}
+			int count = in.readInt();
+			while (count > 0)
+			{
+				int score = in.readInt();
+				int groupSize = in.readInt();
+				if (score < 0 || score >= SCORES || groupSize <= 0 || groupSize > count)
+				{
+					throw new IOException("Corrupt leaderboard: " + groupSize + " players with score " + score);
+				}
+				for (int i = 0; i < groupSize; i++)
+				{
+					long id = in.readLong();
+					if (id < 0 || id > MAX_PLAYER_ID)
+					{
+						throw new IOException("Corrupt leaderboard: player id " + id);
+					}
+					submitScore(id, in.readUTF(), score);
+				}
+				count -= groupSize;
+			}
+		}
+	}
+
+	/**
+	 * Saves the board every so often on a background thread.
+	 * @param file The snapshot file.
+	 * @param periodMs The time between snapshots.
+	 */
+	public synchronized void startSnapshots(Path file, long periodMs)
+	{
+		if (snapshotter != null)
+		{
+			return;
+		}
+		snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "leaderboard-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		snapshotter.scheduleWithFixedDelay(() -> {
+			try
+			{
+				save(file);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Leaderboard snapshot failed: " + e);
+			}
+		}, periodMs, periodMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background snapshots, after the one in progress if any.
+	 */
+	public void close()
+	{
+		ScheduledExecutorService stopping;
+		synchronized (this)
+		{
+			stopping = snapshotter;
+			snapshotter = null;
+		}
+		if (stopping != null)
+		{
+			stopping.shutdown();
+			try
+			{
+				stopping.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private boolean submitScore(long playerId, String name, int score)
+	{
+		if (playerId < 0 || playerId > MAX_PLAYER_ID)
+		{
+			throw new IllegalArgumentException("Player id out of range: " + playerId);
+		}
+		Player player = players.get(playerId);
+		if (player == null)
+		{
+			player = players.computeIfAbsent(playerId, id -> new Player(id, name));
+
+			// ids handed out later must not collide with ones loaded or made up elsewhere
+			nextId.accumulateAndGet(playerId + 1, Math::max);
+		}
+		player.name = name;
+
+		while (true)
+		{
+			int best = player.best.get();
+			if (score <= best)
+			{
+				return false;
+			}
+			if (player.best.compareAndSet(best, score))
+			{
+				ranking.put(key(score, player.id), player);
+				add(score, 1);
+				if (best >= 0)
+				{
+					ranking.remove(key(best, player.id), player);
+					add(best, -1);
+				}
+				return true;
+			}
+		}
+	}
+
+	private static long key(int score, long id)
+	{
+		return ((long)(SCORES - 1 - score) << ID_BITS) | id;
+	}
+
+	private static int scoreOf(long key)
+	{
+		return SCORES - 1 - (int)(key >>> ID_BITS);
+	}
+
+	// the Fenwick trees: a tree over n values stores value v at v + 1
+
+	private void add(int score, long delta)
+	{
+		int bucket = score >>> GOLD_BITS;
+		add(buckets, bucket, delta);
+		AtomicLongArray tree = golds.get(bucket);
+		if (tree == null)
+		{
+			golds.compareAndSet(bucket, null, new AtomicLongArray(MAX_GOLD + 2));
+			tree = golds.get(bucket);
+		}
+		add(tree, score & MAX_GOLD, delta);
+	}
+
+	private static void add(AtomicLongArray tree, int value, long delta)
+	{
+		for (int i = value + 1; i < tree.length(); i += i & -i)
+		{
+			tree.addAndGet(i, delta);
+		}
+	}
+
+	/**
+	 * @return The number of players with scores below the given one.
+	 */
+	private long prefix(int score)
+	{
+		int bucket = score >>> GOLD_BITS;
+		long total = prefix(buckets, bucket);
+		AtomicLongArray tree = bucket < BUCKETS ? golds.get(bucket) : null;
+		if (tree != null)
+		{
+			total += prefix(tree, score & MAX_GOLD);
+		}
+		return total;
+	}
+
+	/**
+	 * @return The total of the values below the given one.
+	 */
+	private static long prefix(AtomicLongArray tree, int value)
+	{
+		long total = 0;
+		for (int i = value; i > 0; i -= i & -i)
+		{
+			total += tree.get(i);
+		}
+		return total;
+	}
+
+	/**
+	 * @return The number of players with scores from low (inclusive) to high (exclusive).
+	 */
+	private long count(int low, int high)
+	{
+		return prefix(high) - prefix(low);
+	}
+}
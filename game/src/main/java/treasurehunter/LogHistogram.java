@@ -0,0 +1,181 @@
+package treasurehunter;
+
+/**
+ * A fixed-size histogram of non-negative whole numbers with log-linear buckets, for percentiles of
+ * huge numbers of values without keeping the values.<p>
+ * Values below 2^precisionBits each get their own bucket, so they are counted exactly. Above that,
+ * every power of two is split into 2^precisionBits equal buckets, so a bucket is never wider than
+ * 1/2^precisionBits of the values in it. A percentile is reported as the low edge of its bucket,
+ * which is therefore within that relative error of the true value, and never above it; this is the
+ * same guarantee a relative-error quantile sketch gives, with merging reduced to adding counts.<p>
+ * The buckets are sized once, up to the highest value expected; anything above it is counted in the
+ * top bucket (the mean and max stay exact). Recording is a few shifts and an array increment, with
+ * no allocation and no locks, so a LogHistogram belongs to one thread: give each worker its own and
+ * merge them when the work is done, as with SimulationStats.
+ */
+import java.util.Arrays;
+
+public class LogHistogram
+{
+	public static final int DEFAULT_PRECISION_BITS = 6;
+
+	//instance variables
+	private final int precisionBits;
+	private final long highestValue;
+	private final long[] counts;
+	private long count;
+	private long total;
+	private long min;
+	private long max;
+
+	//Constructor
+	/**
+	 * @param precisionBits Percentiles are within 1/2^precisionBits of the true value.
+	 * @param highestValue The highest value that gets a bucket of its own.
+	 */
+	public LogHistogram(int precisionBits, long highestValue)
+	{
+		if (precisionBits < 1 || precisionBits > 20 || highestValue < 1)
+		{
+			throw new IllegalArgumentException("Bad histogram shape: " + precisionBits + " bits up to " + highestValue);
+		}
+		this.precisionBits = precisionBits;
+		this.highestValue = highestValue;
+		counts = new long[bucketOf(highestValue) + 1];
+		reset();
+	}
+
+	public LogHistogram(long highestValue)
+	{
+		this(DEFAULT_PRECISION_BITS, highestValue);
+	}
+
+	//Accessors
+	public long getCount() { return count; }
+	public long getMin() { return count == 0 ? 0 : min; }
+	public long getMax() { return max; }
+
+	/**
+	 * @return The most a reported percentile can be below the true value, as a fraction of it.
+	 */
+	public double getRelativeError()
+	{
+		return 1.0 / (1 << precisionBits);
+	}
+
+	/**
+	 * @return The exact mean of the values recorded, or 0 if there are none.
+	 */
+	public double getMean()
+	{
+		return count == 0 ? 0 : (double)total / count;
+	}
+
+	/**
+	 * Adds a value. Negative values count as 0.
+	 */
+	public void record(long value)
+	{
+		if (value < 0)
+		{
+			value = 0;
+		}
+		counts[bucketOf(Math.min(value, highestValue))]++;
+		count++;
+		total += value;
+		if (value < min)
+		{
+			min = value;
+		}
+		if (value > max)
+		{
+			max = value;
+		}
+	}
+
+	/**
+	 * Adds the values recorded in another histogram of the same shape to this one.
+	 */
+	public void merge(LogHistogram other)
+	{
+		if (other.precisionBits != precisionBits || other.highestValue != highestValue)
+		{
+			throw new IllegalArgumentException("Can't merge histograms of different shapes");
+		}
+		for (int i = 0; i < counts.length; i++)
+		{
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * @param fraction From 0 to 1; 0.99 asks for the 99th percentile.
+	 * @return The smallest value with at least the given fraction of the values at or below it,
+	 *         to within getRelativeError(), or 0 if nothing has been recorded.
+	 */
+	public long getValueAtPercentile(double fraction)
+	{
+		if (count == 0)
+		{
+			return 0;
+		}
+		long target = Math.max(1, (long)Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= target)
+			{
+				return Math.max(min, Math.min(max, lowestValueOf(i)));
+			}
+		}
+		return max;
+	}
+
+	public void reset()
+	{
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * @return A one-line summary, e.g. "mean 12.3, p10 2, p50 9, p90 30, p99 61, max 95".
+	 */
+	public String summary()
+	{
+		return String.format("mean %.1f, p10 %d, p50 %d, p90 %d, p99 %d, max %d",
+			getMean(), getValueAtPercentile(0.10), getValueAtPercentile(0.50), getValueAtPercentile(0.90),
+			getValueAtPercentile(0.99), getMax());
+	}
+
+	// bucket i < 2^p holds exactly i; after that each power of two gets 2^p buckets
+
+	private int bucketOf(long value)
+	{
+		long linear = 1L << precisionBits;
+		if (value < linear)
+		{
+			return (int)value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+		return (int)(((shift + 1L) << precisionBits) + (value >>> shift) - linear);
+	}
+
+	private long lowestValueOf(int bucket)
+	{
+		long linear = 1L << precisionBits;
+		if (bucket < linear)
+		{
+			return bucket;
+		}
+		int shift = (bucket >>> precisionBits) - 1;
+		return (linear + (bucket & (linear - 1))) << shift;
+	}
+}
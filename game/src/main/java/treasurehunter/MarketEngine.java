@@ -0,0 +1,452 @@
+package treasurehunter;
+
+/**
+ * Supply and demand for the shops of a World: every item bought in a town pushes that town's price
+ * for it up, every item sold pushes it down, and left alone prices drift back to normal.<p>
+ * A town's prices are a multiplier per item, applied to the difficulty's PriceTable by the Shop.
+ * Each multiplier is exp(pressure), where every trade moves the pressure by the impact and every
+ * tick shrinks it by the relax rate, with the multiplier kept between MIN_MULTIPLIER and MAX_MULTIPLIER.<p>
+ * Trades aren't applied as they happen. A trade only adds to its town's count of pending trades
+ * and, the first time, puts the town on a queue; each tick then applies every queued town's pending
+ * trades in one go and relaxes the towns whose prices are still off normal. Towns nobody has traded
+ * in are never looked at, so a tick costs the same in a world of a hundred towns or a million, and
+ * a town whose prices settle back to normal is dropped, so the market only remembers towns that
+ * have been traded in lately, however many a traveller passes through.<p>
+ * A town's multipliers are kept in one AtomicLongArray that every tick updates in place, along with
+ * a version number that changes whenever they do, so a tick allocates nothing. Shops read a
+ * price with a lookup and a volatile read, never waiting on a tick in progress, and something built
+ * from a town's prices (like a shop's listing) only needs building again once its version has moved.
+ * Ticks run one at a time, on the market's own thread or by calling tick().<p>
+ * Usage: java treasurehunter.MarketEngine [--towns N] [--threads N] [--seconds N] [--tick-ms N]
+ */
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MarketEngine
+{
+	public static final double DEFAULT_IMPACT = 0.05;
+	public static final double DEFAULT_RELAX_RATE = 0.02;
+	public static final long DEFAULT_TICK_MS = 1000;
+	public static final double MIN_MULTIPLIER = 0.5;
+	public static final double MAX_MULTIPLIER = 3;
+
+	// pressure this close to 0 is treated as back to normal
+	private static final double SETTLED = 1e-3;
+	private static final int ITEMS = Item.SHOP_ITEM_COUNT;
+	private static final long NORMAL_BITS = Double.doubleToRawLongBits(1.0);
+
+	/**
+	 * The market of one town.
+	 */
+	private static final class TownMarket
+	{
+		final long town;
+
+		// written by any thread
+		final AtomicIntegerArray pendingTrades = new AtomicIntegerArray(ITEMS);
+		final AtomicBoolean queued = new AtomicBoolean();
+		// set by the tick when the town settles and is dropped; trades that land after that move to a new market
+		volatile boolean retired;
+
+		// written by the tick, read by any thread: the multipliers as double bits, and how many times they changed
+		final AtomicLongArray multipliers = normal();
+		volatile long version;
+
+		// only touched by the tick
+		final double[] pressure = new double[ITEMS];
+		boolean active;
+
+		TownMarket(long town)
+		{
+			this.town = town;
+		}
+	}
+
+	//instance variables
+	private final double impact;
+	private final double relaxRate;
+	private final ConcurrentHashMap<Long, TownMarket> towns;
+	private final ConcurrentLinkedQueue<TownMarket> queue;
+	private final ArrayList<TownMarket> active;
+	private final LongAdder trades;
+	private ScheduledExecutorService ticker;
+	private long ticks;
+	private long versions;
+	private long applied;
+
+	//Constructor
+	/**
+	 * @param impact How far one trade moves an item's price pressure.
+	 * @param relaxRate The fraction of the pressure that fades away each tick.
+	 */
+	public MarketEngine(double impact, double relaxRate)
+	{
+		this.impact = impact;
+		this.relaxRate = relaxRate;
+		towns = new ConcurrentHashMap<Long, TownMarket>();
+		queue = new ConcurrentLinkedQueue<TownMarket>();
+		active = new ArrayList<TownMarket>();
+		trades = new LongAdder();
+		ticker = null;
+		ticks = 0;
+		versions = 0;
+		applied = 0;
+	}
+
+	public MarketEngine()
+	{
+		this(DEFAULT_IMPACT, DEFAULT_RELAX_RATE);
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		int townCount = 1000000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int seconds = 5;
+		long tickMs = 10;
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--towns")) {
+				townCount = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--threads")) {
+				threads = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seconds")) {
+				seconds = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--tick-ms")) {
+				tickMs = Long.parseLong(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		// shoppers who mostly look: one trade for every ten price checks, in a few popular towns
+		MarketEngine market = new MarketEngine();
+		market.start(tickMs);
+		PriceTable base = Difficulty.NORMAL.getPrices();
+		LongAdder reads = new LongAdder();
+		LongAdder raised = new LongAdder();
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ArrayList<Thread> shoppers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++)
+		{
+			int seed = t;
+			int count = townCount;
+			Thread shopper = new Thread(() -> {
+				GameRandom random = new GameRandom(seed);
+				while (System.nanoTime() < end)
+				{
+					for (int i = 0; i < 1000; i++)
+					{
+						long town = random.nextDouble() < 0.5 ? random.nextInt(100) : random.nextInt(count);
+						Item item = Item.fromOrdinal(random.nextInt(ITEMS));
+						if (market.getMultiplier(town, item) > 1)
+						{
+							raised.increment();
+						}
+						if (i % 10 == 0)
+						{
+							market.recordTrade(town, item, random.nextDouble() < 0.6);
+						}
+					}
+					reads.add(1000);
+				}
+			}, "shopper-" + t);
+			shopper.start();
+			shoppers.add(shopper);
+		}
+		for (Thread shopper : shoppers)
+		{
+			shopper.join();
+		}
+		market.close();
+
+		System.out.println(String.format("%d threads: %,.0f price reads/sec (%.1f%% above normal), %,d trades, %d ticks, %,d towns off normal prices",
+			threads, reads.sum() / (double)seconds, 100.0 * raised.sum() / reads.sum(),
+			market.getTradeCount(), market.getTickCount(), market.getActiveTownCount()));
+		double[] popular = market.getMultipliers(0, new double[ITEMS]);
+		System.out.println("Prices in town 0: " + base.getListing(popular).replace('\n', ' '));
+	}
+
+	//Accessors
+	public long getTradeCount() { return trades.sum(); }
+	public synchronized long getTickCount() { return ticks; }
+
+	/**
+	 * @return The number of towns whose prices are still off normal.
+	 */
+	public synchronized int getActiveTownCount() { return active.size(); }
+
+	/**
+	 * @return The number of towns the market is keeping prices for.
+	 */
+	public int getTownCount() { return towns.size(); }
+
+	/**
+	 * @return Buys minus sells, over every trade the ticks have applied so far.
+	 */
+	synchronized long getAppliedTradeCount() { return applied; }
+
+	/**
+	 * Looks up a town's current price multiplier for an item without waiting on anything.
+	 * @param town The town.
+	 * @param item The item.
+	 * @return What the item's normal prices are multiplied by; 1 for anything the market doesn't move.
+	 */
+	public double getMultiplier(long town, Item item)
+	{
+		TownMarket market = towns.get(town);
+		if (market == null || item == null || item.ordinal() >= ITEMS)
+		{
+			return 1;
+		}
+		return Double.longBitsToDouble(market.multipliers.get(item.ordinal()));
+	}
+
+	/**
+	 * Copies a town's current price multipliers into an array.
+	 * @param town The town.
+	 * @param multipliers Filled in with the multiplier of each shop item, indexed by Item ordinal.
+	 * @return The array passed in.
+	 */
+	public double[] getMultipliers(long town, double[] multipliers)
+	{
+		TownMarket market = towns.get(town);
+		for (int i = 0; i < ITEMS; i++)
+		{
+			multipliers[i] = market == null ? 1 : Double.longBitsToDouble(market.multipliers.get(i));
+		}
+		return multipliers;
+	}
+
+	/**
+	 * Tells whether a town's prices may have changed, without waiting on anything.<p>
+	 * The multipliers are written before the version goes up, so multipliers read after
+	 * reading a version are at least that new.
+	 * @param town The town.
+	 * @return A number that changes every time the town's multipliers change.
+	 */
+	public long getVersion(long town)
+	{
+		TownMarket market = towns.get(town);
+		return market == null ? 0 : market.version;
+	}
+
+	/**
+	 * Records a trade, to be applied to the town's prices on the next tick.
+	 * @param town Where the trade happened.
+	 * @param item What was traded.
+	 * @param bought true if a hunter bought it from the shop, false if they sold it.
+	 */
+	public void recordTrade(long town, Item item, boolean bought)
+	{
+		if (item == null || item.ordinal() >= ITEMS)
+		{
+			return;
+		}
+
+		addTrades(town, item.ordinal(), bought ? 1 : -1);
+		trades.increment();
+	}
+
+	/**
+	 * Adds to a town's pending trades in an item, making it a market again if it had settled.
+	 */
+	private void addTrades(long town, int item, int count)
+	{
+		while (count != 0)
+		{
+			TownMarket market = towns.get(town);
+			if (market == null)
+			{
+				market = towns.computeIfAbsent(town, TownMarket::new);
+			}
+			market.pendingTrades.addAndGet(item, count);
+			// only the first trade since the last tick queues the town
+			if (!market.queued.get() && market.queued.compareAndSet(false, true))
+			{
+				queue.add(market);
+			}
+			if (!market.retired)
+			{
+				return;
+			}
+			// the town was dropped as the trade went in: take back whatever is still pending (the tick
+			// may already have moved it) and add it to the town's new market
+			count = market.pendingTrades.getAndSet(item, 0);
+		}
+	}
+
+	/**
+	 * Applies every trade recorded since the last tick, relaxes the prices that are still off normal,
+	 * and publishes the towns' new prices.
+	 */
+	public synchronized void tick()
+	{
+		ticks++;
+		TownMarket market;
+		while ((market = queue.poll()) != null)
+		{
+			if (market.retired)
+			{
+				// queued by a trade that has since moved on to the town's new market
+				continue;
+			}
+			// unqueued before draining, so a trade made during the drain queues the town again
+			market.queued.set(false);
+			for (int i = 0; i < ITEMS; i++)
+			{
+				int net = market.pendingTrades.getAndSet(i, 0);
+				market.pressure[i] += net * impact;
+				applied += net;
+			}
+			if (!market.active)
+			{
+				market.active = true;
+				active.add(market);
+			}
+		}
+
+		for (int t = active.size() - 1; t >= 0; t--)
+		{
+			market = active.get(t);
+			if (relax(market))
+			{
+				// settled back to normal; swap the last town into its place and forget it
+				market.active = false;
+				active.set(t, active.get(active.size() - 1));
+				active.remove(active.size() - 1);
+				retire(market);
+			}
+		}
+	}
+
+	/**
+	 * Drops a settled town, so its prices read as normal until someone trades there again.
+	 */
+	private void retire(TownMarket market)
+	{
+		market.retired = true;
+		towns.remove(market.town, market);
+		// a trade that raced the removal may have landed here after the last drain; every pending
+		// trade is taken exactly once, either here or by the trader once it sees the market retired
+		for (int i = 0; i < ITEMS; i++)
+		{
+			int net = market.pendingTrades.getAndSet(i, 0);
+			if (net != 0)
+			{
+				addTrades(market.town, i, net);
+			}
+		}
+	}
+
+	/**
+	 * Runs tick() on a background thread every so often.
+	 * @param tickMs The time between ticks.
+	 */
+	public synchronized void start(long tickMs)
+	{
+		if (ticker != null)
+		{
+			return;
+		}
+		ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "market");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background ticks.
+	 */
+	public void close()
+	{
+		ScheduledExecutorService stopping;
+		synchronized (this)
+		{
+			stopping = ticker;
+			ticker = null;
+		}
+		if (stopping != null)
+		{
+			stopping.shutdown();
+			try
+			{
+				stopping.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Moves a town's prices one tick closer to normal and publishes them.
+	 * @return true if the prices are back to normal.
+	 */
+	private boolean relax(TownMarket market)
+	{
+		boolean settled = true;
+		boolean changed = false;
+		for (int i = 0; i < ITEMS; i++)
+		{
+			// pressure can't build past what the multiplier limits allow, or it would take forever to fade
+			double pressure = market.pressure[i];
+			pressure = Math.max(Math.log(MIN_MULTIPLIER), Math.min(Math.log(MAX_MULTIPLIER), pressure));
+			long multiplier = Double.doubleToRawLongBits(Math.exp(pressure));
+			if (market.multipliers.get(i) != multiplier)
+			{
+				market.multipliers.set(i, multiplier);
+				changed = true;
+			}
+			pressure *= 1 - relaxRate;
+			if (Math.abs(pressure) < SETTLED)
+			{
+				pressure = 0;
+			}
+			else
+			{
+				settled = false;
+			}
+			market.pressure[i] = pressure;
+		}
+		if (settled)
+		{
+			for (int i = 0; i < ITEMS; i++)
+			{
+				if (market.multipliers.get(i) != NORMAL_BITS)
+				{
+					market.multipliers.set(i, NORMAL_BITS);
+					changed = true;
+				}
+			}
+		}
+		if (changed)
+		{
+			// numbered across all towns, so a town's new market never repeats a version its old one had
+			market.version = ++versions;
+		}
+		return settled;
+	}
+
+	private static AtomicLongArray normal()
+	{
+		AtomicLongArray multipliers = new AtomicLongArray(ITEMS);
+		for (int i = 0; i < ITEMS; i++)
+		{
+			multipliers.set(i, NORMAL_BITS);
+		}
+		return multipliers;
+	}
+}
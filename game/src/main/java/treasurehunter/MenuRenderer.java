@@ -0,0 +1,214 @@
+package treasurehunter;
+
+/**
+ * Draws the main menu screen of the Treasure Hunter game.<p>
+ * The whole screen is composed in one buffer and written with a single flush. On a terminal that
+ * understands cursor movement, a screen drawn right after the last one only rewrites the lines that
+ * changed (usually just the news or the hunter's status) instead of printing everything again.<p>
+ * The renderer wraps the game's GameIO, so it can tell when anything else was printed since the
+ * last screen; in that case the old screen has scrolled away and the next one is drawn in full.
+ */
+public class MenuRenderer implements GameIO
+{
+	// the option list never changes, so it is built once
+	private static final String MENU_OPTIONS =
+		"(B)uy something at the shop.\n" +
+		"(S)ell something at the shop.\n" +
+		"(M)ove on to a different town.\n" +
+		"(L)ook for trouble!\n" +
+		"(H)unt for treasure!\n" +
+		"Read the (N)ews of the last few towns.\n" +
+		"Give up the hunt and e(X)it.\n" +
+		"\n";
+	private static final String PROMPT = "What's your next move? ";
+
+	// lines longer than this may wrap, which would throw off the cursor movement
+	private static final int SAFE_WIDTH = 80;
+
+	private static final String CLEAR_LINE = "\033[K";
+
+	//instance variables
+	private GameIO io;
+	private volatile boolean dirty;
+	private String[] lastLines;
+	private String lastNews;
+	private String lastStatus;
+	private String lastTown;
+	private StringBuilder buffer;
+
+	//Constructor
+	/**
+	 * @param io Where the screens are drawn.
+	 */
+	public MenuRenderer(GameIO io)
+	{
+		this.io = io;
+		dirty = true;
+		lastLines = null;
+		buffer = new StringBuilder(1024);
+	}
+
+	/**
+	 * Draws the menu screen, ending with the prompt for the next move.
+	 *
+	 * @param news The town's latest news.
+	 * @param status The hunter's description.
+	 * @param town The town's description.
+	 */
+	public void render(String news, String status, String town)
+	{
+		buffer.setLength(0);
+		if (!dirty && io.supportsCursorControl() && lastLines != null)
+		{
+			if (news.equals(lastNews) && status.equals(lastStatus) && town.equals(lastTown))
+			{
+				// nothing changed, so only the player's last answer has to be wiped off the prompt line
+				buffer.append("\033[1A\r").append(PROMPT).append(CLEAR_LINE);
+			}
+			else
+			{
+				String[] lines = toLines(news, status, town);
+				if (fitsOnOneRow(lines) && fitsOnOneRow(lastLines))
+				{
+					appendChangedLines(lines);
+				}
+				else
+				{
+					buffer.append(toScreen(news, status, town));
+				}
+				lastLines = lines;
+			}
+		}
+		else
+		{
+			buffer.append(toScreen(news, status, town));
+			if (io.supportsCursorControl())
+			{
+				lastLines = toLines(news, status, town);
+			}
+		}
+
+		lastNews = news;
+		lastStatus = status;
+		lastTown = town;
+
+		io.print(buffer.toString());
+		io.flush();
+		dirty = false;
+	}
+
+	private String toScreen(String news, String status, String town)
+	{
+		return "\n" + news + "\n***\n" + status + "\n" + town + "\n" + MENU_OPTIONS + PROMPT;
+	}
+
+	private String[] toLines(String news, String status, String town)
+	{
+		return toScreen(news, status, town).split("\n", -1);
+	}
+
+	private boolean fitsOnOneRow(String[] lines)
+	{
+		for (String line : lines)
+		{
+			if (line.length() >= SAFE_WIDTH)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the cursor back over the last screen and rewrites only the lines that differ.<p>
+	 * The player's Enter left the cursor at the start of the row below the old prompt.
+	 */
+	private void appendChangedLines(String[] lines)
+	{
+		int rows = Math.max(lines.length, lastLines.length);
+		buffer.append("\033[").append(lastLines.length).append('A');
+
+		for (int i = 0; i < rows; i++)
+		{
+			if (i > 0)
+			{
+				buffer.append('\n');
+			}
+
+			if (i >= lines.length)
+			{
+				buffer.append('\r').append(CLEAR_LINE);
+			}
+			else if (i == lines.length - 1 || i >= lastLines.length || !lines[i].equals(lastLines[i]))
+			{
+				// the prompt is always rewritten to wipe the player's answer off it
+				buffer.append('\r').append(lines[i]).append(CLEAR_LINE);
+			}
+		}
+
+		if (rows > lines.length)
+		{
+			// the old screen was taller; go back up and park the cursor after the prompt
+			buffer.append("\033[").append(rows - lines.length).append("A\r").append(PROMPT);
+		}
+	}
+
+	// GameIO methods; anything printed through here means the last screen is no longer where it was
+	public String readLine()
+	{
+		return io.readLine();
+	}
+
+	public boolean hasPendingInput()
+	{
+		return io.hasPendingInput();
+	}
+
+	public void print(String text)
+	{
+		dirty = true;
+		io.print(text);
+	}
+
+	public void println(String text)
+	{
+		dirty = true;
+		io.println(text);
+	}
+
+	public void println()
+	{
+		dirty = true;
+		io.println();
+	}
+
+	public void flush()
+	{
+		io.flush();
+	}
+
+	public boolean isInteractive()
+	{
+		return io.isInteractive();
+	}
+
+	public boolean isInputInteractive()
+	{
+		return io.isInputInteractive();
+	}
+
+	public boolean isOutputDiscarded()
+	{
+		return io.isOutputDiscarded();
+	}
+
+	public boolean isLatencyRecorded()
+	{
+		return io.isLatencyRecorded();
+	}
+
+	public boolean supportsCursorControl()
+	{
+		return io.supportsCursorControl();
+	}
+}
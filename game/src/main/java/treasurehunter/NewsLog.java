@@ -0,0 +1,238 @@
+package treasurehunter;
+
+/**
+ * The last things that happened to a hunter in a game, kept as event codes instead of text.<p>
+ * Each event is a code and one number (a terrain, an item or an amount of gold), written into a
+ * fixed ring of slots, so recording one allocates nothing and the oldest events are overwritten
+ * once the ring is full. The text is only built when an event is actually shown, and the latest
+ * event's text is kept until the next one, so a game whose output nobody reads never builds any.<p>
+ * One NewsLog belongs to one game and is only touched by that game's thread.
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+public class NewsLog
+{
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * What happened; the comment says what the event's number means.
+	 */
+	public enum Event
+	{
+		WELCOME_ROUGH,
+		WELCOME_SLEEPY,
+		CROSSED,            // terrain index
+		CROSSED_AND_BROKE,  // terrain index
+		CANT_LEAVE,         // terrain index
+		NO_TROUBLE,
+		BRAWL_WON,          // gold won
+		BRAWL_LOST,         // gold lost
+		ALREADY_DUG_UP,
+		ALREADY_FOUND,
+		FOUND_TREASURE,     // item ordinal
+		FOUND_DUPLICATE,    // item ordinal
+		TREASURE_GRABBED,   // item ordinal
+		NO_TREASURE,
+		TEXT                // ready-made text, e.g. news restored from a save
+	}
+
+	private static final Event[] EVENTS = Event.values();
+	private static final String ROUGH = "\nIt's pretty rough around here, so watch yourself.";
+	private static final String SLEEPY = "\nWe're just a sleepy little town with mild mannered folk.";
+	private static final String NO_NEED_TO_HUNT = ", so there is no need to continue hunting here\nIt might be time to move to a new town";
+
+	// these messages only depend on the terrain, so they are built once per terrain
+	private static final String[] CROSSED = new String[Terrain.count()];
+	private static final String[] CROSSED_AND_BROKE = new String[Terrain.count()];
+
+	static
+	{
+		for (int i = 0; i < CROSSED.length; i++)
+		{
+			Terrain terrain = Terrain.fromIndex(i);
+			Item item = terrain.getNeededItem();
+			CROSSED[i] = "You used your " + item + " to cross the " + terrain.getTerrainName() + ".";
+			CROSSED_AND_BROKE[i] = CROSSED[i] + "\nUnfortunately, your " + item + " broke.";
+		}
+	}
+
+	//instance variables
+	private final int mask;
+	private final byte[] events;
+	private final int[] numbers;
+	private final String[] texts;
+	private long count;
+	private String hunterName;
+	private long latestCount;
+	private String latest;
+
+	//Constructor
+	/**
+	 * @param capacity The most events kept; rounded up to a power of two.
+	 */
+	public NewsLog(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		mask = size - 1;
+		events = new byte[size];
+		numbers = new int[size];
+		texts = new String[size];
+		count = 0;
+		hunterName = "";
+		latestCount = 0;
+		latest = "";
+	}
+
+	public NewsLog()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	//Accessors
+	/**
+	 * @return The number of events recorded so far, including those that have been overwritten;
+	 *         it changes whenever something new happens.
+	 */
+	public long getCount() { return count; }
+
+	/**
+	 * @return The most events that are kept.
+	 */
+	public int getCapacity() { return events.length; }
+
+	/**
+	 * @param hunterName The name the welcomes use.
+	 */
+	public void setHunterName(String hunterName) { this.hunterName = hunterName; }
+
+	public void record(Event event)
+	{
+		record(event, 0);
+	}
+
+	/**
+	 * Records an event without building its text.
+	 * @param event What happened.
+	 * @param number The event's terrain index, item ordinal or gold.
+	 */
+	public void record(Event event, int number)
+	{
+		int slot = (int)(count & mask);
+		events[slot] = (byte)event.ordinal();
+		numbers[slot] = number;
+		texts[slot] = null;
+		count++;
+	}
+
+	/**
+	 * Records an event that already has its text.
+	 */
+	public void recordText(String text)
+	{
+		record(Event.TEXT);
+		texts[(int)((count - 1) & mask)] = text;
+	}
+
+	// the events still kept, oldest first, so GameSnapshot can save them without their text
+
+	int getKeptCount()
+	{
+		return (int)Math.min(count, events.length);
+	}
+
+	Event getKeptEvent(int i)
+	{
+		return EVENTS[events[keptSlot(i)]];
+	}
+
+	int getKeptNumber(int i)
+	{
+		return numbers[keptSlot(i)];
+	}
+
+	String getKeptText(int i)
+	{
+		return texts[keptSlot(i)];
+	}
+
+	private int keptSlot(int i)
+	{
+		return (int)((count - getKeptCount() + i) & mask);
+	}
+
+	/**
+	 * @return The text of the latest event, or "" if nothing has happened yet.
+	 *         The same String is returned until something new happens.
+	 */
+	public String getLatest()
+	{
+		if (latestCount != count)
+		{
+			latest = format(count - 1);
+			latestCount = count;
+		}
+		return latest;
+	}
+
+	/**
+	 * @param n How many events.
+	 * @return The text of the last n events still kept, oldest first.
+	 */
+	public List<String> getRecent(int n)
+	{
+		long first = Math.max(0, count - Math.max(0, Math.min(n, events.length)));
+		ArrayList<String> recent = new ArrayList<String>((int)(count - first));
+		for (long i = first; i < count; i++)
+		{
+			recent.add(format(i));
+		}
+		return recent;
+	}
+
+	/**
+	 * Builds the text of one of the events still kept.
+	 */
+	private String format(long index)
+	{
+		if (index < 0)
+		{
+			return "";
+		}
+		int slot = (int)(index & mask);
+		int number = numbers[slot];
+		switch (EVENTS[events[slot]])
+		{
+			case WELCOME_ROUGH:
+				return "Welcome to town, " + hunterName + "." + ROUGH;
+			case WELCOME_SLEEPY:
+				return "Welcome to town, " + hunterName + "." + SLEEPY;
+			case CROSSED:
+				return CROSSED[number];
+			case CROSSED_AND_BROKE:
+				return CROSSED_AND_BROKE[number];
+			case CANT_LEAVE:
+				return "You can't leave town, " + hunterName + ". You don't have a " + Terrain.fromIndex(number).getNeededItem() + ".";
+			case NO_TROUBLE:
+				return "You couldn't find any trouble";
+			case BRAWL_WON:
+				return "Okay, stranger! You proved yer mettle. Here, take my gold.\nYou won the brawl and receive " + number + " gold.";
+			case BRAWL_LOST:
+				return "That'll teach you to go lookin' fer trouble in MY town! Now pay up!\nYou lost the brawl and pay " + number + " gold.";
+			case ALREADY_DUG_UP:
+				return "The treasure in this town has already been dug up" + NO_NEED_TO_HUNT;
+			case ALREADY_FOUND:
+				return "You already found the treasure in this town" + NO_NEED_TO_HUNT;
+			case FOUND_TREASURE:
+				return "You found a " + Item.fromOrdinal(number) + "!";
+			case FOUND_DUPLICATE:
+				return "You found a " + Item.fromOrdinal(number) + "!Too bad you already had one though, and because you are suuuch a good person you put it back down and left it for someone else to find.";
+			case TREASURE_GRABBED:
+				return "You found a " + Item.fromOrdinal(number) + "!But somebody else grabs it before you can! Better luck in the next town.";
+			case NO_TREASURE:
+				return "You couldn't find any treasure.";
+			default:
+				return texts[slot];
+		}
+	}
+}
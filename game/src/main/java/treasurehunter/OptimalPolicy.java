@@ -0,0 +1,195 @@
+package treasurehunter;
+
+/**
+ * The best possible move in every state of a Treasure Hunter game, as worked out by OptimalPolicySolver.<p>
+ * A state is the hunter's gold, their kit and the town they are in. The kit is the hunter's 9-bit
+ * Item bitmask; a town is its terrain, its treasure and whether it is tough (36 kinds of town).
+ * Whether the town's treasure has been found doesn't need to be part of the state: the treasure is
+ * only ever found by the hunter, who then has it, and hunting for a treasure the hunter already has
+ * does nothing either way.<p>
+ * Gold above the cap the policy was solved for is treated as the cap.
+ */
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class OptimalPolicy
+{
+	// the six shop items are kit bits 0-5, the three treasures bits 6-8
+	static final int SHOP_ITEMS = Item.SHOP_ITEM_COUNT;
+	static final int SHOP_KITS = 1 << SHOP_ITEMS;
+	static final int TREASURE_SETS = 8;
+	static final int ALL_TREASURES = TREASURE_SETS - 1;
+	static final int TOWNS = 36;
+
+	// action codes; buying and selling add the shop item's ordinal
+	static final byte QUIT = 0;
+	static final byte HUNT = 1;
+	static final byte MOVE = 2;
+	static final byte LOOK = 3;
+	static final byte BUY = 4;
+	static final byte SELL = (byte)(BUY + SHOP_ITEMS);
+
+	//instance variables
+	private final Difficulty difficulty;
+	private final int goldCap;
+	private final double[] winProbabilities;
+	private final byte[] actions;
+
+	//Constructor
+	OptimalPolicy(Difficulty difficulty, int goldCap, double[] winProbabilities, byte[] actions)
+	{
+		this.difficulty = difficulty;
+		this.goldCap = goldCap;
+		this.winProbabilities = winProbabilities;
+		this.actions = actions;
+	}
+
+	//Accessors
+	public Difficulty getDifficulty() { return difficulty; }
+	public int getGoldCap() { return goldCap; }
+
+	/**
+	 * Reads a policy's states as written by writeStates.
+	 * @param goldCap The gold cap the policy was solved for.
+	 */
+	static OptimalPolicy readStates(DataInputStream in, Difficulty difficulty, int goldCap) throws IOException
+	{
+		int states = TREASURE_SETS * (goldCap + 1) * SHOP_KITS * TOWNS;
+		double[] winProbabilities = new double[states];
+		byte[] actions = new byte[states];
+		for (int i = 0; i < states; i++)
+		{
+			winProbabilities[i] = in.readDouble();
+		}
+		in.readFully(actions);
+		return new OptimalPolicy(difficulty, goldCap, winProbabilities, actions);
+	}
+
+	/**
+	 * Writes every state's win probability, then every state's action code.
+	 */
+	void writeStates(DataOutputStream out) throws IOException
+	{
+		for (double winProbability : winProbabilities)
+		{
+			out.writeDouble(winProbability);
+		}
+		out.write(actions);
+	}
+
+	/**
+	 * @return The number of states in the policy.
+	 */
+	public int size()
+	{
+		return actions.length;
+	}
+
+	/**
+	 * @return The chance of winning a new game with perfect play, before the first town is known.
+	 */
+	public double getStartingWinProbability()
+	{
+		int gold = Math.min(goldCap, difficulty.getStartingGold());
+		double total = 0;
+		for (int town = 0; town < TOWNS; town++)
+		{
+			total += townChance(town, difficulty.getToughness()) * winProbabilities[index(goldCap, gold, 0, town)];
+		}
+		return total;
+	}
+
+	/**
+	 * @return The chance of winning from this state with perfect play.
+	 */
+	public double getWinProbability(int gold, long kit, Terrain terrain, Item treasure, boolean toughTown)
+	{
+		if ((kit & Item.TREASURE_MASK) == Item.TREASURE_MASK)
+		{
+			return 1;
+		}
+		return winProbabilities[index(goldCap, clampGold(gold), kit, townState(terrain, treasure, toughTown))];
+	}
+
+	/**
+	 * @return The best move from this state, typed the way the game's menu takes it, e.g. "h" or "b Boat y".
+	 */
+	public String getCommand(int gold, long kit, Terrain terrain, Item treasure, boolean toughTown)
+	{
+		return toCommand(actions[index(goldCap, clampGold(gold), kit, townState(terrain, treasure, toughTown))]);
+	}
+
+	/**
+	 * @return The best move in the given town for a hunter, typed the way the game's menu takes it.
+	 */
+	public String getCommand(Hunter hunter, Town town)
+	{
+		return getCommand(hunter.getGold(), hunter.getKit(), town.getTerrain(), town.getTreasure(), town.isToughTown());
+	}
+
+	/**
+	 * @param town The kind of town, as from townState().
+	 * @return The action code of the best move in this state.
+	 */
+	byte getAction(int gold, long kit, int town)
+	{
+		return actions[index(goldCap, clampGold(gold), kit, town)];
+	}
+
+	/**
+	 * @param action An action code.
+	 * @return The action as a menu command.
+	 */
+	static String toCommand(byte action)
+	{
+		if (action == HUNT) {
+			return "h";
+		} else if (action == MOVE) {
+			return "m";
+		} else if (action == LOOK) {
+			return "l";
+		} else if (action >= SELL) {
+			return "s " + Item.fromOrdinal(action - SELL).getName() + " y";
+		} else if (action >= BUY) {
+			return "b " + Item.fromOrdinal(action - BUY).getName() + " y";
+		}
+		return "x";
+	}
+
+	/**
+	 * Packs a state into an array index; states with the same treasures sit together, gold-major.
+	 */
+	static int index(int goldCap, int gold, long kit, int town)
+	{
+		int treasures = (int)(kit >>> SHOP_ITEMS) & ALL_TREASURES;
+		int shopKit = (int)kit & (SHOP_KITS - 1);
+		return ((treasures * (goldCap + 1) + gold) * SHOP_KITS + shopKit) * TOWNS + town;
+	}
+
+	/**
+	 * @return The kind of town, from 0 to 35.
+	 */
+	static int townState(Terrain terrain, Item treasure, boolean toughTown)
+	{
+		int treasureType = treasure.ordinal() - Item.GOLD_THING.ordinal();
+		return (terrain.getIndex() * 3 + treasureType) * 2 + (toughTown ? 1 : 0);
+	}
+
+	static int terrainOf(int town) { return town / 6; }
+	static int treasureTypeOf(int town) { return town / 2 % 3; }
+	static boolean isTough(int town) { return town % 2 == 1; }
+
+	/**
+	 * @return The chance that a newly generated town is this kind of town.
+	 */
+	static double townChance(int town, double toughness)
+	{
+		return (isTough(town) ? toughness : 1 - toughness) / (Terrain.count() * 3);
+	}
+
+	private int clampGold(int gold)
+	{
+		return Math.max(0, Math.min(goldCap, gold));
+	}
+}
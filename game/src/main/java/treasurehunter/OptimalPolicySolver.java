@@ -0,0 +1,583 @@
+package treasurehunter;
+
+/**
+ * Works out perfect play for Treasure Hunter, treating the game as a Markov decision process.<p>
+ * Every random roll in the game has a fixed chance (finding trouble, winning a brawl, the brawl's
+ * gold, finding the treasure, an item breaking, the next town), so the chance of winning from each
+ * state can be found exactly by value iteration; the move that achieves it is the optimal policy.<p>
+ * A few things keep this fast:
+ * <ul>
+ * <li>Treasures are never lost, so the states are solved one set of treasures at a time, from
+ *     the most treasures down; hunting only ever leads to a set that is already solved. All three
+ *     treasures are equally likely everywhere, so sets with the same number of treasures are
+ *     mirror images of each other and only one of them is solved.</li>
+ * <li>Moves that can fail without changing anything (hunting, looking for trouble and finding
+ *     none) are worth exactly what they lead to when they succeed, since the game has no turn limit
+ *     and they can simply be tried again.</li>
+ * <li>Moving on keeps the hunter's gold, so the towns at one gold level are solved exactly
+ *     together; only brawls and the shop link gold levels, and only they need iterating.</li>
+ * <li>Sweeps update the values in place (Gauss-Seidel), so each gold level already sees the new
+ *     values of the levels solved before it in the same sweep.</li>
+ * <li>Only the gold levels near bankruptcy take long to settle; a gold level is only solved again
+ *     once one of the levels it depends on has changed since it was last solved, so after the
+ *     first few sweeps only a few dozen of the levels are being worked on.</li>
+ * </ul>
+ * Gold is capped, so a brawl that would take the hunter above the cap leaves them at the cap.<p>
+ * Usage: java treasurehunter.OptimalPolicySolver [--mode e|n|h|cheat|all] [--gold-cap N] [--dump FILE]
+ */
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class OptimalPolicySolver
+{
+	public static final int DEFAULT_GOLD_CAP = 300;
+
+	// sweeps stop once no win probability changed by more than this
+	private static final double TOLERANCE = 1e-9;
+	private static final int MAX_SWEEPS = 100000;
+
+	// how much better a less useful move has to be to be chosen over a more useful one
+	private static final double ACTION_SLACK = 1e-7;
+
+	private static final String[] ALL_MODES = { "e", "n", "h", "cheat" };
+
+	// every way to reorder the three treasure types
+	private static final int[][] PERMUTATIONS = { {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0} };
+
+	// distance between the same kit and town at consecutive gold levels
+	private static final int GOLD_STRIDE = OptimalPolicy.SHOP_KITS * OptimalPolicy.TOWNS;
+
+	//instance variables
+	private final Difficulty difficulty;
+	private final int goldCap;
+	private final int[] buyPrices;
+	private final int[] sellPrices;
+	private final int[] neededItem;
+	private final int[] brawlGain;
+	private final double winWeight;
+	private final double loseWeight;
+	private final double[] townChances;
+	private final double[] values;
+	private final byte[] actions;
+	private int sweeps;
+	private long levelsSolved;
+
+	// when each gold level was last solved, and last changed by more than the tolerance, counted in levels solved
+	private long[] solvedAt;
+	private long[] changedAt;
+
+	//Constructor
+	private OptimalPolicySolver(Difficulty difficulty, int goldCap)
+	{
+		this.difficulty = difficulty;
+		this.goldCap = goldCap;
+
+		buyPrices = new int[OptimalPolicy.SHOP_ITEMS];
+		sellPrices = new int[OptimalPolicy.SHOP_ITEMS];
+		for (int i = 0; i < OptimalPolicy.SHOP_ITEMS; i++)
+		{
+			buyPrices[i] = difficulty.getPrices().getBuyPrice(Item.fromOrdinal(i));
+			sellPrices[i] = difficulty.getPrices().getSellPrice(Item.fromOrdinal(i));
+		}
+
+		neededItem = new int[Terrain.count()];
+		for (int t = 0; t < Terrain.count(); t++)
+		{
+			neededItem[t] = Terrain.fromIndex(t).getNeededItem().ordinal();
+		}
+
+		// a brawl is for 1 to 10 gold, plus the difficulty's extra when won; a cheater always wins 100
+		brawlGain = new int[11];
+		for (int diff = 1; diff <= 10; diff++)
+		{
+			brawlGain[diff] = difficulty.isCheating() ? 100 : (int)(diff + difficulty.getBrawlGoldExtra());
+		}
+		double brawlWinChance = difficulty.isCheating() ? 1 : difficulty.getBrawlWinChance();
+
+		// the chance of each of the ten brawl amounts, won and lost
+		winWeight = brawlWinChance / 10;
+		loseWeight = (1 - brawlWinChance) / 10;
+
+		townChances = new double[OptimalPolicy.TOWNS];
+		for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+		{
+			townChances[town] = OptimalPolicy.townChance(town, difficulty.getToughness());
+		}
+
+		int states = OptimalPolicy.TREASURE_SETS * (goldCap + 1) * OptimalPolicy.SHOP_KITS * OptimalPolicy.TOWNS;
+		values = new double[states];
+		actions = new byte[states];
+		sweeps = 0;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		String mode = "all";
+		int goldCap = DEFAULT_GOLD_CAP;
+		String dumpFile = null;
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--mode")) {
+				mode = args[i + 1];
+			} else if (args[i].equals("--gold-cap")) {
+				goldCap = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--dump")) {
+				dumpFile = args[i + 1];
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		String[] modes = ALL_MODES;
+		if (!mode.equals("all"))
+		{
+			modes = new String[] { mode };
+		}
+
+		for (String m : modes)
+		{
+			Difficulty difficulty = Difficulty.fromInput(m);
+			if (difficulty == null)
+			{
+				System.out.println("Unknown mode " + m);
+				return;
+			}
+
+			long start = System.nanoTime();
+			OptimalPolicySolver solver = new OptimalPolicySolver(difficulty, goldCap);
+			OptimalPolicy policy = solver.solve();
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.println(String.format("Mode %s (gold cap %d): %d states solved in %.2f s (%d sweeps, %d gold levels solved)",
+				m, goldCap, policy.size(), seconds, solver.sweeps, solver.levelsSolved));
+			System.out.println(String.format("  best possible win rate: %.2f%%", 100 * policy.getStartingWinProbability()));
+			System.out.print(openingMoves(policy));
+
+			if (dumpFile != null)
+			{
+				String file = modes.length == 1 ? dumpFile : dumpFile + "." + m;
+				dump(policy, file);
+				System.out.println("  policy written to " + file);
+			}
+		}
+	}
+
+	/**
+	 * Solves a difficulty.
+	 *
+	 * @param difficulty The difficulty.
+	 * @param goldCap The most gold a hunter is counted as having.
+	 * @return The optimal policy.
+	 */
+	public static OptimalPolicy solve(Difficulty difficulty, int goldCap)
+	{
+		return new OptimalPolicySolver(difficulty, goldCap).solve();
+	}
+
+	private OptimalPolicy solve()
+	{
+		int setSize = treasureSetSize();
+		solvedAt = new long[goldCap + 1];
+		changedAt = new long[goldCap + 1];
+
+		// a hunter with all three treasures has won
+		Arrays.fill(values, OptimalPolicy.ALL_TREASURES * setSize, values.length, 1.0);
+
+		// treasure sets are only ever added to, so each set depends only on the ones with more
+		// treasures; the treasures are interchangeable, so only one set per number of treasures
+		// is solved and the others are copies of it with the treasures swapped around
+		for (int owned = 2; owned >= 0; owned--)
+		{
+			int solved = (1 << owned) - 1;
+			solveTreasureSet(solved);
+			for (int treasures = 0; treasures < OptimalPolicy.ALL_TREASURES; treasures++)
+			{
+				if (treasures != solved && Integer.bitCount(treasures) == owned)
+				{
+					copyTreasureSet(solved, treasures);
+				}
+			}
+		}
+
+		solvedAt = null;
+		changedAt = null;
+		return new OptimalPolicy(difficulty, goldCap, values, actions);
+	}
+
+	private int treasureSetSize()
+	{
+		return (goldCap + 1) * GOLD_STRIDE;
+	}
+
+	/**
+	 * Sweeps over every state with the given treasures until their win probabilities settle.<p>
+	 * Each sweep updates the values in place, so new values are used straight away, and the
+	 * direction of the sweep alternates, since brawls carry gold both ways. A gold level whose
+	 * inputs haven't changed since it was last solved would come out the same, so it is skipped.
+	 */
+	private void solveTreasureSet(int treasures)
+	{
+		int levels = goldCap + 1;
+		Arrays.fill(solvedAt, -1);
+		Arrays.fill(changedAt, -1);
+		double change;
+		do
+		{
+			boolean descending = sweeps % 2 == 0;
+			change = 0;
+			for (int step = 0; step < levels; step++)
+			{
+				int gold = descending ? levels - 1 - step : step;
+				if (!inputsChanged(gold))
+				{
+					continue;
+				}
+				double levelChange = solveGoldLevel(treasures, gold);
+				solvedAt[gold] = levelsSolved;
+				if (levelChange > TOLERANCE)
+				{
+					changedAt[gold] = levelsSolved;
+				}
+				levelsSolved++;
+				change = Math.max(change, levelChange);
+			}
+			sweeps++;
+		}
+		while (change > TOLERANCE && sweeps < MAX_SWEEPS);
+	}
+
+	/**
+	 * Tells whether solving a gold level again could change it: true if it has never been solved,
+	 * or if a gold level it reads (through buying, selling or brawling) changed by more than the
+	 * tolerance since. Moving on keeps the gold, and a level is always solved as a whole, so a level
+	 * never depends on its own old values.
+	 */
+	private boolean inputsChanged(int gold)
+	{
+		if (solvedAt[gold] < 0)
+		{
+			return true;
+		}
+		if (gold > 0)
+		{
+			for (int diff = 1; diff <= 10; diff++)
+			{
+				if ((gold - diff > 0 && changedSince(gold - diff, gold))
+					|| changedSince(Math.min(goldCap, gold + brawlGain[diff]), gold))
+				{
+					return true;
+				}
+			}
+		}
+		for (int item = 0; item < OptimalPolicy.SHOP_ITEMS; item++)
+		{
+			int price = buyPrices[item];
+			if ((price != 0 && gold >= price && changedSince(gold - price, gold))
+				|| (sellPrices[item] > 0 && changedSince(Math.min(goldCap, gold + sellPrices[item]), gold)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if a gold level that another one reads has changed since that one was last solved.
+	 */
+	private boolean changedSince(int input, int gold)
+	{
+		return input != gold && changedAt[input] > solvedAt[gold];
+	}
+
+	/**
+	 * Fills in a set of treasures from an already solved set with the same number of treasures,
+	 * by swapping which treasure each town holds.
+	 */
+	private void copyTreasureSet(int from, int to)
+	{
+		// find the swap of treasure types that turns one set into the other
+		int[] swap = null;
+		for (int[] permutation : PERMUTATIONS)
+		{
+			int mapped = 0;
+			for (int type = 0; type < 3; type++)
+			{
+				if ((from & (1 << type)) != 0)
+				{
+					mapped |= 1 << permutation[type];
+				}
+			}
+			if (mapped == to)
+			{
+				swap = permutation;
+				break;
+			}
+		}
+
+		int setSize = treasureSetSize();
+		for (int offset = 0; offset < setSize; offset += OptimalPolicy.TOWNS)
+		{
+			for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+			{
+				int type = OptimalPolicy.treasureTypeOf(town);
+				int swapped = town + 2 * (swap[type] - type);
+				values[to * setSize + offset + swapped] = values[from * setSize + offset + town];
+				actions[to * setSize + offset + swapped] = actions[from * setSize + offset + town];
+			}
+		}
+	}
+
+	/**
+	 * Solves every state with the given treasures and gold, taking the other gold levels as they are.<p>
+	 * Moving on is the only move that stays at the same gold, and it can only lose items, so the
+	 * kits are solved from fewest items up; for each kit, the chance of winning after arriving in
+	 * a new town is then found exactly (see solveArrival).
+	 * @return The biggest change in any state's win probability.
+	 */
+	private double solveGoldLevel(int treasures, int gold)
+	{
+		int base = treasures * treasureSetSize();
+		double[] arrival = new double[OptimalPolicy.SHOP_KITS];
+		double[] stay = new double[OptimalPolicy.TOWNS];
+		byte[] stayAction = new byte[OptimalPolicy.TOWNS];
+
+		double change = 0;
+		for (int shopKit = 0; shopKit < OptimalPolicy.SHOP_KITS; shopKit++)
+		{
+			int first = base + gold * GOLD_STRIDE + shopKit * OptimalPolicy.TOWNS;
+			for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+			{
+				bestStayingMove(treasures, gold, shopKit, town, stay, stayAction);
+			}
+
+			arrival[shopKit] = solveArrival(shopKit, stay, arrival);
+			for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+			{
+				double best = stay[town];
+				byte bestAction = stayAction[town];
+				double move = moveValue(shopKit, town, arrival);
+				if (move >= 0 && move > best - ACTION_SLACK && (move > best + ACTION_SLACK || bestAction != OptimalPolicy.HUNT))
+				{
+					bestAction = OptimalPolicy.MOVE;
+				}
+				best = Math.max(best, move);
+
+				int index = first + town;
+				change = Math.max(change, Math.abs(best - values[index]));
+				values[index] = best;
+				actions[index] = bestAction;
+			}
+		}
+		return change;
+	}
+
+	/**
+	 * @return The chance of winning by moving on, given the arrival values, or -1 if the hunter can't leave.
+	 */
+	private double moveValue(int shopKit, int town, double[] arrival)
+	{
+		// the item needed to leave breaks half the time
+		int needed = 1 << neededItem[OptimalPolicy.terrainOf(town)];
+		if ((shopKit & needed) == 0)
+		{
+			return -1;
+		}
+		return 0.5 * arrival[shopKit & ~needed] + 0.5 * arrival[shopKit];
+	}
+
+	/**
+	 * Finds the chance of winning right after arriving in a new town with the given kit.<p>
+	 * That chance depends on itself, since from the new town the hunter may move on again with
+	 * the same kit. For a fixed choice of which towns to leave straight away it is the solution of
+	 * one linear equation; the choice is improved until it stops changing (policy iteration),
+	 * which takes a couple of rounds.
+	 *
+	 * @param stay The best win probability in each town without moving on.
+	 * @param arrival The arrival values of the kits with fewer items, already solved.
+	 */
+	private double solveArrival(int shopKit, double[] stay, double[] arrival)
+	{
+		boolean[] leaving = new boolean[OptimalPolicy.TOWNS];
+		double result = 0;
+		for (int round = 0; round <= OptimalPolicy.TOWNS; round++)
+		{
+			double constant = 0;
+			double selfWeight = 0;
+			for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+			{
+				if (leaving[town])
+				{
+					int needed = 1 << neededItem[OptimalPolicy.terrainOf(town)];
+					constant += townChances[town] * 0.5 * arrival[shopKit & ~needed];
+					selfWeight += townChances[town] * 0.5;
+				}
+				else
+				{
+					constant += townChances[town] * stay[town];
+				}
+			}
+			result = constant / (1 - selfWeight);
+
+			arrival[shopKit] = result;
+			boolean changed = false;
+			for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+			{
+				boolean leave = moveValue(shopKit, town, arrival) > stay[town];
+				if (leave != leaving[town])
+				{
+					leaving[town] = leave;
+					changed = true;
+				}
+			}
+			if (!changed)
+			{
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the best move in a town other than moving on, storing its win probability and action code.<p>
+	 * Moves are considered from the most to the least useful for getting anywhere: hunting, buying,
+	 * looking for trouble, selling. A later move is only chosen if it is clearly better, since with
+	 * plenty of gold many moves are all but equally good, and a bot that kept picking whichever
+	 * was better by a rounding error could brawl or trade back and forth forever.
+	 */
+	private void bestStayingMove(int treasures, int gold, int shopKit, int town, double[] stay, byte[] stayAction)
+	{
+		int setSize = treasureSetSize();
+		int base = treasures * setSize;
+		int offset = gold * GOLD_STRIDE + shopKit * OptimalPolicy.TOWNS;
+		double best = 0;
+		byte bestAction = OptimalPolicy.QUIT;
+
+		// hunting until the treasure turns up
+		int treasureBit = 1 << OptimalPolicy.treasureTypeOf(town);
+		if ((treasures & treasureBit) == 0)
+		{
+			double value = values[(treasures | treasureBit) * setSize + offset + town];
+			if (value > 0)
+			{
+				best = value;
+				bestAction = OptimalPolicy.HUNT;
+			}
+		}
+
+		for (int item = 0; item < OptimalPolicy.SHOP_ITEMS; item++)
+		{
+			int bit = 1 << item;
+			int price = buyPrices[item];
+			if ((shopKit & bit) == 0 && price != 0 && gold >= price)
+			{
+				double value = values[base + (gold - price) * GOLD_STRIDE + (shopKit | bit) * OptimalPolicy.TOWNS + town];
+				if (value > best + ACTION_SLACK || (value > best && bestAction == OptimalPolicy.QUIT))
+				{
+					bestAction = (byte)(OptimalPolicy.BUY + item);
+				}
+				best = Math.max(best, value);
+			}
+		}
+
+		// looking for trouble until a brawl happens; with no gold, even finding none is bankruptcy
+		if (gold > 0)
+		{
+			int state = base + shopKit * OptimalPolicy.TOWNS + town;
+			double total = 0;
+			double selfWeight = 0;
+			for (int diff = 1; diff <= 10; diff++)
+			{
+				int won = Math.min(goldCap, gold + brawlGain[diff]);
+				if (won == gold)
+				{
+					// at the gold cap, winning changes nothing
+					selfWeight += winWeight;
+				}
+				else
+				{
+					total += winWeight * values[state + won * GOLD_STRIDE];
+				}
+				if (gold - diff > 0)
+				{
+					total += loseWeight * values[state + (gold - diff) * GOLD_STRIDE];
+				}
+			}
+			if (selfWeight < 1)
+			{
+				double value = total / (1 - selfWeight);
+				if (value > best + ACTION_SLACK || (value > best && bestAction == OptimalPolicy.QUIT))
+				{
+					bestAction = OptimalPolicy.LOOK;
+				}
+				best = Math.max(best, value);
+			}
+		}
+
+		for (int item = 0; item < OptimalPolicy.SHOP_ITEMS; item++)
+		{
+			int bit = 1 << item;
+			if ((shopKit & bit) != 0 && sellPrices[item] > 0)
+			{
+				// at the gold cap a sale leaves the gold where it is, and the smaller kit was just solved
+				int newGold = Math.min(goldCap, gold + sellPrices[item]);
+				double value = values[base + newGold * GOLD_STRIDE + (shopKit & ~bit) * OptimalPolicy.TOWNS + town];
+				if (value > best + ACTION_SLACK || (value > best && bestAction == OptimalPolicy.QUIT))
+				{
+					bestAction = (byte)(OptimalPolicy.SELL + item);
+				}
+				best = Math.max(best, value);
+			}
+		}
+
+		stay[town] = best;
+		stayAction[town] = bestAction;
+	}
+
+	/**
+	 * Shows the best first move in each kind of first town.
+	 */
+	private static String openingMoves(OptimalPolicy policy)
+	{
+		StringBuilder report = new StringBuilder("  opening move (calm / tough town):\n");
+		Difficulty difficulty = policy.getDifficulty();
+		for (int t = 0; t < Terrain.count(); t++)
+		{
+			Terrain terrain = Terrain.fromIndex(t);
+			report.append(String.format("    %-10s %-14s / %s%n", terrain.getTerrainName() + ":",
+				policy.getCommand(difficulty.getStartingGold(), 0, terrain, Item.GOLD_THING, false),
+				policy.getCommand(difficulty.getStartingGold(), 0, terrain, Item.GOLD_THING, true)));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Writes every state that hasn't already been won, with its win probability and best move, as CSV.
+	 */
+	private static void dump(OptimalPolicy policy, String file) throws IOException
+	{
+		try (BufferedWriter out = Files.newBufferedWriter(Paths.get(file)))
+		{
+			out.write("gold,kit,terrain,treasure,tough,win_probability,action\n");
+			for (int gold = 0; gold <= policy.getGoldCap(); gold++)
+			{
+				for (int kit = 0; kit < OptimalPolicy.ALL_TREASURES << OptimalPolicy.SHOP_ITEMS; kit++)
+				{
+					for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+					{
+						Terrain terrain = Terrain.fromIndex(OptimalPolicy.terrainOf(town));
+						Item treasure = Item.fromOrdinal(Item.GOLD_THING.ordinal() + OptimalPolicy.treasureTypeOf(town));
+						boolean tough = OptimalPolicy.isTough(town);
+						out.write(gold + "," + kit + "," + terrain.getTerrainName() + "," + treasure + "," + tough + ","
+							+ policy.getWinProbability(gold, kit, terrain, treasure, tough) + ","
+							+ policy.getCommand(gold, kit, terrain, treasure, tough) + "\n");
+					}
+				}
+			}
+		}
+	}
+}
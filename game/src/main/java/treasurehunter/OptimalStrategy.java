@@ -0,0 +1,23 @@
+package treasurehunter;
+
+/**
+ * A bot that always makes the move an OptimalPolicy says wins most often.<p>
+ * Its win rate over many games should match the policy's best possible win rate, which makes it
+ * a check on the solver as much as a bot.
+ */
+public class OptimalStrategy implements Strategy
+{
+	//instance variables
+	private OptimalPolicy policy;
+
+	//Constructor
+	public OptimalStrategy(OptimalPolicy policy)
+	{
+		this.policy = policy;
+	}
+
+	public String nextAction(Hunter hunter, Town town)
+	{
+		return policy.getCommand(hunter, town);
+	}
+}
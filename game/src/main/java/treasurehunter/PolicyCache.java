@@ -0,0 +1,165 @@
+package treasurehunter;
+
+/**
+ * Keeps solved optimal policies on disk, so a policy is only solved once per machine rather than
+ * once per run of the simulators.<p>
+ * Each difficulty and gold cap gets its own file. The file starts with everything the solver's
+ * result depends on, and a file whose header doesn't match what is asked for, or that can't be
+ * read, is simply solved again and replaced. Format (big-endian, as written by DataOutputStream):
+ * <pre>
+ *   int    magic "THPC"
+ *   short  format version
+ *   UTF    difficulty code
+ *   double markdown, toughness, priceMod, brawlWinChance, brawlGoldExtra
+ *   int    starting gold
+ *   bool   difficulty cheats
+ *   int    buy and sell price of each shop item
+ *   int    gold cap
+ *   double win probability of every state, in OptimalPolicy index order
+ *   byte   action code of every state
+ * </pre>
+ * The version must go up whenever the solver's answers change.
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+public class PolicyCache
+{
+	// "THPC", so a file that isn't a cached policy is turned away right at the start
+	private static final int MAGIC = 0x54485043;
+	public static final short VERSION = 1;
+
+	public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "treasurehunter-policies");
+
+	//instance variables
+	private final Path directory;
+
+	//Constructor
+	public PolicyCache(Path directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * Loads a policy from the cache, or solves it and stores it there if it isn't cached yet.<p>
+	 * A cache that can't be written to only costs the time to solve the policy again next time.
+	 *
+	 * @param difficulty The difficulty.
+	 * @param goldCap The most gold a hunter is counted as having.
+	 * @return The optimal policy.
+	 */
+	public OptimalPolicy get(Difficulty difficulty, int goldCap)
+	{
+		Path file = directory.resolve("policy-" + difficulty.getCode() + "-" + goldCap + ".bin");
+		OptimalPolicy policy = load(file, difficulty, goldCap);
+		if (policy == null)
+		{
+			policy = OptimalPolicySolver.solve(difficulty, goldCap);
+			try
+			{
+				save(file, policy);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Couldn't cache the optimal policy in " + file + ": " + e);
+			}
+		}
+		return policy;
+	}
+
+	/**
+	 * @return The cached policy, or null if there isn't one for exactly this difficulty and gold cap.
+	 */
+	private static OptimalPolicy load(Path file, Difficulty difficulty, int goldCap)
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536)))
+		{
+			if (in.readInt() != MAGIC || in.readShort() != VERSION || !readKey(in, difficulty, goldCap))
+			{
+				return null;
+			}
+			return OptimalPolicy.readStates(in, difficulty, goldCap);
+		}
+		catch (NoSuchFileException e)
+		{
+			return null;
+		}
+		catch (IOException e)
+		{
+			System.err.println("Ignoring unreadable cached policy " + file + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a policy through a temporary file, so a crash or a second process writing the same
+	 * policy never leaves half a file behind.
+	 */
+	private void save(Path file, OptimalPolicy policy) throws IOException
+	{
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try
+		{
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 65536)))
+			{
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+				writeKey(out, policy.getDifficulty(), policy.getGoldCap());
+				policy.writeStates(out);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static void writeKey(DataOutputStream out, Difficulty difficulty, int goldCap) throws IOException
+	{
+		out.writeUTF(difficulty.getCode());
+		out.writeDouble(difficulty.getMarkdown());
+		out.writeDouble(difficulty.getToughness());
+		out.writeDouble(difficulty.getPriceMod());
+		out.writeDouble(difficulty.getBrawlWinChance());
+		out.writeDouble(difficulty.getBrawlGoldExtra());
+		out.writeInt(difficulty.getStartingGold());
+		out.writeBoolean(difficulty.isCheating());
+		for (int i = 0; i < OptimalPolicy.SHOP_ITEMS; i++)
+		{
+			out.writeInt(difficulty.getPrices().getBuyPrice(Item.fromOrdinal(i)));
+			out.writeInt(difficulty.getPrices().getSellPrice(Item.fromOrdinal(i)));
+		}
+		out.writeInt(goldCap);
+	}
+
+	/**
+	 * @return true if the key read matches the difficulty and gold cap.
+	 */
+	private static boolean readKey(DataInputStream in, Difficulty difficulty, int goldCap) throws IOException
+	{
+		boolean matches = in.readUTF().equals(difficulty.getCode())
+			& in.readDouble() == difficulty.getMarkdown()
+			& in.readDouble() == difficulty.getToughness()
+			& in.readDouble() == difficulty.getPriceMod()
+			& in.readDouble() == difficulty.getBrawlWinChance()
+			& in.readDouble() == difficulty.getBrawlGoldExtra()
+			& in.readInt() == difficulty.getStartingGold()
+			& in.readBoolean() == difficulty.isCheating();
+		for (int i = 0; i < OptimalPolicy.SHOP_ITEMS; i++)
+		{
+			matches &= in.readInt() == difficulty.getPrices().getBuyPrice(Item.fromOrdinal(i));
+			matches &= in.readInt() == difficulty.getPrices().getSellPrice(Item.fromOrdinal(i));
+		}
+		return matches & in.readInt() == goldCap;
+	}
+}
@@ -0,0 +1,157 @@
+package treasurehunter;
+
+/**
+ * The buy and sell prices of every item for one set of shop rules.<p>
+ * Prices are worked out once, when the table is made, and kept in arrays indexed by Item ordinal,
+ * so a lookup is a single array read. A table never changes after it is made, so one table is
+ * shared by every shop in every game that plays by the same rules; prices that move, e.g. with a
+ * MarketEngine, are the table's prices times a multiplier, worked out when they are looked up.
+ */
+public final class PriceTable
+{
+	// base costs of the shop items, before the price modifier
+	public static final int WATER_COST = 2;
+	public static final int ROPE_COST = 4;
+	public static final int MACHETE_COST = 6;
+	public static final int LANTERN_COST = 10;
+	public static final int HORSE_COST = 12;
+	public static final int BOAT_COST = 20;
+
+	//instance variables
+	private final int[] buyPrices;
+	private final int[] sellPrices;
+	private final String listing;
+
+	//Constructor
+	/**
+	 * Builds a table from the base costs using the same rounding the shop always has:
+	 * the buy price is the base cost times the price modifier, and the sell price is the buy price
+	 * times the markdown, each rounded down.
+	 *
+	 * @param baseCosts The base cost of each item, indexed by Item ordinal; 0 means the shop doesn't deal in it.
+	 * @param priceMod Multiplier applied to the base costs.
+	 * @param markdown Fraction of the buy price paid when the shop buys an item back.
+	 */
+	public PriceTable(int[] baseCosts, double priceMod, double markdown)
+	{
+		buyPrices = new int[Item.count()];
+		sellPrices = new int[Item.count()];
+		for (int i = 0; i < buyPrices.length; i++)
+		{
+			buyPrices[i] = (int)(baseCosts[i] * priceMod);
+			sellPrices[i] = (int)(buyPrices[i] * markdown);
+		}
+		listing = buildListing(null);
+	}
+
+	/**
+	 * Builds a table where every item the shop deals in is bought and sold for the same price.
+	 *
+	 * @param price The price of every shop item.
+	 */
+	public static PriceTable flat(int price)
+	{
+		int[] costs = defaultCosts();
+		for (int i = 0; i < costs.length; i++)
+		{
+			if (costs[i] != 0)
+			{
+				costs[i] = price;
+			}
+		}
+		return new PriceTable(costs, 1, 1);
+	}
+
+	/**
+	 * @return A fresh copy of the standard base costs, indexed by Item ordinal.
+	 */
+	public static int[] defaultCosts()
+	{
+		int[] costs = new int[Item.count()];
+		costs[Item.WATER.ordinal()] = WATER_COST;
+		costs[Item.ROPE.ordinal()] = ROPE_COST;
+		costs[Item.MACHETE.ordinal()] = MACHETE_COST;
+		costs[Item.LANTERN.ordinal()] = LANTERN_COST;
+		costs[Item.HORSE.ordinal()] = HORSE_COST;
+		costs[Item.BOAT.ordinal()] = BOAT_COST;
+		return costs;
+	}
+
+	/**
+	 * @return What the shop charges for the item, or 0 if it doesn't sell it.
+	 */
+	public int getBuyPrice(Item item)
+	{
+		return buyPrices[item.ordinal()];
+	}
+
+	/**
+	 * @return What the shop pays for the item, or 0 if it doesn't buy it.
+	 */
+	public int getSellPrice(Item item)
+	{
+		return sellPrices[item.ordinal()];
+	}
+
+	/**
+	 * What the shop charges for an item whose price has moved.
+	 * An item the shop deals in never becomes free.
+	 *
+	 * @param multiplier What the item's price is multiplied by.
+	 * @return The price, or 0 if the shop doesn't sell the item.
+	 */
+	public int getBuyPrice(Item item, double multiplier)
+	{
+		int price = buyPrices[item.ordinal()];
+		return price == 0 ? 0 : Math.max(1, (int)Math.round(price * multiplier));
+	}
+
+	/**
+	 * What the shop pays for an item whose price has moved.
+	 * An item is never bought back for more than it sells for.
+	 *
+	 * @param multiplier What the item's price is multiplied by.
+	 * @return The price, or 0 if the shop doesn't buy the item.
+	 */
+	public int getSellPrice(Item item, double multiplier)
+	{
+		if (buyPrices[item.ordinal()] == 0)
+		{
+			return sellPrices[item.ordinal()];
+		}
+		return Math.min(getBuyPrice(item, multiplier), (int)Math.round(sellPrices[item.ordinal()] * multiplier));
+	}
+
+	/**
+	 * @return The printable list of the items for sale and their prices.
+	 */
+	public String getListing()
+	{
+		return listing;
+	}
+
+	/**
+	 * @param multipliers What each item's price is multiplied by, indexed by Item ordinal.
+	 * @return The printable list of the items for sale and their moved prices.
+	 */
+	public String getListing(double[] multipliers)
+	{
+		return buildListing(multipliers);
+	}
+
+	private String buildListing(double[] multipliers)
+	{
+		String str = "(W)ater: " + listedPrice(Item.WATER, multipliers) + " gold\n";
+		str += "(R)ope: " + listedPrice(Item.ROPE, multipliers) + " gold\n";
+		str += "(M)achete: " + listedPrice(Item.MACHETE, multipliers) + " gold\n";
+		str += "(L)antern: " + listedPrice(Item.LANTERN, multipliers) + " gold\n";
+		str += "(H)orse: " + listedPrice(Item.HORSE, multipliers) + " gold\n";
+		str += "(B)oat: " + listedPrice(Item.BOAT, multipliers) + " gold\n";
+		return str;
+	}
+
+	private int listedPrice(Item item, double[] multipliers)
+	{
+		return multipliers == null ? getBuyPrice(item) : getBuyPrice(item, multipliers[item.ordinal()]);
+	}
+}
@@ -0,0 +1,191 @@
+package treasurehunter;
+
+/**
+ * An endless World, worked out from a seed instead of stored.<p>
+ * Towns sit on an infinite grid, each with roads to the towns north, south, east and west. A town's
+ * terrain, treasure and toughness are rolled from the world seed and its coordinates alone, so the
+ * same town always comes out the same, however many times it is generated. Towns are materialized
+ * when asked for and kept in a small least-recently-used cache; a town pushed out of the cache is
+ * simply rolled again the next time it is needed.<p>
+ * The only thing a player can change about a town is finding its treasure, so that is all that is
+ * stored: the ids of the towns whose treasure is gone. However far a hunter travels, the world
+ * takes the cache plus one entry per treasure found.<p>
+ * A town's id packs its coordinates as (x &lt;&lt; 32) | y; coordinates wrap around after about
+ * two billion towns in any direction. A ProceduralWorld is not safe to use from several threads at once.<p>
+ * Usage: java treasurehunter.ProceduralWorld [--steps N] [--cache N] [--seed N]
+ */
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ProceduralWorld implements World
+{
+	public static final int DEFAULT_CACHE_SIZE = 4096;
+
+	/**
+	 * The rolled, unchanging part of one town.
+	 */
+	private static final class Place
+	{
+		final Terrain terrain;
+		final Item treasure;
+		final boolean tough;
+
+		Place(Terrain terrain, Item treasure, boolean tough)
+		{
+			this.terrain = terrain;
+			this.treasure = treasure;
+			this.tough = tough;
+		}
+	}
+
+	//instance variables
+	private final GameRandom seeds;
+	private final double toughness;
+	private final LinkedHashMap<Long, Place> cache;
+	private final HashSet<Long> found;
+
+	//Constructor
+	/**
+	 * @param seed The world seed; the same seed always makes the same world.
+	 * @param toughness The chance of a town being tough, as in Difficulty.
+	 * @param cacheSize The most towns kept materialized at once.
+	 */
+	public ProceduralWorld(long seed, double toughness, int cacheSize)
+	{
+		this.seeds = new GameRandom(seed);
+		this.toughness = toughness;
+		this.found = new HashSet<Long>();
+
+		// in access order, so the eldest entry is the least recently used one
+		this.cache = new LinkedHashMap<Long, Place>(cacheSize * 2, 0.75f, true)
+		{
+			protected boolean removeEldestEntry(Map.Entry<Long, Place> eldest)
+			{
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	public static void main(String[] args)
+	{
+		int steps = 10000000;
+		int cacheSize = DEFAULT_CACHE_SIZE;
+		long seed = 1;
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--steps")) {
+				steps = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--cache")) {
+				cacheSize = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		// a hunter who mostly heads east, looking at every town and finding a treasure every thousand towns
+		ProceduralWorld world = new ProceduralWorld(seed, Difficulty.NORMAL.getToughness(), cacheSize);
+		GameRandom walk = new GameRandom(seed + 1);
+		long town = world.getStartTown();
+		long start = System.nanoTime();
+		for (int step = 1; step <= steps; step++)
+		{
+			int road = walk.nextDouble() < 0.4 ? 1 : walk.nextInt(world.getNeighborCount(town));
+			town = world.getNeighbor(town, road);
+			world.getTerrain(town);
+			if (walk.nextDouble() < 0.001)
+			{
+				world.setTreasureFound(town);
+			}
+
+			if (step % (steps / 5) == 0)
+			{
+				Runtime runtime = Runtime.getRuntime();
+				System.gc();
+				System.out.println(String.format("%,d steps, at (%d, %d): %d towns cached, %,d treasures found, %.1f MB heap used",
+					step, getX(town), getY(town), world.getCachedTownCount(), world.getFoundCount(),
+					(runtime.totalMemory() - runtime.freeMemory()) / 1e6));
+			}
+		}
+		System.out.println(String.format("%.0f ns per step", (System.nanoTime() - start) / (double)steps));
+	}
+
+	/**
+	 * @return The id of the town at the given coordinates.
+	 */
+	public static long townAt(int x, int y)
+	{
+		return ((long)x << 32) | (y & 0xffffffffL);
+	}
+
+	public static int getX(long town) { return (int)(town >> 32); }
+	public static int getY(long town) { return (int)town; }
+
+	/**
+	 * @return The number of towns currently materialized.
+	 */
+	public int getCachedTownCount() { return cache.size(); }
+
+	/**
+	 * @return The number of towns whose treasure has been found.
+	 */
+	public int getFoundCount() { return found.size(); }
+
+	// World methods
+	public long getStartTown() { return townAt(0, 0); }
+	public Terrain getTerrain(long town) { return place(town).terrain; }
+	public Item getTreasure(long town) { return place(town).treasure; }
+	public boolean isToughTown(long town) { return place(town).tough; }
+	public boolean isTreasureFound(long town) { return found.contains(town); }
+	public void setTreasureFound(long town) { found.add(town); }
+	public int getNeighborCount(long town) { return 4; }
+
+	public long getNeighbor(long town, int index)
+	{
+		int x = getX(town);
+		int y = getY(town);
+		switch (index)
+		{
+			case 0: return townAt(x, y - 1);
+			case 1: return townAt(x + 1, y);
+			case 2: return townAt(x, y + 1);
+			case 3: return townAt(x - 1, y);
+			default: throw new IndexOutOfBoundsException("A town has 4 roads, not " + (index + 1));
+		}
+	}
+
+	public int getDistanceLowerBound(long from, long to)
+	{
+		long distance = Math.abs((long)getX(from) - getX(to)) + Math.abs((long)getY(from) - getY(to));
+		return (int)Math.min(Integer.MAX_VALUE, distance);
+	}
+
+	/**
+	 * @return The town, from the cache or newly rolled.
+	 */
+	private Place place(long town)
+	{
+		Place place = cache.get(town);
+		if (place == null)
+		{
+			place = roll(town);
+			cache.put(town, place);
+		}
+		return place;
+	}
+
+	/**
+	 * Rolls a town the same way Town.regenerate() does, from the town's own stream of the world seed.
+	 */
+	private Place roll(long town)
+	{
+		GameRandom random = seeds.fork(town);
+		Terrain terrain = Terrain.fromIndex((int)(random.nextDouble() * Terrain.count()));
+		Item treasure = Item.fromOrdinal(Item.GOLD_THING.ordinal() + (int)(random.nextDouble() * 3));
+		boolean tough = random.nextDouble() < toughness;
+		return new Place(terrain, treasure, tough);
+	}
+}
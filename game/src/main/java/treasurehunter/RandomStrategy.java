@@ -0,0 +1,32 @@
+package treasurehunter;
+
+/**
+ * A bot that picks every move at random, including what to buy and sell.<p>
+ * Useful as a baseline: any real strategy should beat it.
+ */
+public class RandomStrategy implements Strategy
+{
+	// moves the bot chooses between; quitting is left out on purpose
+	private static final String[] MOVES = { "b", "s", "m", "l", "h" };
+
+	//instance variables
+	private GameRandom random;
+
+	//Constructor
+	public RandomStrategy(GameRandom random)
+	{
+		this.random = random;
+	}
+
+	public String nextAction(Hunter hunter, Town town)
+	{
+		String move = MOVES[random.nextInt(MOVES.length)];
+		if (move.equals("b") || move.equals("s"))
+		{
+			// only the first six items are sold in the shop
+			Item item = Item.fromOrdinal(random.nextInt(Item.BOAT.ordinal() + 1));
+			return move + " " + item.getName() + " y";
+		}
+		return move;
+	}
+}
@@ -0,0 +1,510 @@
+package treasurehunter;
+
+/**
+ * Finds the cheapest way across a World, taking the hunter's kit into account.<p>
+ * Leaving a town means crossing its terrain with the right item. An item the hunter already has
+ * costs nothing to use, but it may break on the way; an item they don't have can be bought in the
+ * shop of the town they are leaving, since every town has one. So a route's cost is in gold: each
+ * road costs a fixed hop cost, plus the item's price if it has to be bought, plus the chance of it
+ * breaking times its price, for replacing it later. That last part is an expectation, so the planner
+ * keeps the item in the kit after using it, as it is on average worth that much less.<p>
+ * The search is A* over (town, shop items owned), with the number of roads left times the cheapest
+ * possible crossing as its estimate, so it never overestimates and always finds the cheapest route.
+ * Its state lives in flat primitive arrays that are reused from one query to the next, and only
+ * the states a query touches are ever looked at, so a query on a world of millions of towns
+ * takes milliseconds. A planner is not safe to use from several threads at once.<p>
+ * Usage: java treasurehunter.RoutePlanner [--size N] [--queries N] [--distance N] [--seed N]
+ */
+import java.util.Arrays;
+
+public class RoutePlanner
+{
+	private static final int SHOP_ITEMS = Item.SHOP_ITEM_COUNT;
+	private static final int SHOP_KITS = OptimalPolicy.SHOP_KITS;
+	private static final int INITIAL_CAPACITY = 1 << 12;
+	private static final long NONE = -1;
+
+	/**
+	 * A planned route: the towns passed through, in order, and what to buy along the way.
+	 */
+	public static class Route
+	{
+		private final long[] towns;
+		private final Item[] purchases;
+		private final double expectedGold;
+
+		Route(long[] towns, Item[] purchases, double expectedGold)
+		{
+			this.towns = towns;
+			this.purchases = purchases;
+			this.expectedGold = expectedGold;
+		}
+
+		/**
+		 * @return The towns on the route, from the start to the destination.
+		 */
+		public long[] getTowns() { return towns.clone(); }
+
+		/**
+		 * @return The number of roads travelled.
+		 */
+		public int getHops() { return towns.length - 1; }
+
+		/**
+		 * @param hop Which road, from 0.
+		 * @return The item to buy before leaving by that road, or null if the hunter will already have it.
+		 */
+		public Item getPurchase(int hop) { return purchases[hop]; }
+
+		/**
+		 * @return The town after the first road, or the start itself for a route of no roads.
+		 */
+		public long getFirstStep() { return towns[Math.min(1, towns.length - 1)]; }
+
+		/**
+		 * @return The expected cost of the route in gold, including the hop costs.
+		 */
+		public double getExpectedGold() { return expectedGold; }
+
+		public String toString()
+		{
+			StringBuilder text = new StringBuilder();
+			text.append(getHops()).append(" roads, about ").append(Math.round(expectedGold)).append(" gold: ");
+			for (int i = 0; i < towns.length; i++)
+			{
+				if (i > 0)
+				{
+					text.append(purchases[i - 1] != null ? " -(buy " + purchases[i - 1] + ")-> " : " -> ");
+				}
+				text.append(towns[i]);
+			}
+			return text.toString();
+		}
+	}
+
+	//instance variables
+	private final World world;
+	private final double hopCost;
+	private final double[] buyCost;
+	private final double[] breakCost;
+	private final double minCrossing;
+
+	// the search's states, in an open-addressing table keyed by town * SHOP_KITS + kit;
+	// a slot belongs to the current query only if its stamp matches
+	private long[] keys;
+	private double[] costs;
+	private int[] parents;
+	private boolean[] closed;
+	private int[] stamps;
+	private int stamp;
+	private int used;
+
+	// binary min-heap of slots, ordered by cost plus estimate
+	private int[] heap;
+	private double[] heapKeys;
+	private int heapSize;
+
+	//Constructor
+	/**
+	 * @param world The world to plan routes across.
+	 * @param prices What the shops charge for items.
+	 * @param breakChance The chance of an item breaking each time it is used.
+	 * @param hopCost What a road costs on top of any items, in gold; above 0 makes shorter routes win ties.
+	 */
+	public RoutePlanner(World world, PriceTable prices, double breakChance, double hopCost)
+	{
+		this.world = world;
+		this.hopCost = hopCost;
+		buyCost = new double[SHOP_ITEMS];
+		breakCost = new double[SHOP_ITEMS];
+		double cheapest = Double.MAX_VALUE;
+		for (int i = 0; i < SHOP_ITEMS; i++)
+		{
+			buyCost[i] = prices.getBuyPrice(Item.fromOrdinal(i));
+			breakCost[i] = breakChance * buyCost[i];
+			cheapest = Math.min(cheapest, breakCost[i]);
+		}
+		minCrossing = hopCost + cheapest;
+
+		allocate(INITIAL_CAPACITY);
+		heap = new int[INITIAL_CAPACITY];
+		heapKeys = new double[INITIAL_CAPACITY];
+		stamp = 0;
+	}
+
+	public static void main(String[] args)
+	{
+		int size = 1000;
+		int queries = 200;
+		int distance = 100;
+		long seed = 1;
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--size")) {
+				size = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--queries")) {
+				queries = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--distance")) {
+				distance = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		GameRandom random = new GameRandom(seed);
+		long start = System.nanoTime();
+		WorldGraph world = WorldGraph.grid(size, size, Difficulty.NORMAL.getToughness(), random);
+		System.out.println(String.format("Built a %dx%d world (%d towns) in %.0f ms",
+			size, size, world.size(), (System.nanoTime() - start) / 1e6));
+
+		RoutePlanner planner = new RoutePlanner(world, Difficulty.NORMAL.getPrices(), Town.ITEM_BREAK_CHANCE, 1);
+		long[] from = new long[queries];
+		long[] to = new long[queries];
+		long[] kits = new long[queries];
+		for (int q = 0; q < queries; q++)
+		{
+			int x = (int)(random.nextDouble() * (size - distance));
+			int y = (int)(random.nextDouble() * (size - distance));
+			int across = (int)(random.nextDouble() * (distance + 1));
+			from[q] = (long)y * size + x;
+			to[q] = (long)(y + distance - across) * size + x + across;
+			kits[q] = (long)(random.nextDouble() * SHOP_KITS);
+		}
+
+		// one untimed pass to warm up the JIT
+		for (int q = 0; q < queries; q++)
+		{
+			planner.findRoute(from[q], to[q], kits[q]);
+		}
+
+		start = System.nanoTime();
+		long hops = 0;
+		double worst = 0;
+		for (int q = 0; q < queries; q++)
+		{
+			long queryStart = System.nanoTime();
+			hops += planner.findRoute(from[q], to[q], kits[q]).getHops();
+			worst = Math.max(worst, (System.nanoTime() - queryStart) / 1e6);
+		}
+		double totalMs = (System.nanoTime() - start) / 1e6;
+		System.out.println(String.format("%d routes %d roads apart: %.2f ms per route (worst %.2f ms), %.1f roads on average",
+			queries, distance, totalMs / queries, worst, (double)hops / queries));
+
+		start = System.nanoTime();
+		for (int q = 0; q < queries; q++)
+		{
+			planner.findTreasure(from[q], kits[q]);
+		}
+		System.out.println(String.format("%d nearest treasure searches: %.3f ms each",
+			queries, (System.nanoTime() - start) / 1e6 / queries));
+	}
+
+	/**
+	 * Finds the cheapest route between two towns.
+	 *
+	 * @param from Where the hunter is.
+	 * @param to Where they want to go.
+	 * @param kit The hunter's kit, as an Item bitmask.
+	 * @return The route, or null if there is no way there.
+	 */
+	public Route findRoute(long from, long to, long kit)
+	{
+		return search(from, to, kit, 0);
+	}
+
+	/**
+	 * Finds the cheapest route to a town whose treasure is still there and isn't one the hunter already has.
+	 *
+	 * @param from Where the hunter is.
+	 * @param kit The hunter's kit, as an Item bitmask.
+	 * @return The route, or null if there is no treasure left that the hunter needs.
+	 */
+	public Route findTreasure(long from, long kit)
+	{
+		long wanted = ~kit & Item.TREASURE_MASK;
+		if (wanted == 0)
+		{
+			return null;
+		}
+		return search(from, NONE, kit, wanted);
+	}
+
+	/**
+	 * Runs A* to a given town, or Dijkstra to the nearest town with a wanted treasure if to is NONE.
+	 */
+	private Route search(long from, long to, long kit, long wantedTreasures)
+	{
+		startQuery();
+		int start = insert(from * SHOP_KITS + (kit & (SHOP_KITS - 1)));
+		costs[start] = 0;
+		parents[start] = -1;
+		push(start, estimate(from, to));
+
+		while (heapSize > 0)
+		{
+			int slot = pop();
+			if (closed[slot])
+			{
+				continue;
+			}
+			closed[slot] = true;
+
+			long town = keys[slot] / SHOP_KITS;
+			int shopKit = (int)(keys[slot] % SHOP_KITS);
+			if (town == to || (to == NONE && isWanted(town, wantedTreasures)))
+			{
+				return buildRoute(slot);
+			}
+
+			// every road out of a town crosses the same terrain, so the item decision is made once
+			int item = world.getTerrain(town).getNeededItem().ordinal();
+			double crossing = hopCost + breakCost[item];
+			int nextKit = shopKit;
+			if ((shopKit & (1 << item)) == 0)
+			{
+				crossing += buyCost[item];
+				nextKit |= 1 << item;
+			}
+
+			double cost = costs[slot] + crossing;
+			int roads = world.getNeighborCount(town);
+			for (int road = 0; road < roads; road++)
+			{
+				long next = world.getNeighbor(town, road);
+				int nextSlot = insert(next * SHOP_KITS + nextKit);
+				if (nextSlot < 0)
+				{
+					// the table grew, which moves every slot, so look this one up again
+					nextSlot = insert(next * SHOP_KITS + nextKit);
+					slot = find(town * SHOP_KITS + shopKit);
+				}
+				if (!closed[nextSlot] && cost < costs[nextSlot])
+				{
+					costs[nextSlot] = cost;
+					parents[nextSlot] = slot;
+					push(nextSlot, cost + estimate(next, to));
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isWanted(long town, long wantedTreasures)
+	{
+		return !world.isTreasureFound(town) && (world.getTreasure(town).getMask() & wantedTreasures) != 0;
+	}
+
+	/**
+	 * @return A lower bound on the cost of getting from one town to the other.
+	 */
+	private double estimate(long town, long to)
+	{
+		if (to == NONE)
+		{
+			return 0;
+		}
+		return world.getDistanceLowerBound(town, to) * minCrossing;
+	}
+
+	private Route buildRoute(int end)
+	{
+		int length = 0;
+		for (int slot = end; slot >= 0; slot = parents[slot])
+		{
+			length++;
+		}
+
+		long[] towns = new long[length];
+		Item[] purchases = new Item[length - 1];
+		int slot = end;
+		for (int i = length - 1; i >= 0; i--)
+		{
+			towns[i] = keys[slot] / SHOP_KITS;
+			int parent = parents[slot];
+			if (parent >= 0)
+			{
+				// a new bit in the kit means the item was bought before taking this road
+				long bought = (keys[slot] ^ keys[parent]) & (SHOP_KITS - 1);
+				purchases[i - 1] = bought == 0 ? null : Item.fromOrdinal(Long.numberOfTrailingZeros(bought));
+			}
+			slot = parent;
+		}
+		return new Route(towns, purchases, costs[end]);
+	}
+
+	// the state table
+
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		costs = new double[capacity];
+		parents = new int[capacity];
+		closed = new boolean[capacity];
+		stamps = new int[capacity];
+		used = 0;
+	}
+
+	private void startQuery()
+	{
+		// bumping the stamp empties the table without touching it
+		stamp++;
+		if (stamp == 0)
+		{
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+		used = 0;
+		heapSize = 0;
+	}
+
+	private static int hash(long key)
+	{
+		key *= 0x9E3779B97F4A7C15L;
+		return (int)(key ^ (key >>> 32));
+	}
+
+	/**
+	 * @return The key's slot, or -1 if it isn't in the table.
+	 */
+	private int find(long key)
+	{
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; stamps[slot] == stamp; slot = (slot + 1) & mask)
+		{
+			if (keys[slot] == key)
+			{
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the key's slot, adding it with an infinite cost if it's new.
+	 * @return The slot, or -1 if the table had to grow first, in which case every slot has moved.
+	 */
+	private int insert(long key)
+	{
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (stamps[slot] == stamp)
+		{
+			if (keys[slot] == key)
+			{
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// kept at most half full so probes stay short
+		if (used * 2 >= keys.length)
+		{
+			grow();
+			return -1;
+		}
+		stamps[slot] = stamp;
+		keys[slot] = key;
+		costs[slot] = Double.POSITIVE_INFINITY;
+		parents[slot] = -1;
+		closed[slot] = false;
+		used++;
+		return slot;
+	}
+
+	private void grow()
+	{
+		long[] oldKeys = keys;
+		double[] oldCosts = costs;
+		int[] oldParents = parents;
+		boolean[] oldClosed = closed;
+		int[] oldStamps = stamps;
+		int oldStamp = stamp;
+
+		allocate(oldKeys.length * 2);
+		stamp = 1;
+		int[] moved = new int[oldKeys.length];
+		for (int slot = 0; slot < oldKeys.length; slot++)
+		{
+			if (oldStamps[slot] == oldStamp)
+			{
+				int to = insert(oldKeys[slot]);
+				moved[slot] = to;
+				costs[to] = oldCosts[slot];
+				closed[to] = oldClosed[slot];
+			}
+		}
+		for (int slot = 0; slot < oldKeys.length; slot++)
+		{
+			if (oldStamps[slot] == oldStamp)
+			{
+				parents[moved[slot]] = oldParents[slot] < 0 ? -1 : moved[oldParents[slot]];
+			}
+		}
+
+		// stale heap entries are fixed up rather than dropped, so nothing open is lost
+		for (int i = 0; i < heapSize; i++)
+		{
+			heap[i] = moved[heap[i]];
+		}
+	}
+
+	// the heap
+
+	private void push(int slot, double key)
+	{
+		if (heapSize == heap.length)
+		{
+			heap = Arrays.copyOf(heap, heapSize * 2);
+			heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+		}
+
+		int i = heapSize++;
+		while (i > 0)
+		{
+			int parent = (i - 1) >>> 1;
+			if (heapKeys[parent] <= key)
+			{
+				break;
+			}
+			heap[i] = heap[parent];
+			heapKeys[i] = heapKeys[parent];
+			i = parent;
+		}
+		heap[i] = slot;
+		heapKeys[i] = key;
+	}
+
+	private int pop()
+	{
+		int top = heap[0];
+		int slot = heap[--heapSize];
+		double key = heapKeys[heapSize];
+
+		int i = 0;
+		while (true)
+		{
+			int child = 2 * i + 1;
+			if (child >= heapSize)
+			{
+				break;
+			}
+			if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child])
+			{
+				child++;
+			}
+			if (key <= heapKeys[child])
+			{
+				break;
+			}
+			heap[i] = heap[child];
+			heapKeys[i] = heapKeys[child];
+			i = child;
+		}
+		heap[i] = slot;
+		heapKeys[i] = key;
+		return top;
+	}
+}
@@ -0,0 +1,98 @@
+package treasurehunter;
+
+/**
+ * GameIO implementation for running the game without a terminal.<p>
+ * Input comes from lines supplied by the caller, and output is either thrown away
+ * or collected in memory so it can be inspected afterwards.
+ */
+import java.util.ArrayDeque;
+
+public class ScriptedIO implements GameIO
+{
+	//instance variables
+	private ArrayDeque<String> input;
+	private StringBuilder output;
+
+	//Constructor
+	/**
+	 * @param captureOutput true to keep everything the game prints, false to discard it.
+	 * @param lines The input lines, in the order the game will read them.
+	 */
+	public ScriptedIO(boolean captureOutput, String... lines)
+	{
+		input = new ArrayDeque<String>();
+		for (String line : lines)
+		{
+			input.add(line);
+		}
+
+		if (captureOutput)
+		{
+			output = new StringBuilder();
+		}
+		else
+		{
+			output = null;
+		}
+	}
+
+	/**
+	 * Queues another line of input behind the ones already supplied.
+	 * @param line The line to add.
+	 */
+	public void addInput(String line)
+	{
+		input.add(line);
+	}
+
+	/**
+	 * @return Everything printed so far, or an empty String if output is being discarded.
+	 */
+	public String getOutput()
+	{
+		if (output == null)
+		{
+			return "";
+		}
+		return output.toString();
+	}
+
+	public String readLine()
+	{
+		return input.poll();
+	}
+
+	public void print(String text)
+	{
+		if (output != null)
+		{
+			output.append(text);
+		}
+	}
+
+	public void println(String text)
+	{
+		if (output != null)
+		{
+			output.append(text).append('\n');
+		}
+	}
+
+	public void println()
+	{
+		if (output != null)
+		{
+			output.append('\n');
+		}
+	}
+
+	public boolean isInteractive()
+	{
+		return false;
+	}
+
+	public boolean isOutputDiscarded()
+	{
+		return output == null;
+	}
+}
@@ -0,0 +1,151 @@
+package treasurehunter;
+
+/**
+ * A World that many hunters play at the same time, each in their own game on their own thread.<p>
+ * The towns themselves come from another world, which is only ever read and so must be safe to
+ * read from several threads (a WorldGraph is). What the players change is kept here, per town: how
+ * many of each item its shop has left, and whether its treasure has been claimed. Both are updated
+ * with compare-and-set, so hunters in the same town never wait on a lock and a treasure can only
+ * ever go to one of them, however many hunt for it at once.<p>
+ * A town's shared state is only created once a hunter needs it, so untouched towns cost nothing.
+ */
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class SharedWorld implements World
+{
+	/**
+	 * What the hunters have changed about one town.
+	 */
+	private static final class SharedTown
+	{
+		final AtomicIntegerArray stock;
+		final AtomicBoolean claimed;
+
+		SharedTown(int initialStock)
+		{
+			stock = new AtomicIntegerArray(Item.SHOP_ITEM_COUNT);
+			for (int i = 0; i < Item.SHOP_ITEM_COUNT; i++)
+			{
+				stock.set(i, initialStock);
+			}
+			claimed = new AtomicBoolean();
+		}
+	}
+
+	//instance variables
+	private final World base;
+	private final int initialStock;
+	private final ConcurrentHashMap<Long, SharedTown> towns;
+
+	//Constructor
+	/**
+	 * @param base The towns and roads; only read from now on.
+	 * @param initialStock How many of each item every shop starts with.
+	 */
+	public SharedWorld(World base, int initialStock)
+	{
+		this.base = base;
+		this.initialStock = initialStock;
+		this.towns = new ConcurrentHashMap<Long, SharedTown>();
+	}
+
+	//Accessors
+	public int getInitialStock() { return initialStock; }
+
+	/**
+	 * @return The number of towns any hunter has changed.
+	 */
+	public int getTouchedTownCount() { return towns.size(); }
+
+	// World methods
+	public long getStartTown() { return base.getStartTown(); }
+	public Terrain getTerrain(long town) { return base.getTerrain(town); }
+	public Item getTreasure(long town) { return base.getTreasure(town); }
+	public boolean isToughTown(long town) { return base.isToughTown(town); }
+	public int getNeighborCount(long town) { return base.getNeighborCount(town); }
+	public long getNeighbor(long town, int index) { return base.getNeighbor(town, index); }
+	public int getDistanceLowerBound(long from, long to) { return base.getDistanceLowerBound(from, to); }
+
+	public boolean isTreasureFound(long town)
+	{
+		SharedTown shared = towns.get(town);
+		return shared != null && shared.claimed.get();
+	}
+
+	public void setTreasureFound(long town)
+	{
+		shared(town).claimed.set(true);
+	}
+
+	public boolean claimTreasure(long town)
+	{
+		return shared(town).claimed.compareAndSet(false, true);
+	}
+
+	public boolean hasLimitedStock()
+	{
+		return true;
+	}
+
+	public boolean takeStock(long town, Item item)
+	{
+		if (!isShopItem(item))
+		{
+			return false;
+		}
+
+		AtomicIntegerArray stock = shared(town).stock;
+		int i = item.ordinal();
+		while (true)
+		{
+			int left = stock.get(i);
+			if (left == 0)
+			{
+				return false;
+			}
+			if (stock.compareAndSet(i, left, left - 1))
+			{
+				return true;
+			}
+		}
+	}
+
+	public void returnStock(long town, Item item)
+	{
+		if (isShopItem(item))
+		{
+			shared(town).stock.incrementAndGet(item.ordinal());
+		}
+	}
+
+	public int getStock(long town, Item item)
+	{
+		if (!isShopItem(item))
+		{
+			return 0;
+		}
+		SharedTown shared = towns.get(town);
+		return shared == null ? initialStock : shared.stock.get(item.ordinal());
+	}
+
+	private static boolean isShopItem(Item item)
+	{
+		return item != null && !item.isTreasure();
+	}
+
+	/**
+	 * @return The town's shared state, created the first time it's needed.
+	 */
+	private SharedTown shared(long town)
+	{
+		// the plain lookup doesn't lock anything, and almost always finds the town
+		SharedTown shared = towns.get(town);
+		if (shared == null)
+		{
+			shared = towns.computeIfAbsent(town, t -> new SharedTown(initialStock));
+		}
+		return shared;
+	}
+}
@@ -0,0 +1,353 @@
+package treasurehunter;
+
+/**
+ * The Shop class controls the cost of the items in the Treasure Hunt game.<p>
+ * The Shop class also acts as a go between for the Hunter's buyItem() method.<p>
+ * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
+ */
+public class Shop
+{
+	// instance variables
+	private PriceTable prices;
+	private Hunter customer;
+	private GameIO io;
+	private World world;
+	private long town;
+	private MarketEngine market;
+	private double[] listedMultipliers;
+	private String listing;
+	private long listedTown;
+	private long listedVersion;
+	private boolean latencyRecorded;
+
+	//Constructor
+	/**
+	 * @param io Where the shop talks to its customers.
+	 * @param prices The shop's prices, usually shared with every other shop on the same difficulty.
+	 */
+	public Shop(GameIO io, PriceTable prices)
+	{
+		this.io = io;
+		this.prices = prices;
+		customer = null;
+		world = null;
+		market = null;
+		listedMultipliers = null;
+		listing = null;
+		latencyRecorded = io.isLatencyRecorded();
+	}
+
+	//Accessors
+	public PriceTable getPrices() { return prices; }
+
+	/**
+	 * @param market Moves this shop's prices with supply and demand in world towns, or null for fixed prices.
+	 */
+	public void setMarket(MarketEngine market)
+	{
+		this.market = market;
+		listing = null;
+	}
+
+	/**
+	 * Moves the shop into one of a World's towns, whose stock it then sells from.
+	 * @param world The world, or null for a shop that never runs out.
+	 * @param town The town the shop is in.
+	 */
+	public void setLocation(World world, long town)
+	{
+		this.world = world;
+		this.town = town;
+	}
+
+	/** method for entering the shop
+	 * @param hunter  the Hunter entering the shop
+	 * @param buyOrSell  String that determines if hunter is "B"uying or "S"elling
+	 */
+	public void enter(Hunter hunter, String buyOrSell)
+	{
+		customer = hunter;
+
+		if (buyOrSell.equals("B") || buyOrSell.equals("b"))
+		{
+			io.println("Welcome to the shop! We have the finest wares in town.");
+			io.println("Currently we have the following items:");
+			io.println(inventory());
+			if (world != null && world.hasLimitedStock())
+			{
+				io.println(stockListing());
+			}
+			io.print("What're you lookin' to buy? ");
+			Item item = normalizeItemName(readInput());
+			int cost = checkMarketPrice(item, true);
+			if (cost == 0)
+			{
+				io.println("We ain't got none of those.");
+			}
+			else
+			{
+				io.print("It'll cost you " + cost + " gold. Buy it (y/n)? ");
+				String option = readInput();
+
+				if (option.equals("y") || option.equals("Y"))
+				{
+					buyItem(item, cost);
+				}
+			}
+		}
+		else
+		{
+			io.println("What're you lookin' to sell? ");
+			io.print("You currently have the following items: " + customer.getInventory());
+			Item item = normalizeItemName(readInput());
+			int cost = checkMarketPrice(item, false);
+			if (cost == 0)
+			{
+				io.println("We don't want none of those.");
+			}
+			else
+			{
+				io.print("It'll get you " + cost + " gold. Sell it (y/n)? ");
+				String option = readInput();
+
+				if (option.equals("y") || option.equals("Y"))
+				{
+					sellItem(item, cost);
+				}
+			}
+		}
+	}
+
+	/** Reads a line from the customer, treating running out of input as an empty answer
+	  * @return the line that was read
+	  */
+	private String readInput() {
+		String line = io.readLine();
+		if (line == null) {
+			return "";
+		}
+		return line;
+	}
+
+	/** Normalizes an item name (looks up the item the customer asked for)
+	  * @param itemName the inputted item name
+	  * @return the item, or null if the shop doesn't deal in anything by that name
+	  */
+	private Item normalizeItemName(String itemName) {
+		return Item.fromShopInput(itemName);
+	}
+
+	/** A method that returns a string showing the items available in the shop (all shops sell the same items)
+	 *
+	 * @return  the string representing the shop's items available for purchase and their prices 
+	 */
+	public String inventory()
+	{
+		if (market == null || world == null)
+		{
+			return prices.getListing();
+		}
+
+		// a town's prices only change on a market tick, so the listing is only built again after one
+		long version = market.getVersion(town);
+		if (listing == null || town != listedTown || version != listedVersion)
+		{
+			if (listedMultipliers == null)
+			{
+				listedMultipliers = new double[Item.count()];
+			}
+			listing = prices.getListing(market.getMultipliers(town, listedMultipliers));
+			listedTown = town;
+			listedVersion = version;
+		}
+		return listing;
+	}
+
+	/**
+	 * @return How many of each item this town's shop has left, e.g. "In stock: Water 3, Rope 0, ...".
+	 */
+	private String stockListing()
+	{
+		StringBuilder listing = new StringBuilder("In stock:");
+		String separator = " ";
+		for (int i = 0; i < Item.count(); i++)
+		{
+			Item item = Item.fromOrdinal(i);
+			if (prices.getBuyPrice(item) > 0)
+			{
+				listing.append(separator).append(item).append(' ').append(world.getStock(town, item));
+				separator = ", ";
+			}
+		}
+		return listing.toString();
+	}
+
+	/**
+	 * A method that lets the customer (a Hunter) buy an item.
+	 * @param item The item being bought.
+	 */
+	public void buyItem(String item)
+	{
+		buyItem(Item.fromName(item));
+	}
+
+	public void buyItem(Item item)
+	{
+		buyItem(item, checkMarketPrice(item, true));
+	}
+
+	/**
+	 * Sells the customer an item at a price they were already quoted, even if the market has moved since.
+	 * @param item The item being bought.
+	 * @param costOfItem The price the customer agreed to.
+	 */
+	public void buyItem(Item item, int costOfItem)
+	{
+		long start = GameMetrics.startTiming(latencyRecorded);
+
+		// the item is taken off the shelf first, so two hunters can't both buy the last one
+		if (world != null && !world.takeStock(town, item))
+		{
+			io.println("Sorry, we're plumb out of those. Try the next town.");
+		}
+		else if (customer.buyItem(item, costOfItem))
+		{
+			if (market != null && world != null)
+			{
+				market.recordTrade(town, item, true);
+			}
+			GameMetrics.get().recordPurchase(item);
+			io.println("Ye' got yerself a " + item + ". Come again soon.");
+		}
+		else
+		{        
+			if (world != null)
+			{
+				world.returnStock(town, item);
+			}
+			io.println("Hmm, either you don't have enough gold or you've already got one of those!");
+		}
+		GameMetrics.get().recordLatency(GameMetrics.Action.BUY_ITEM, start);
+	}
+
+	/**
+	 * A pathway method that lets the Hunter sell an item.
+	 * @param item The item being sold.
+	 */
+	public void sellItem(String item)
+	{
+		sellItem(Item.fromName(item));
+	}
+
+	public void sellItem(Item item)
+	{
+		sellItem(item, checkMarketPrice(item, false));
+	}
+
+	/**
+	 * Buys an item back from the customer at a price they were already quoted, even if the market has moved since.
+	 * @param item The item being sold.
+	 * @param buyBackPrice The price the customer agreed to.
+	 */
+	public void sellItem(Item item, int buyBackPrice)
+	{
+		long start = GameMetrics.startTiming(latencyRecorded);
+		if (customer.sellItem(item, buyBackPrice))
+		{
+			if (world != null)
+			{
+				world.returnStock(town, item);
+				if (market != null)
+				{
+					market.recordTrade(town, item, false);
+				}
+			}
+			io.println("Pleasure doin' business with you.");
+		}
+		else
+		{
+			io.println("Stop stringin' me along!");
+		}
+		GameMetrics.get().recordLatency(GameMetrics.Action.SELL_ITEM, start);
+	}
+
+	/**
+	 * Determines and returns the cost of buying or selling an item.
+	 * @param item The item in question.
+	 * @param isBuying Whether the item is being bought or sold.
+	 * @return The cost of buying or selling the item based on the isBuying parameter.
+	 */
+	public int checkMarketPrice(String item, boolean isBuying)
+	{
+		if (isBuying)
+		{
+			return getCostOfItem(item);
+		}
+		else
+		{
+			return getBuyBackCost(item);
+		}
+	}
+
+	public int checkMarketPrice(Item item, boolean isBuying)
+	{
+		if (item == null)
+		{
+			return 0;
+		}
+		else if (isBuying)
+		{
+			return getCostOfItem(item);
+		}
+		else
+		{
+			return getBuyBackCost(item);
+		}
+	}
+
+	/**
+	 * Looks up the price of an item in the shop's price table.
+	 * 
+	 * @param item The item being checked for cost.
+	 * @return The cost of the item or 0 if the item is not found.
+	 */
+	public int getCostOfItem(String item)
+	{
+		Item found = Item.fromName(item);
+		if (found == null)
+			return 0;
+		return getCostOfItem(found);
+	}
+
+	public int getCostOfItem(Item item)
+	{
+		if (market == null || world == null)
+		{
+			return prices.getBuyPrice(item);
+		}
+		return prices.getBuyPrice(item, market.getMultiplier(town, item));
+	}
+
+	/**
+	 * Looks up what the shop pays for an item, with the markdown already applied.
+	 * 
+	 * @param item The item being sold.
+	 * @return The sell price of the item.
+	 */
+	public int getBuyBackCost(String item)
+	{
+		Item found = Item.fromName(item);
+		if (found == null)
+			return 0;
+		return getBuyBackCost(found);
+	}
+
+	public int getBuyBackCost(Item item)
+	{
+		if (market == null || world == null)
+		{
+			return prices.getSellPrice(item);
+		}
+		return prices.getSellPrice(item, market.getMultiplier(town, item));
+	}
+}
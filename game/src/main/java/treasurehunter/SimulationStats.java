@@ -0,0 +1,224 @@
+package treasurehunter;
+
+/**
+ * Collects the results of many simulated games.<p>
+ * Each worker thread fills in its own SimulationStats, and they are merged once all the games are done,
+ * so recording a game never touches anything shared.<p>
+ * Besides the outcomes it keeps the distributions of game length, final gold, brawls and broken
+ * items per game, and of the hunter's gold over the course of a game, sampled after every action
+ * when it is the game's observer. Game length is counted exactly; the rest go in LogHistograms,
+ * so memory stays the same however many games are played.
+ */
+public class SimulationStats implements TreasureHunter.ActionObserver
+{
+	// gold is sampled after every action, into one histogram per stretch of the game
+	private static final int[] PHASE_ENDS = { 10, 25, 50, 100, Integer.MAX_VALUE };
+	private static final long HIGHEST_GOLD = 1 << 16;
+	private static final long HIGHEST_COUNT = 1 << 12;
+
+	//instance variables
+	private long games;
+	private long wins;
+	private long bankruptcies;
+	private long quits;
+	private long unfinished;
+	private long[] lengthCounts;
+	private LogHistogram finalGold;
+	private LogHistogram brawls;
+	private LogHistogram itemBreaks;
+	private LogHistogram[] goldByPhase;
+
+	//Constructor
+	/**
+	 * @param maxActions The longest a game can run, in actions.
+	 */
+	public SimulationStats(int maxActions)
+	{
+		lengthCounts = new long[maxActions + 1];
+		finalGold = new LogHistogram(HIGHEST_GOLD);
+		brawls = new LogHistogram(HIGHEST_COUNT);
+		itemBreaks = new LogHistogram(HIGHEST_COUNT);
+		goldByPhase = new LogHistogram[PHASE_ENDS.length];
+		for (int i = 0; i < goldByPhase.length; i++)
+		{
+			goldByPhase[i] = new LogHistogram(HIGHEST_GOLD);
+		}
+	}
+
+	//Accessors
+	public long getGames() { return games; }
+	public long getWins() { return wins; }
+	public long getBankruptcies() { return bankruptcies; }
+	public long getQuits() { return quits; }
+	public long getUnfinished() { return unfinished; }
+
+	/**
+	 * @return The fraction of the games that were won, or 0 if there were none.
+	 */
+	public double getWinRate()
+	{
+		return games == 0 ? 0 : (double)wins / games;
+	}
+
+	/**
+	 * Adds a finished game to the statistics.
+	 * @param game The game that was played.
+	 */
+	public void record(TreasureHunter game)
+	{
+		Town town = game.getCurrentTown();
+		record(game.getOutcome(), game.getActionCount(), game.getHunter().getGold(),
+			town == null ? 0 : town.getBrawlCount(), town == null ? 0 : town.getItemBreakCount());
+	}
+
+	/**
+	 * Adds a finished game to the statistics, for engines that don't keep a TreasureHunter per game.
+	 * @param outcome How the game ended, or null if it ran out of actions.
+	 * @param actions The number of actions the game took.
+	 * @param gold The hunter's gold at the end.
+	 * @param brawlCount The number of brawls the hunter was in.
+	 * @param itemBreakCount The number of items the hunter broke.
+	 */
+	public void record(TreasureHunter.Outcome outcome, int actions, int gold, int brawlCount, int itemBreakCount)
+	{
+		games++;
+		if (outcome == TreasureHunter.Outcome.WON)
+		{
+			wins++;
+		}
+		else if (outcome == TreasureHunter.Outcome.BANKRUPT)
+		{
+			bankruptcies++;
+		}
+		else if (outcome == TreasureHunter.Outcome.QUIT)
+		{
+			quits++;
+		}
+		else
+		{
+			unfinished++;
+		}
+
+		lengthCounts[Math.min(actions, lengthCounts.length - 1)]++;
+		finalGold.record(gold);
+		brawls.record(brawlCount);
+		itemBreaks.record(itemBreakCount);
+	}
+
+	/**
+	 * Samples the hunter's gold; called after every action of a game this is the observer of.
+	 */
+	public void actionTaken(TreasureHunter game)
+	{
+		recordGold(game.getActionCount(), game.getHunter().getGold());
+	}
+
+	/**
+	 * Samples the hunter's gold after an action.
+	 * @param actions The number of actions taken so far, including this one.
+	 * @param gold The hunter's gold now.
+	 */
+	public void recordGold(int actions, int gold)
+	{
+		int phase = 0;
+		while (actions > PHASE_ENDS[phase])
+		{
+			phase++;
+		}
+		goldByPhase[phase].record(gold);
+	}
+
+	/**
+	 * Adds the games recorded in another SimulationStats to this one.
+	 * @param other The statistics to add.
+	 */
+	public void merge(SimulationStats other)
+	{
+		games += other.games;
+		wins += other.wins;
+		bankruptcies += other.bankruptcies;
+		quits += other.quits;
+		unfinished += other.unfinished;
+		for (int i = 0; i < lengthCounts.length; i++)
+		{
+			lengthCounts[i] += other.lengthCounts[i];
+		}
+		finalGold.merge(other.finalGold);
+		brawls.merge(other.brawls);
+		itemBreaks.merge(other.itemBreaks);
+		for (int i = 0; i < goldByPhase.length; i++)
+		{
+			goldByPhase[i].merge(other.goldByPhase[i]);
+		}
+	}
+
+	/**
+	 * @param title A heading for the report.
+	 * @return A printable summary of the games recorded so far.
+	 */
+	public String report(String title)
+	{
+		String str = title + ": " + games + " games\n";
+		str += String.format("  win rate:        %6.2f%%\n", percent(wins));
+		str += String.format("  bankrupt rate:   %6.2f%%\n", percent(bankruptcies));
+		str += String.format("  quit rate:       %6.2f%%\n", percent(quits));
+		str += String.format("  unfinished rate: %6.2f%%\n", percent(unfinished));
+		str += "  game length (actions): " + distribution(lengthCounts) + "\n";
+		str += "  final gold:            " + finalGold.summary() + "\n";
+		str += "  brawls per game:       " + brawls.summary() + "\n";
+		str += "  items broken per game: " + itemBreaks.summary() + "\n";
+		int phaseStart = 1;
+		for (int i = 0; i < PHASE_ENDS.length; i++)
+		{
+			if (goldByPhase[i].getCount() > 0)
+			{
+				String phase = PHASE_ENDS[i] == Integer.MAX_VALUE ? phaseStart + "+" : phaseStart + "-" + PHASE_ENDS[i];
+				str += String.format("  gold, actions %-8s %s\n", phase + ":", goldByPhase[i].summary());
+			}
+			phaseStart = PHASE_ENDS[i] + 1;
+		}
+		str += String.format("  (histogram percentiles are within %.1f%% of the true values)\n", 100 * finalGold.getRelativeError());
+		return str;
+	}
+
+	private double percent(long count)
+	{
+		if (games == 0)
+		{
+			return 0;
+		}
+		return 100.0 * count / games;
+	}
+
+	private String distribution(long[] counts)
+	{
+		double total = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			total += (double)i * counts[i];
+		}
+		double mean = games == 0 ? 0 : total / games;
+
+		return String.format("mean %.1f, p10 %d, p50 %d, p90 %d, p99 %d, max %d",
+			mean, percentile(counts, 0.10), percentile(counts, 0.50), percentile(counts, 0.90),
+			percentile(counts, 0.99), percentile(counts, 1.0));
+	}
+
+	/**
+	 * @return The smallest value with at least the given fraction of the games at or below it.
+	 */
+	private int percentile(long[] counts, double fraction)
+	{
+		long target = (long)Math.ceil(fraction * games);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= target && seen > 0)
+			{
+				return i;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,158 @@
+package treasurehunter;
+
+/**
+ * GameIO implementation for a player connected over TCP, e.g. with telnet.<p>
+ * Input is read from the socket through a small buffer into a fixed line buffer, so a session never
+ * holds more than a few hundred bytes of input no matter what the client sends. Output is buffered and flushed
+ * before every read. If the player sends nothing for the idle timeout, input ends and so does the game.
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+public class SocketIO implements GameIO
+{
+	// longer lines are cut off; no command in the game comes close
+	private static final int MAX_LINE_LENGTH = 256;
+	private static final int INPUT_BUFFER_SIZE = 512;
+
+	//instance variables
+	private Socket socket;
+	private InputStream in;
+	private PrintWriter out;
+	private byte[] line;
+	// set by close() on whatever thread shuts the session down, read by the game's thread
+	private volatile boolean closed;
+
+	//Constructor
+	/**
+	 * @param socket The player's connection.
+	 * @param idleTimeoutMs How long to wait for input before giving up on the player; 0 waits forever.
+	 */
+	public SocketIO(Socket socket, int idleTimeoutMs) throws IOException
+	{
+		this.socket = socket;
+		socket.setSoTimeout(idleTimeoutMs);
+		in = new BufferedInputStream(socket.getInputStream(), INPUT_BUFFER_SIZE);
+		out = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(socket.getOutputStream(), 1024),
+			StandardCharsets.UTF_8), false);
+		line = new byte[MAX_LINE_LENGTH];
+		closed = false;
+	}
+
+	public String readLine()
+	{
+		if (closed)
+		{
+			return null;
+		}
+		out.flush();
+
+		try
+		{
+			int length = 0;
+			int b = in.read();
+			if (b < 0)
+			{
+				closed = true;
+				return null;
+			}
+
+			while (b >= 0 && b != '\n')
+			{
+				// telnet ends lines with \r\n and may send control sequences; keep only printable text
+				if (b >= ' ' && length < line.length)
+				{
+					line[length++] = (byte)b;
+				}
+				b = in.read();
+			}
+			return new String(line, 0, length, StandardCharsets.UTF_8);
+		}
+		catch (SocketTimeoutException e)
+		{
+			out.println();
+			out.println("You've been idle too long. Fare thee well!");
+			out.flush();
+			closed = true;
+			return null;
+		}
+		catch (IOException e)
+		{
+			closed = true;
+			return null;
+		}
+	}
+
+	public boolean hasPendingInput()
+	{
+		try
+		{
+			return in.available() > 0;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	public void print(String text)
+	{
+		// telnet clients expect \r\n line endings
+		if (text.indexOf('\n') >= 0)
+		{
+			text = text.replace("\n", "\r\n");
+		}
+		out.print(text);
+	}
+
+	public void println(String text)
+	{
+		print(text);
+		out.print("\r\n");
+	}
+
+	public void println()
+	{
+		out.print("\r\n");
+	}
+
+	public void flush()
+	{
+		out.flush();
+	}
+
+	public boolean isInteractive()
+	{
+		return true;
+	}
+
+	/**
+	 * Says goodbye and closes the connection; a game waiting for input sees the input end.
+	 * @param message The last thing to tell the player, or null to just hang up.
+	 */
+	public void close(String message)
+	{
+		if (message != null)
+		{
+			println();
+			println(message);
+		}
+		out.flush();
+		closed = true;
+		try
+		{
+			socket.close();
+		}
+		catch (IOException e)
+		{
+			// already gone
+		}
+	}
+}
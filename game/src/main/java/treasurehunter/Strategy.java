@@ -0,0 +1,20 @@
+package treasurehunter;
+
+/**
+ * A Strategy is a bot that plays the Treasure Hunter game in place of a person.<p>
+ * Each time the game wants a new move, the strategy looks at the hunter and the town
+ * and answers with the input a player would have typed.
+ */
+public interface Strategy
+{
+	/**
+	 * Chooses the next move.<p>
+	 * The answer is a menu choice followed by any shop answers, separated by spaces,
+	 * e.g. "b Water y" buys water and "m" moves on.
+	 *
+	 * @param hunter The hunter being played.
+	 * @param town The town the hunter is in.
+	 * @return The input for the next move.
+	 */
+	String nextAction(Hunter hunter, Town town);
+}
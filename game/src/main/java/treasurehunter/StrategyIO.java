@@ -0,0 +1,83 @@
+package treasurehunter;
+
+/**
+ * GameIO implementation that lets a Strategy play the game.<p>
+ * Output is discarded, and every time the game asks for a new line of input the strategy is asked for its next move.
+ * The game is cut off after a fixed number of moves so that a bot can never play forever.
+ */
+import java.util.ArrayDeque;
+
+public class StrategyIO implements GameIO
+{
+	//instance variables
+	private Strategy strategy;
+	private TreasureHunter game;
+	private ArrayDeque<String> pending;
+	private int movesLeft;
+
+	//Constructor
+	/**
+	 * @param strategy The bot making the moves.
+	 * @param name The hunter's name.
+	 * @param mode The difficulty, as typed at the difficulty prompt, or null if the game's difficulty is set directly.
+	 * @param maxMoves The most moves the strategy gets before input runs out.
+	 */
+	public StrategyIO(Strategy strategy, String name, String mode, int maxMoves)
+	{
+		this.strategy = strategy;
+		game = null;
+		pending = new ArrayDeque<String>();
+		pending.add(name);
+		if (mode != null)
+		{
+			pending.add(mode);
+		}
+		movesLeft = maxMoves;
+	}
+
+	/**
+	 * Connects the strategy to the game it is playing, so it can see the hunter and the town.
+	 * @param game The game being played.
+	 */
+	public void setGame(TreasureHunter game)
+	{
+		this.game = game;
+	}
+
+	public String readLine()
+	{
+		if (pending.isEmpty())
+		{
+			if (movesLeft <= 0)
+			{
+				return null;
+			}
+			movesLeft--;
+
+			// the game splits the move into the command and its answers
+			return strategy.nextAction(game.getHunter(), game.getCurrentTown());
+		}
+		return pending.poll();
+	}
+
+	public void print(String text) {}
+
+	public void println(String text) {}
+
+	public void println() {}
+
+	public boolean isInteractive()
+	{
+		return false;
+	}
+
+	public boolean isOutputDiscarded()
+	{
+		return true;
+	}
+
+	public boolean isLatencyRecorded()
+	{
+		return false;
+	}
+}
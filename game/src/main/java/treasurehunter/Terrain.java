@@ -0,0 +1,91 @@
+package treasurehunter;
+
+/**
+ * The Terrain class is designed to represent the zones between the towns in the Treasure Hunter game.
+ * There are only six kinds of terrain, so each one is a single shared, immutable object.
+ * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
+ */
+public class Terrain
+{
+	public static final Terrain MOUNTAINS = new Terrain(0, "Mountains", Item.ROPE);
+	public static final Terrain OCEAN = new Terrain(1, "Ocean", Item.BOAT);
+	public static final Terrain PLAINS = new Terrain(2, "Plains", Item.HORSE);
+	public static final Terrain DESERT = new Terrain(3, "Desert", Item.WATER);
+	public static final Terrain JUNGLE = new Terrain(4, "Jungle", Item.MACHETE);
+	public static final Terrain CAVE = new Terrain(5, "Cave", Item.LANTERN);
+
+	private static final Terrain[] ALL = { MOUNTAINS, OCEAN, PLAINS, DESERT, JUNGLE, CAVE };
+
+	//instance variables
+	private final int index;
+	private final String terrainName;
+	private final Item neededItem;
+
+	/**
+	 * Sets the class member variables
+	 * @param index The terrain's position in the list of terrains.
+	 * @param name The name of the zone.
+	 * @param item The item needed in order to cross the zone.
+	 */
+	private Terrain(int index, String name, Item item)
+	{
+		this.index = index;
+		terrainName = name;
+		neededItem = item;
+	}
+
+	/**
+	 * @param index A number from 0 to count() - 1.
+	 * @return The terrain with that index.
+	 */
+	public static Terrain fromIndex(int index)
+	{
+		return ALL[index];
+	}
+
+	/**
+	 * @return The number of kinds of terrain.
+	 */
+	public static int count()
+	{
+		return ALL.length;
+	}
+
+	//Accessors
+	public int getIndex()
+	{
+		return index;
+	}
+
+	public String getTerrainName()
+	{
+		return terrainName;
+	}
+
+	public Item getNeededItem()
+	{
+		return neededItem;
+	}
+
+	/**
+	 * Guards against a hunter crossing the zone without the proper item.
+	 * Searches the hunter's inventory for the proper item and determines whether or not the hunter can cross.
+	 * 
+	 * @param hunter The Hunter object trying to cross the terrain.
+	 * @returns  true if the Hunter has the proper item.
+	 */
+	public boolean canCrossTerrain(Hunter hunter)
+	{
+		if(hunter.hasItemInKit(neededItem))
+		{
+			return true;
+		}     
+		return false;
+	}
+
+	//toString
+	public String toString()
+	{
+		return terrainName + " needs a(n) " + neededItem + " to cross.";
+	}
+}
@@ -0,0 +1,265 @@
+package treasurehunter;
+
+/**
+ * Pits bot strategies against each other across many seeds and difficulties, in parallel.<p>
+ * Every strategy plays the same games: game number g on a difficulty gets the same random streams
+ * whichever strategy plays it, so the strategies are compared on identical luck. Games are spread
+ * across every core with a parallel stream, as in TreasureHunterSimulator.<p>
+ * Each game's result is written to a CSV file as soon as the game finishes, by a writer thread fed
+ * through a bounded queue, so the file fills in while the tournament runs. The rankings come from
+ * one SimulationStats per strategy and difficulty, filled in per worker and merged, so memory stays
+ * the same however many games are played.<p>
+ * Usage: java treasurehunter.TournamentRunner [--games N] [--policies a,b,...] [--modes e,n,h,cheat] [--max-actions N] [--seed N] [--out FILE]
+ */
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.LongStream;
+
+public class TournamentRunner
+{
+	private static final String DEFAULT_POLICIES = "explorer,random,greedy-brawler,cautious-shopper,treasure-first";
+	private static final String CSV_HEADER = "policy,mode,game,outcome,actions,gold,treasures";
+
+	/**
+	 * Writes result lines to a file on its own thread, so the game threads never wait on the disk
+	 * unless they get a whole queue ahead of it.
+	 */
+	private static final class ResultWriter implements AutoCloseable
+	{
+		// stands in for "no more results"
+		private static final String END = new String("");
+
+		private final BlockingQueue<String> lines;
+		private final Thread thread;
+		private volatile IOException failure;
+
+		ResultWriter(Path file) throws IOException
+		{
+			BufferedWriter out = Files.newBufferedWriter(file);
+			lines = new ArrayBlockingQueue<String>(8192);
+			thread = new Thread(() -> {
+				try (BufferedWriter writer = out)
+				{
+					writer.write(CSV_HEADER);
+					writer.newLine();
+					while (true)
+					{
+						String line = lines.take();
+						if (line == END)
+						{
+							break;
+						}
+						writer.write(line);
+						writer.newLine();
+					}
+				}
+				catch (IOException e)
+				{
+					failure = e;
+					// keep taking lines so the game threads don't block forever
+					discardUntilEnd();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}, "tournament-writer");
+			thread.start();
+		}
+
+		private void discardUntilEnd()
+		{
+			try
+			{
+				while (lines.take() != END)
+				{
+					// the results are lost, and close() reports why
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void write(String line)
+		{
+			try
+			{
+				lines.put(line);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while writing results", e);
+			}
+		}
+
+		public void close() throws IOException
+		{
+			write(END);
+			try
+			{
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null)
+			{
+				throw failure;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		long games = 100000;
+		String[] policies = DEFAULT_POLICIES.split(",");
+		String[] modes = { "e", "n", "h" };
+		int maxActions = 1000;
+		long seed = System.nanoTime();
+		Path out = Paths.get("tournament.csv");
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--games")) {
+				games = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("--policies")) {
+				policies = args[i + 1].split(",");
+			} else if (args[i].equals("--modes")) {
+				modes = args[i + 1].split(",");
+			} else if (args[i].equals("--max-actions")) {
+				maxActions = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("--out")) {
+				out = Paths.get(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		// fail on a misspelled policy now rather than halfway through
+		for (String policy : policies)
+		{
+			TreasureHunterSimulator.newStrategy(policy, modes[0], new GameRandom(0));
+		}
+
+		System.out.println("Tournament: " + policies.length + " policies x " + modes.length + " modes x " + games
+			+ " games on " + Runtime.getRuntime().availableProcessors() + " cores, seed " + seed + ", results to " + out);
+		long start = System.nanoTime();
+		SimulationStats[] results;
+		try (ResultWriter writer = new ResultWriter(out))
+		{
+			results = play(policies, modes, games, maxActions, new GameRandom(seed), writer);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d games in %.1f s (%.0f games/sec)",
+			games * policies.length * modes.length, seconds, games * policies.length * modes.length / seconds));
+
+		printRankings(policies, modes, results);
+	}
+
+	/**
+	 * Plays every policy on every mode, games times each.
+	 *
+	 * @return The results, indexed by mode * policies.length + policy.
+	 */
+	static SimulationStats[] play(String[] policies, String[] modes, long games, int maxActions, GameRandom root, ResultWriter writer)
+	{
+		int entries = policies.length * modes.length;
+		return LongStream.range(0, games * entries).parallel().collect(
+			() -> newStats(entries, maxActions),
+			(stats, index) -> {
+				int entry = (int)(index % entries);
+				long gameNumber = index / entries;
+				String policy = policies[entry % policies.length];
+				String mode = modes[entry / policies.length];
+
+				// each mode gets its own run of games, shared by every policy
+				GameRandom modeRoot = root.fork(entry / policies.length);
+				TreasureHunter game = TreasureHunterSimulator.playGame(mode,
+					TreasureHunterSimulator.newStrategy(policy, mode, modeRoot.fork(2 * gameNumber + 1)),
+					maxActions, modeRoot.fork(2 * gameNumber), stats[entry]);
+				stats[entry].record(game);
+
+				Hunter hunter = game.getHunter();
+				writer.write(policy + "," + mode + "," + gameNumber + ","
+					+ (game.getOutcome() == null ? "UNFINISHED" : game.getOutcome().toString()) + ","
+					+ game.getActionCount() + "," + hunter.getGold() + ","
+					+ Long.bitCount(hunter.getKit() & Item.TREASURE_MASK));
+			},
+			(a, b) -> {
+				for (int i = 0; i < a.length; i++)
+				{
+					a[i].merge(b[i]);
+				}
+			});
+	}
+
+	private static SimulationStats[] newStats(int entries, int maxActions)
+	{
+		SimulationStats[] stats = new SimulationStats[entries];
+		for (int i = 0; i < entries; i++)
+		{
+			stats[i] = new SimulationStats(maxActions);
+		}
+		return stats;
+	}
+
+	/**
+	 * Prints each mode's table, best win rate first, then the overall standings by mean win rate.
+	 */
+	private static void printRankings(String[] policies, String[] modes, SimulationStats[] results)
+	{
+		double[] overall = new double[policies.length];
+		for (int m = 0; m < modes.length; m++)
+		{
+			int mode = m;
+			Integer[] order = ranked(policies.length, p -> results[mode * policies.length + p].getWinRate());
+			System.out.println();
+			System.out.println("Mode " + modes[m] + ":");
+			for (int place = 0; place < order.length; place++)
+			{
+				SimulationStats stats = results[m * policies.length + order[place]];
+				System.out.println(String.format("  %d. %-18s win %6.2f%%  bankrupt %6.2f%%  unfinished %6.2f%%",
+					place + 1, policies[order[place]], 100 * stats.getWinRate(),
+					100.0 * stats.getBankruptcies() / stats.getGames(), 100.0 * stats.getUnfinished() / stats.getGames()));
+				overall[order[place]] += stats.getWinRate() / modes.length;
+			}
+		}
+
+		Integer[] order = ranked(policies.length, p -> overall[p]);
+		System.out.println();
+		System.out.println("Overall (mean win rate across modes):");
+		for (int place = 0; place < order.length; place++)
+		{
+			System.out.println(String.format("  %d. %-18s %6.2f%%", place + 1, policies[order[place]], 100 * overall[order[place]]));
+		}
+	}
+
+	/**
+	 * @return The indexes 0 to count - 1, highest value first.
+	 */
+	private static Integer[] ranked(int count, IntToDoubleFunction value)
+	{
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++)
+		{
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingDouble((Integer i) -> value.applyAsDouble(i)).reversed());
+		return order;
+	}
+}
@@ -0,0 +1,363 @@
+package treasurehunter;
+
+/**
+ * The Town Class is where it all happens.
+ * The Town is designed to manage all of the things a Hunter can do in town.
+ * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
+ */
+public class Town
+{
+	public static final String UNIQUE_TREASURE_1 = "GoldThing";
+	public static final String UNIQUE_TREASURE_2 = "DiamondThing";
+	public static final String UNIQUE_TREASURE_3 = "PlatinumThing";
+
+	/** The chance that an item breaks each time it is used to leave town. */
+	public static final double ITEM_BREAK_CHANCE = 0.5;
+
+	// the description only depends on the terrain, so it is built once per terrain
+	private static final String[] DESCRIPTIONS = new String[Terrain.count()];
+
+	static
+	{
+		for (int i = 0; i < DESCRIPTIONS.length; i++)
+		{
+			Terrain terrain = Terrain.fromIndex(i);
+			DESCRIPTIONS[i] = "This nice little town is surrounded by " + terrain.getTerrainName() + ".";
+		}
+	}
+
+	//instance variables
+	private Hunter hunter;
+	private Shop shop;
+	private Terrain terrain;
+	private Item treasure;
+	private boolean treasureFound;
+	private NewsLog news;
+	private boolean toughTown;
+	private double toughness;
+	private double brawlWinChance;
+	private double brawlGoldExtra;
+	private GameRandom random;
+	private BrawlAnimator animator;
+	private GameJournal journal;
+	private World world;
+	private long worldTown;
+
+	// kept for the whole game, since a game reuses one Town object for every town it visits
+	private int brawlCount;
+	private int itemBreakCount;
+	private boolean latencyRecorded;
+
+	//Constructor
+	/**
+	 * The Town Constructor takes in a shop and the surrounding terrain, but leaves the hunter as null until one arrives.
+	 * @param s The town's shoppe.
+	 * @param random The game's random rolls.
+	 * @param animator Shows brawls once they have been decided.
+	 */
+	public Town(Shop shop, GameRandom random, BrawlAnimator animator, double toughness, double brawlWinChance, double brawlGoldExtra)
+	{
+		this.random = random;
+		this.animator = animator;
+		this.journal = null;
+		this.shop = shop;
+		this.toughness = toughness;
+		this.brawlWinChance = brawlWinChance;
+		this.brawlGoldExtra = brawlGoldExtra;
+
+		// the town is empty until regenerate() or restore() fills it in
+		terrain = null;
+		treasure = null;
+		hunter = null;
+		news = new NewsLog();
+		latencyRecorded = true;
+	}
+
+	/**
+	 * Turns this town into a brand new one, with new terrain, treasure and toughness,
+	 * so a game can keep reusing the same Town object as the hunter travels.
+	 */
+	public void regenerate()
+	{
+		this.terrain = getNewTerrain();
+		this.treasure = getNewTreasure();
+		this.treasureFound = false;
+		leaveWorld();
+
+		// the hunter gets set using the hunterArrives method, which
+		// gets called from a client class
+		hunter = null;
+
+		// higher toughness = more likely to be a tough town
+		toughTown = (roll() < toughness);
+	}
+
+	/**
+	 * Turns this town into one of a World's towns, which are already decided, so no rolls are made.
+	 * The town's treasure and its shop's stock stay in the world, where other hunters may share them.
+	 * @param world The world being played.
+	 * @param town Which of its towns this is.
+	 */
+	public void place(World world, long town)
+	{
+		this.world = world;
+		this.worldTown = town;
+		this.terrain = world.getTerrain(town);
+		this.treasure = world.getTreasure(town);
+		this.toughTown = world.isToughTown(town);
+		this.treasureFound = false;
+		shop.setLocation(world, town);
+		hunter = null;
+	}
+
+	/**
+	 * Puts the town back the way it was when a game was saved, with the hunter already in it.
+	 * @param news The game's news as it was saved; the town keeps it from now on.
+	 */
+	void restore(Hunter hunter, Terrain terrain, Item treasure, boolean toughTown, boolean treasureFound,
+		NewsLog news, int brawlCount, int itemBreakCount)
+	{
+		this.hunter = hunter;
+		this.terrain = terrain;
+		this.treasure = treasure;
+		this.toughTown = toughTown;
+		this.treasureFound = treasureFound;
+		this.news = news;
+		news.setHunterName(hunter.getHunterName());
+		this.brawlCount = brawlCount;
+		this.itemBreakCount = itemBreakCount;
+		leaveWorld();
+	}
+
+	private void leaveWorld()
+	{
+		if (world != null)
+		{
+			world = null;
+			shop.setLocation(null, 0);
+		}
+	}
+
+	/**
+	 * @param latencyRecorded false to not time the town's actions in GameMetrics.
+	 */
+	public void setLatencyRecorded(boolean latencyRecorded) { this.latencyRecorded = latencyRecorded; }
+
+	/**
+	 * @param journal Records every roll made in this town, or null to not record them.
+	 */
+	public void setJournal(GameJournal journal) { this.journal = journal; }
+
+	//Accessors
+	public String getLatestNews()
+	{
+		return news.getLatest();
+	}
+
+	/**
+	 * @return Everything that has happened lately, kept for the whole game.
+	 */
+	public NewsLog getNewsLog() { return news; }
+
+	public Shop getShop() { return shop; }
+	public Terrain getTerrain() { return terrain; }
+	public Item getTreasure() { return treasure; }
+	public boolean isTreasureFound() { return treasureFound || (world != null && world.isTreasureFound(worldTown)); }
+	public boolean isToughTown() { return toughTown; }
+
+	/** @return The number of brawls the hunter has been in this game. */
+	public int getBrawlCount() { return brawlCount; }
+
+	/** @return The number of items the hunter has broken crossing terrain this game. */
+	public int getItemBreakCount() { return itemBreakCount; }
+
+	/**
+	 * Assigns an object to the Hunter in town.
+	 * @param h The arriving Hunter.
+	 */
+	public void hunterArrives(Hunter hunter)
+	{
+		this.hunter = hunter;
+
+		// the welcome is only written out if somebody reads it
+		news.setHunterName(hunter.getHunterName());
+
+		if (toughTown)
+		{
+			news.record(NewsLog.Event.WELCOME_ROUGH);
+		}
+		else
+		{
+			news.record(NewsLog.Event.WELCOME_SLEEPY);
+		}
+	}
+
+	/**
+	 * Handles the action of the Hunter leaving the town.
+	 * @return true if the Hunter was able to leave town.
+	 */
+	public boolean leaveTown()
+	{
+		long start = GameMetrics.startTiming(latencyRecorded);
+		boolean canLeaveTown = terrain.canCrossTerrain(hunter);
+		if (canLeaveTown)
+		{
+			if (checkItemBreak())
+			{
+				hunter.removeItemFromKit(terrain.getNeededItem());
+				news.record(NewsLog.Event.CROSSED_AND_BROKE, terrain.getIndex());
+				GameMetrics.get().recordItemBreak();
+				itemBreakCount++;
+			}
+			else
+			{
+				news.record(NewsLog.Event.CROSSED, terrain.getIndex());
+			}
+		}
+		else
+		{
+			news.record(NewsLog.Event.CANT_LEAVE, terrain.getIndex());
+		}
+
+		GameMetrics.get().recordLatency(GameMetrics.Action.LEAVE_TOWN, start);
+		return canLeaveTown;
+	}
+
+	public void enterShop(String choice)
+	{
+		shop.enter(hunter, choice);
+	}
+
+	/**
+	 * Gives the hunter a chance to fight for some gold.<p>
+	 * The chances of finding a fight and winning the gold are based on the toughness of the town.<p>
+	 * The tougher the town, the easier it is to find a fight, and the harder it is to win one.
+	 */
+	public void lookForTrouble()
+	{
+		long start = GameMetrics.startTiming(latencyRecorded);
+		double noTroubleChance;
+		if (toughTown) {
+			noTroubleChance = 0.66;
+		} else {
+			noTroubleChance = 0.33;
+		}
+
+		if (roll() > noTroubleChance) {
+			news.record(NewsLog.Event.NO_TROUBLE);
+			GameMetrics.get().recordLatency(GameMetrics.Action.LOOK_FOR_TROUBLE, start);
+		} else {
+			int goldDiff = (int)(roll() * 10) + 1;
+			boolean won = roll() < brawlWinChance || hunter.isCheating();
+			if (won)
+			{
+				goldDiff += brawlGoldExtra;
+				if (hunter.isCheating())
+					goldDiff = 100;
+				news.record(NewsLog.Event.BRAWL_WON, goldDiff);
+				hunter.changeGold(goldDiff);
+			}
+			else
+			{
+				news.record(NewsLog.Event.BRAWL_LOST, goldDiff);
+				hunter.changeGold(-1 * goldDiff);
+			}
+
+			// the animation is just for show, so it isn't counted in the action's time
+			GameMetrics.get().recordBrawl(won);
+			brawlCount++;
+			GameMetrics.get().recordLatency(GameMetrics.Action.LOOK_FOR_TROUBLE, start);
+			animator.play(won);
+		}
+	}
+
+	/**
+	 * Gives the hunter a chance to hunt for some treasure
+	 * The chances of finding a treasure are always 50% regardless of the toughness of the town
+	 */
+	public void huntForTreasure() {
+		long start = GameMetrics.startTiming(latencyRecorded);
+		if (!treasureFound && isTreasureFound()) {
+			news.record(NewsLog.Event.ALREADY_DUG_UP);
+			GameMetrics.get().recordLatency(GameMetrics.Action.HUNT_FOR_TREASURE, start);
+			return;
+		}
+		if (treasureFound) {
+			news.record(NewsLog.Event.ALREADY_FOUND);
+			GameMetrics.get().recordLatency(GameMetrics.Action.HUNT_FOR_TREASURE, start);
+			return;
+		}
+
+		if (roll() >= 0.5) { // Treasure found
+			if (hunter.hasItemInKit(treasure)) {
+				// Hunter already found this treasure; cannot find same one twice
+				news.record(NewsLog.Event.FOUND_DUPLICATE, treasure.ordinal());
+			} else if (world != null && !world.claimTreasure(worldTown)) {
+				// another hunter in the same town claimed it first
+				news.record(NewsLog.Event.TREASURE_GRABBED, treasure.ordinal());
+			} else {
+				hunter.addItem(treasure);
+				treasureFound = true;
+				GameMetrics.get().recordTreasureFound();
+				news.record(NewsLog.Event.FOUND_TREASURE, treasure.ordinal());
+			}
+		} else { // Nothing found
+			news.record(NewsLog.Event.NO_TREASURE);
+		}
+		GameMetrics.get().recordLatency(GameMetrics.Action.HUNT_FOR_TREASURE, start);
+	}
+
+	public String toString()
+	{
+		return DESCRIPTIONS[terrain.getIndex()];
+	}
+
+	/**
+	 * Determines the surrounding terrain for a town, and the item needed in order to cross that terrain.
+	 * 
+	 * @return One of the shared Terrain objects.
+	 */
+	private Terrain getNewTerrain()
+	{
+		return Terrain.fromIndex((int)(roll() * Terrain.count()));
+	}
+
+	/**
+	 * Generates a random unique treasure for a town
+	 * @return The treasure
+	 */
+	private Item getNewTreasure() {
+		int rnd = (int)(roll() * 3);
+		if (rnd == 0) {
+			return Item.GOLD_THING;
+		} else if (rnd == 1) {
+			return Item.DIAMOND_THING;
+		} else {
+			return Item.PLATINUM_THING;
+		}
+	}
+
+	/**
+	 * Determines whether or not a used item has broken.
+	 * @return true if the item broke.
+	 */
+	private boolean checkItemBreak()
+	{
+		double rand = roll();
+		return (rand < ITEM_BREAK_CHANCE);
+	}
+
+	/**
+	 * Every random outcome in a town goes through here, so a journal sees each one in order.
+	 * @return A random double between 0 (inclusive) and 1 (exclusive).
+	 */
+	private double roll()
+	{
+		double roll = random.nextDouble();
+		if (journal != null)
+		{
+			journal.recordDraw(roll);
+		}
+		return roll;
+	}
+}
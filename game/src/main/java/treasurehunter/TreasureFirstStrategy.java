@@ -0,0 +1,40 @@
+package treasurehunter;
+
+/**
+ * A bot that cares about nothing but treasure.<p>
+ * It hunts every town whose treasure it still needs, and skips towns whose treasure it already has.
+ * When it can't afford to leave, it sells off items it doesn't need here before it will risk a brawl.
+ */
+public class TreasureFirstStrategy implements Strategy
+{
+	public String nextAction(Hunter hunter, Town town)
+	{
+		if (!town.isTreasureFound() && !hunter.hasItemInKit(town.getTreasure()))
+		{
+			return "h";
+		}
+
+		Item needed = town.getTerrain().getNeededItem();
+		if (hunter.hasItemInKit(needed))
+		{
+			return "m";
+		}
+
+		int price = town.getShop().getCostOfItem(needed);
+		if (hunter.getGold() >= price)
+		{
+			return "b " + needed.getName() + " y";
+		}
+
+		// raise the gold from the rest of the kit, the most valuable item first
+		for (int i = Item.BOAT.ordinal(); i >= 0; i--)
+		{
+			Item item = Item.fromOrdinal(i);
+			if (item != needed && hunter.hasItemInKit(item) && town.getShop().getBuyBackCost(item) > 0)
+			{
+				return "s " + item.getName() + " y";
+			}
+		}
+		return "l";
+	}
+}
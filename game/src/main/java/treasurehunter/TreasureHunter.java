@@ -0,0 +1,566 @@
+package treasurehunter;
+
+/**
+ * This class is responsible for controlling the Treasure Hunter game.<p>
+ * It handles the display of the menu and the processing of the player's choices.<p>
+ * It handles all of the display based on the messages it receives from the Town object.
+ *
+ * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
+ */
+import java.util.HashMap;
+import java.util.List;
+
+public class TreasureHunter
+{
+	/**
+	 * The ways a game can end. A game that simply runs out of input has no outcome.
+	 */
+	public enum Outcome { WON, BANKRUPT, QUIT }
+
+	/**
+	 * Told about the game after every action, on the game's own thread.
+	 */
+	public interface ActionObserver
+	{
+		void actionTaken(TreasureHunter game);
+	}
+
+	//Instance variables
+	private Town currentTown;
+	private Hunter hunter;
+	private Difficulty difficulty;
+	private boolean gameEnded;
+	private Outcome outcome;
+	private int actionCount;
+	private GameIO io;
+	private MenuRenderer renderer;
+	private CommandInput input;
+	private HashMap<String, Runnable> commands;
+	private long shownNews;
+	private Autosaver autosaver;
+	private GameJournal journal;
+	private GameRandom random;
+	private BrawlAnimator animator;
+	private World world;
+	private long worldTown;
+	private RoutePlanner planner;
+	private MarketEngine market;
+	private Leaderboard leaderboard;
+	private long playerId;
+	private ActionObserver observer;
+	private boolean latencyRecorded;
+
+	//Constructor
+	/**
+	 * Constructs the Treasure Hunter game on the console with an unpredictable seed.
+	 */
+	public TreasureHunter()
+	{
+		this(new ConsoleIO());
+	}
+
+	/**
+	 * Constructs the Treasure Hunter game with an unpredictable seed.
+	 * @param io Where the game reads its input and prints its output.
+	 */
+	public TreasureHunter(GameIO io)
+	{
+		this(io, new GameRandom(System.nanoTime()));
+	}
+
+	/**
+	 * Constructs the Treasure Hunter game.<p>
+	 * The same random generator state and the same input always play out the same game.
+	 * @param io Where the game reads its input and prints its output.
+	 * @param random The game's random rolls; it belongs to this game from now on.
+	 */
+	public TreasureHunter(GameIO io, GameRandom random)
+	{
+		// everything is printed through the renderer so it knows when its last screen was scrolled away,
+		// and everything is read through the command input so commands can be typed ahead
+		this.renderer = new MenuRenderer(io);
+		this.input = new CommandInput(renderer);
+		this.io = input;
+		this.random = random;
+		this.animator = new BrawlAnimator(input, random.split());
+		latencyRecorded = io.isLatencyRecorded();
+
+		// these will be initialized in the play method
+		currentTown = null;
+		hunter = null;
+		difficulty = null;
+		gameEnded = false;
+		outcome = null;
+		actionCount = 0;
+		shownNews = -1;
+		autosaver = null;
+		journal = null;
+		world = null;
+		market = null;
+		leaderboard = null;
+		playerId = -1;
+
+		commands = new HashMap<String, Runnable>();
+		registerCommands();
+	}
+
+	//Accessors
+	public Hunter getHunter() { return hunter; }
+	public Difficulty getDifficulty() { return difficulty; }
+	public Town getCurrentTown() { return currentTown; }
+	public boolean isGameEnded() { return gameEnded; }
+	public Outcome getOutcome() { return outcome; }
+	public int getActionCount() { return actionCount; }
+	public BrawlAnimator getAnimator() { return animator; }
+	GameRandom getRandom() { return random; }
+
+	// Setters
+	/**
+	 * @param autosaver Saves the game in the background after every action, or null to not save.
+	 */
+	public void setAutosaver(Autosaver autosaver) { this.autosaver = autosaver; }
+
+	/**
+	 * Plays the game across a persistent world instead of making up a new town after every move:
+	 * the hunter starts in the world's start town and chooses which road to take when moving on.
+	 * Several games may share a SharedWorld, each on its own thread.
+	 * Set it before play(). Saves and journals don't record the world, so a world game can't use them.
+	 * @param world The world to travel.
+	 */
+	public void setWorld(World world)
+	{
+		this.world = world;
+		worldTown = world.getStartTown();
+	}
+
+	/**
+	 * Lets supply and demand move the shop prices of the world's towns; only used with setWorld().
+	 * Set it before play(). The market can be shared by every game in the same world.
+	 * @param market The world's market.
+	 */
+	public void setMarket(MarketEngine market) { this.market = market; }
+
+	/**
+	 * Plays on the given rules instead of asking the player to pick a difficulty.
+	 * Set it before play(); used to try out rules that aren't one of the standard difficulties.
+	 * @param difficulty The rules to play by.
+	 */
+	public void setDifficulty(Difficulty difficulty) { this.difficulty = difficulty; }
+
+	/**
+	 * @param leaderboard Where the game's result goes when it is won or lost, or null to not rank it.
+	 * @param playerId Who the game is ranked for, from the leaderboard's newPlayerId().
+	 */
+	public void setLeaderboard(Leaderboard leaderboard, long playerId)
+	{
+		this.leaderboard = leaderboard;
+		this.playerId = playerId;
+	}
+
+	/**
+	 * @param observer Told about the game after every action, or null for nobody.
+	 */
+	public void setObserver(ActionObserver observer) { this.observer = observer; }
+
+	/**
+	 * Records the game from here on, so JournalReplay can play it back exactly.
+	 * Attach it before play(), to a new game or one just restored from a save.
+	 * @param journal The journal to write to.
+	 */
+	public void setJournal(GameJournal journal)
+	{
+		journal.recordStart(this);
+		this.journal = journal;
+		input.setJournal(journal);
+		if (currentTown != null)
+		{
+			currentTown.setJournal(journal);
+		}
+	}
+
+	// starts the game, or picks a restored game back up where it was saved
+	public void play()
+	{
+		if (hunter == null)
+		{
+			welcomePlayer();
+			if (gameEnded)
+			{
+				return;
+			}
+			enterTown();
+			saveProgress();
+		}
+		showMenu();
+		io.flush();
+	}
+
+	/**
+	 * Puts the game back into a saved state, so play() continues from there; used by GameSnapshot.
+	 */
+	void restore(Hunter hunter, Difficulty difficulty, int actionCount, Terrain terrain, Item treasure,
+		boolean toughTown, boolean treasureFound, NewsLog news, int brawlCount, int itemBreakCount)
+	{
+		this.hunter = hunter;
+		this.difficulty = difficulty;
+		this.actionCount = actionCount;
+		createTown();
+		currentTown.restore(hunter, terrain, treasure, toughTown, treasureFound, news, brawlCount, itemBreakCount);
+	}
+
+	/**
+	 * Hands a snapshot of the game to the autosaver, which writes it in the background.
+	 * A won or lost game has nothing left to resume, so its save is deleted instead; a game the
+	 * player quit is saved, so it can be picked back up.
+	 */
+	private void saveProgress()
+	{
+		if (autosaver == null)
+		{
+			return;
+		}
+
+		if (outcome == Outcome.WON || outcome == Outcome.BANKRUPT)
+		{
+			autosaver.discard();
+		}
+		else
+		{
+			autosaver.save(GameSnapshot.encode(this));
+		}
+	}
+
+	/**
+	 * Creates a hunter object at the beginning of the game and populates the class member variable with it.
+	 */
+	private void welcomePlayer()
+	{
+		io.println("Welcome to TREASURE HUNTER!");
+		io.println("Going hunting for the big treasure, eh?");
+		io.print("What's your name, Hunter? ");
+		String name = io.readLine();
+		if (name == null)
+		{
+			gameEnded = true;
+			return;
+		}
+
+		// set game mode, unless the game was given one
+		if (this.difficulty == null) {
+			io.print("What difficulty would you like to play on? ([e]asy/[n]ormal/[h]ard): ");
+		}
+		while (this.difficulty == null) {
+			String mode = io.readLine();
+			if (mode == null) {
+				gameEnded = true;
+				return;
+			}
+			this.difficulty = Difficulty.fromInput(mode);
+			if (this.difficulty == null) {
+				io.print("Not a valid difficulty, please retry: ");
+			}
+		}
+
+		// set other instance variables
+		this.hunter = new Hunter(name, difficulty.getStartingGold());
+		this.hunter.setCheating(difficulty.isCheating());
+		this.gameEnded = false;
+	}
+
+	/**
+	 * Creates a new town and adds the Hunter to it.<p>
+	 * The Town and its Shop are only created once per game; after that the same
+	 * objects are regenerated as the next town, so travelling creates no garbage.
+	 */
+	private void enterTown()
+	{
+		if (currentTown == null)
+		{
+			createTown();
+		}
+		if (world != null)
+		{
+			currentTown.place(world, worldTown);
+		}
+		else
+		{
+			currentTown.regenerate();
+		}
+
+		// calling the hunterArrives method, which takes the Hunter
+		// as a parameter; note this also could have been done in the
+		// constructor for Town, but this illustrates another way to associate
+		// an object with an object of a different class
+		currentTown.hunterArrives(hunter);
+	}
+
+	private void createTown()
+	{
+		// every town in the game can share one Shop, since the prices are the same everywhere
+		Shop shop = new Shop(io, difficulty.getPrices());
+		shop.setMarket(market);
+
+		// creating the Town -- which we need to store as an instance
+		// variable in this class, since we need to access the Town
+		// object in other methods of this class
+		currentTown = new Town(shop, random, animator, difficulty.getToughness(),
+			difficulty.getBrawlWinChance(), difficulty.getBrawlGoldExtra());
+		currentTown.setJournal(journal);
+		currentTown.setLatencyRecorded(latencyRecorded);
+	}
+
+	/**
+	 * Displays the menu and receives the choice from the user.<p>
+	 * The choice is sent to the processChoice() method for parsing.<p>
+	 * The menu is skipped while typed-ahead commands are still running, and when the input isn't
+	 * coming from a person at all; then only the news from each command is printed.<p>
+	 * This method will loop until the user chooses to exit.
+	 */
+	private void showMenu()
+	{
+		String choice = "";
+
+		while (!gameEnded)
+		{
+			// news is counted, not compared, so nothing is written out unless it will be shown
+			long news = currentTown.getNewsLog().getCount();
+			if (io.isInputInteractive() && !input.hasQueuedCommands())
+			{
+				renderer.render(currentTown.getLatestNews(), hunter.toString(), currentTown.toString());
+				shownNews = news;
+			}
+			else if (news != shownNews)
+			{
+				if (!io.isOutputDiscarded())
+				{
+					io.println(currentTown.getLatestNews());
+				}
+				shownNews = news;
+			}
+
+			choice = input.nextCommand();
+			if (choice == null)
+			{
+				// out of input, so there is nobody left to play
+				gameEnded = true;
+				break;
+			}
+			processChoice(choice);
+			saveProgress();
+		}
+	}
+
+	/**
+	 * Fills in the table of menu commands. Each command can be typed as its letter
+	 * (in either case) or as its full name.
+	 */
+	private void registerCommands()
+	{
+		registerCommand(() -> currentTown.enterShop("B"), "b", "buy");
+		registerCommand(() -> currentTown.enterShop("S"), "s", "sell");
+		registerCommand(this::moveOn, "m", "move");
+		registerCommand(this::lookForTrouble, "l", "look");
+		registerCommand(this::huntForTreasure, "h", "hunt");
+		registerCommand(this::showNews, "n", "news");
+		registerCommand(this::quit, "x", "exit", "quit");
+	}
+
+	private void registerCommand(Runnable action, String... names)
+	{
+		for (String name : names)
+		{
+			commands.put(name, action);
+			commands.put(name.toUpperCase(), action);
+		}
+	}
+
+	/**
+	 * Takes the choice received from the menu and looks up the method that carries out the instructions.
+	 * @param choice The action to process.
+	 */
+	private void processChoice(String choice)
+	{
+		long start = GameMetrics.startTiming(latencyRecorded);
+		actionCount++;
+		Runnable action = commands.get(choice);
+		if (action == null)
+		{
+			action = commands.get(choice.toLowerCase());
+		}
+
+		if (action == null)
+		{
+			io.println("Yikes! That's an invalid option! Try again.");
+		}
+		else
+		{
+			action.run();
+		}
+		GameMetrics.get().recordLatency(GameMetrics.Action.PROCESS_CHOICE, start);
+		if (observer != null)
+		{
+			observer.actionTaken(this);
+		}
+	}
+
+	private void moveOn()
+	{
+		long nextTown = 0;
+		// a hunter who can't leave isn't asked where to go; leaveTown() tells them why
+		if (world != null && currentTown.getTerrain().canCrossTerrain(hunter))
+		{
+			nextTown = chooseRoad();
+			if (nextTown < 0)
+			{
+				return;
+			}
+		}
+
+		if (currentTown.leaveTown())
+		{
+			//This town is going away so print its news ahead of time.
+			if (!io.isOutputDiscarded())
+			{
+				io.println(currentTown.getLatestNews());
+			}
+			worldTown = nextTown;
+			enterTown();
+		}
+	}
+
+	/**
+	 * Lists the roads out of the current world town, pointing out the one on the cheapest way to
+	 * a treasure the hunter still needs, and asks which to take.
+	 * @return The chosen town, or -1 if the hunter stays.
+	 */
+	private long chooseRoad()
+	{
+		if (planner == null)
+		{
+			planner = new RoutePlanner(world, difficulty.getPrices(), Town.ITEM_BREAK_CHANCE, 1);
+		}
+		RoutePlanner.Route route = planner.findTreasure(worldTown, hunter.getKit());
+
+		int roads = world.getNeighborCount(worldTown);
+		io.println("Roads lead out of town to:");
+		for (int road = 0; road < roads; road++)
+		{
+			long town = world.getNeighbor(worldTown, road);
+			String line = "  " + (road + 1) + ") a town surrounded by " + world.getTerrain(town).getTerrainName();
+			if (route != null && route.getHops() > 0 && route.getFirstStep() == town)
+			{
+				line += " (the way to the nearest " + world.getTreasure(route.getTowns()[route.getHops()])
+					+ ", " + route.getHops() + (route.getHops() == 1 ? " town" : " towns") + " away)";
+			}
+			io.println(line);
+		}
+		io.print("Which road (1-" + roads + ")? ");
+
+		String answer = io.readLine();
+		try
+		{
+			int road = Integer.parseInt(answer == null ? "" : answer.trim());
+			if (road >= 1 && road <= roads)
+			{
+				return world.getNeighbor(worldTown, road - 1);
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			// handled below, the same as a number out of range
+		}
+		io.println("There's no such road, so you stay where you are.");
+		return -1;
+	}
+
+	private void lookForTrouble()
+	{
+		currentTown.lookForTrouble();
+		if (hunter.getGold() <= 0) {
+			io.println();
+			io.println("You lost all your gold!");
+			io.println("Now you no longer have the funds required to adventure");
+			io.println("You lose!");
+			outcome = Outcome.BANKRUPT;
+			gameEnded = true;
+			GameMetrics.get().recordBankruptcy();
+			rankResult();
+		}
+	}
+
+	private void huntForTreasure()
+	{
+		currentTown.huntForTreasure();
+		if (hunter.hasAllTreasures()) {
+			io.println();
+			io.println("You found all 3 treasures across the world!");
+			io.println("You win!");
+			outcome = Outcome.WON;
+			gameEnded = true;
+			rankResult();
+		}
+	}
+
+	/**
+	 * Shows the last few things that happened this game, oldest first.
+	 */
+	private void showNews()
+	{
+		NewsLog news = currentTown.getNewsLog();
+		io.print("How many events (1-" + news.getCapacity() + ")? ");
+		String answer = io.readLine();
+		int count;
+		try
+		{
+			count = Integer.parseInt(answer == null ? "" : answer.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			count = 0;
+		}
+		if (count < 1 || count > news.getCapacity())
+		{
+			io.println("That's not a number of events.");
+			return;
+		}
+
+		List<String> events = news.getRecent(count);
+		io.println(events.size() == 1 ? "The last thing that happened:" : "The last " + events.size() + " things that happened:");
+		for (String event : events)
+		{
+			io.println("  " + event.replace("\n", "\n  "));
+		}
+	}
+
+	/**
+	 * Puts a won or lost game on the leaderboard and tells the player where they stand.
+	 * Games on a cheating difficulty, where every brawl wins big, are never ranked.
+	 */
+	private void rankResult()
+	{
+		if (leaderboard == null)
+		{
+			return;
+		}
+		if (difficulty.isCheating() || hunter.isCheating())
+		{
+			io.println("Cheaters don't make the leaderboard.");
+			return;
+		}
+
+		int treasures = Long.bitCount(hunter.getKit() & Item.TREASURE_MASK);
+		if (leaderboard.submit(playerId, hunter.getHunterName(), treasures, actionCount, hunter.getGold()))
+		{
+			io.println("That's your best game yet!");
+		}
+		Leaderboard.Entry entry = leaderboard.getEntry(playerId);
+		io.println("You're ranked #" + entry.getRank() + " of " + leaderboard.size() + " hunters.");
+	}
+
+	private void quit()
+	{
+		io.println("Fare thee well, " + hunter.getHunterName() + "!");
+		outcome = Outcome.QUIT;
+		gameEnded = true;
+	}
+}
@@ -0,0 +1,125 @@
+package treasurehunter;
+
+/**
+ * Opens lots of connections to a TreasureHunterServer to check how it holds up.<p>
+ * In idle mode every connection just sits there, like a crowd of players who walked away from the
+ * keyboard. In play mode every connection also plays a short scripted game to the end.<p>
+ * Usage: java treasurehunter.TreasureHunterLoadGenerator [--host H] [--port N] [--sessions N] [--mode idle|play] [--hold-s N]
+ */
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TreasureHunterLoadGenerator
+{
+	// a short game: pick a name and difficulty, poke around, then quit
+	private static final byte[] SCRIPT = "Loadbot\r\nn\r\nh\r\nh\r\nb\r\nw\r\nn\r\nx\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	public static void main(String[] args) throws Exception
+	{
+		String host = "127.0.0.1";
+		int port = 4000;
+		int sessions = 10000;
+		String mode = "idle";
+		int holdS = 30;
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--host")) {
+				host = args[i + 1];
+			} else if (args[i].equals("--port")) {
+				port = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--sessions")) {
+				sessions = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--mode")) {
+				mode = args[i + 1];
+			} else if (args[i].equals("--hold-s")) {
+				holdS = Integer.parseInt(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		ArrayList<Socket> sockets = new ArrayList<Socket>(sessions);
+		long start = System.nanoTime();
+		int failed = 0;
+		for (int i = 0; i < sessions; i++)
+		{
+			try
+			{
+				sockets.add(new Socket(host, port));
+			}
+			catch (IOException e)
+			{
+				failed++;
+			}
+		}
+		System.out.println(String.format("Connected %d sessions (%d failed) in %.2f s",
+			sockets.size(), failed, (System.nanoTime() - start) / 1e9));
+
+		if (mode.equals("play"))
+		{
+			play(sockets);
+		}
+		else
+		{
+			System.out.println("Holding the connections idle for " + holdS + " s");
+			Thread.sleep(holdS * 1000L);
+		}
+
+		for (Socket socket : sockets)
+		{
+			socket.close();
+		}
+	}
+
+	/**
+	 * Plays the script on every connection at once and reads each game through to its end.
+	 */
+	private static void play(ArrayList<Socket> sockets) throws InterruptedException
+	{
+		AtomicInteger finished = new AtomicInteger();
+		ExecutorService readers = Executors.newFixedThreadPool(Math.min(256, Math.max(1, sockets.size())));
+		long start = System.nanoTime();
+
+		for (Socket socket : sockets)
+		{
+			readers.execute(() -> {
+				try
+				{
+					socket.setSoTimeout(30000);
+					OutputStream out = socket.getOutputStream();
+					out.write(SCRIPT);
+					out.flush();
+
+					// the server hangs up when the game is over
+					InputStream in = socket.getInputStream();
+					byte[] buffer = new byte[4096];
+					while (in.read(buffer) >= 0)
+					{
+						// discard the game's output
+					}
+					finished.incrementAndGet();
+				}
+				catch (IOException e)
+				{
+					// counted as unfinished
+				}
+			});
+		}
+
+		readers.shutdown();
+		readers.awaitTermination(10, TimeUnit.MINUTES);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d of %d games finished in %.2f s (%.0f games/sec)",
+			finished.get(), sockets.size(), seconds, finished.get() / seconds));
+	}
+}
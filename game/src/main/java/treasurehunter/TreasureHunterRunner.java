@@ -0,0 +1,134 @@
+package treasurehunter;
+
+/**
+ * Starts a game of Treasure Hunter on the console.<p>
+ * With --save the game is saved to the given file after every move, and picked back up from it
+ * on the next run; the save is deleted once the game is won, lost or given up.
+ * With --journal the session is recorded for JournalReplay.
+ * With --world the game is played across a persistent N by N grid of towns, or an endless
+ * ProceduralWorld with --world infinite, instead of a new random town after every move; shop prices
+ * there move with what the hunter buys and sells. It can't be combined with --save or --journal.<p>
+ * Usage: java treasurehunter.TreasureHunterRunner [--seed N] [--frame-ms N] [--instant] [--no-skip] [--save FILE] [--journal FILE] [--world N|infinite]
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class TreasureHunterRunner
+{
+	public static void main(String args[])
+	{
+		GameRandom random = new GameRandom(System.nanoTime());
+		long frameIntervalMs = BrawlAnimator.DEFAULT_FRAME_INTERVAL_MS;
+		boolean skippable = true;
+		Path saveFile = null;
+		Path journalFile = null;
+		String worldSize = null;
+
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("--seed") && i + 1 < args.length) {
+				random = new GameRandom(Long.parseLong(args[++i]));
+			} else if (args[i].equals("--frame-ms") && i + 1 < args.length) {
+				frameIntervalMs = Long.parseLong(args[++i]);
+			} else if (args[i].equals("--instant")) {
+				frameIntervalMs = 0;
+			} else if (args[i].equals("--no-skip")) {
+				skippable = false;
+			} else if (args[i].equals("--save") && i + 1 < args.length) {
+				saveFile = Paths.get(args[++i]);
+			} else if (args[i].equals("--journal") && i + 1 < args.length) {
+				journalFile = Paths.get(args[++i]);
+			} else if (args[i].equals("--world") && i + 1 < args.length) {
+				worldSize = args[++i];
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		if (worldSize != null && (saveFile != null || journalFile != null))
+		{
+			System.out.println("--world can't be combined with --save or --journal.");
+			return;
+		}
+
+		ConsoleIO io = new ConsoleIO();
+		TreasureHunter game = null;
+		Autosaver autosaver = null;
+		if (saveFile != null)
+		{
+			try
+			{
+				game = Autosaver.load(saveFile, io);
+			}
+			catch (IOException e)
+			{
+				System.out.println("Couldn't load " + saveFile + " (" + e.getMessage() + "), starting a new game.");
+			}
+			if (game != null)
+			{
+				io.println("Welcome back, " + game.getHunter().getHunterName() + "!");
+			}
+			autosaver = new Autosaver(saveFile);
+		}
+		if (game == null)
+		{
+			game = new TreasureHunter(io, random);
+		}
+
+		game.getAnimator().setFrameIntervalMs(frameIntervalMs);
+		game.getAnimator().setSkippable(skippable);
+		game.setAutosaver(autosaver);
+		MarketEngine market = null;
+		if (worldSize != null)
+		{
+			market = new MarketEngine();
+			market.start(MarketEngine.DEFAULT_TICK_MS);
+			game.setMarket(market);
+
+			// the world is rolled before the difficulty is chosen, so its towns are as tough as on normal
+			double toughness = Difficulty.NORMAL.getToughness();
+			if (worldSize.equals("infinite"))
+			{
+				game.setWorld(new ProceduralWorld(random.nextLong(), toughness, ProceduralWorld.DEFAULT_CACHE_SIZE));
+			}
+			else
+			{
+				int size = Integer.parseInt(worldSize);
+				game.setWorld(WorldGraph.grid(size, size, toughness, random.split()));
+			}
+		}
+
+		GameJournal journal = null;
+		if (journalFile != null)
+		{
+			try
+			{
+				journal = GameJournal.create(journalFile);
+				game.setJournal(journal);
+			}
+			catch (IOException e)
+			{
+				System.out.println("Couldn't create " + journalFile + " (" + e.getMessage() + "), playing without a journal.");
+			}
+		}
+
+		game.play();
+
+		if (journal != null)
+		{
+			journal.close();
+		}
+
+		if (autosaver != null)
+		{
+			autosaver.close();
+		}
+
+		if (market != null)
+		{
+			market.close();
+		}
+	}
+}
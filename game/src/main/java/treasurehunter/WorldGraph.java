@@ -0,0 +1,137 @@
+package treasurehunter;
+
+/**
+ * A World held entirely in memory as a graph, in flat primitive arrays so it scales to millions of towns.<p>
+ * The roads are stored in compressed sparse row form: the roads out of town t are the entries
+ * roadStart[t] to roadStart[t + 1] - 1 of roadEnd. Terrain, treasure type and toughness take one
+ * byte per town, and found treasures one bit, so a million towns with four roads each need about 22 MB.
+ */
+import java.util.BitSet;
+
+public class WorldGraph implements World
+{
+	//instance variables
+	private final byte[] terrains;
+	private final byte[] treasures;
+	private final BitSet tough;
+	private final BitSet found;
+	private final int[] roadStart;
+	private final int[] roadEnd;
+	private final int gridWidth;
+	private final int startTown;
+
+	//Constructor
+	/**
+	 * @param terrains The terrain index of each town.
+	 * @param treasures The treasure of each town, as 0-2 for the three unique treasures.
+	 * @param tough Which towns are tough.
+	 * @param roadStart Where each town's roads start in roadEnd; one entry longer than the number of towns.
+	 * @param roadEnd The town at the end of each road.
+	 * @param gridWidth The width of the grid if the towns are laid out on one (town = y * width + x), or 0.
+	 * @param startTown Where new hunters start.
+	 */
+	WorldGraph(byte[] terrains, byte[] treasures, BitSet tough, int[] roadStart, int[] roadEnd, int gridWidth, int startTown)
+	{
+		this.terrains = terrains;
+		this.treasures = treasures;
+		this.tough = tough;
+		this.found = new BitSet(terrains.length);
+		this.roadStart = roadStart;
+		this.roadEnd = roadEnd;
+		this.gridWidth = gridWidth;
+		this.startTown = startTown;
+	}
+
+	/**
+	 * Generates a world laid out on a grid, where each town has roads to the towns north, south,
+	 * east and west of it.
+	 *
+	 * @param width The number of towns across.
+	 * @param height The number of towns down.
+	 * @param toughness The chance of a town being tough, as in Difficulty.
+	 * @param random Rolls the towns.
+	 * @return The world; hunters start in the middle.
+	 */
+	public static WorldGraph grid(int width, int height, double toughness, GameRandom random)
+	{
+		int towns = Math.multiplyExact(width, height);
+		byte[] terrains = new byte[towns];
+		byte[] treasures = new byte[towns];
+		BitSet tough = new BitSet(towns);
+		for (int town = 0; town < towns; town++)
+		{
+			terrains[town] = (byte)(random.nextDouble() * Terrain.count());
+			treasures[town] = (byte)(random.nextDouble() * 3);
+			if (random.nextDouble() < toughness)
+			{
+				tough.set(town);
+			}
+		}
+
+		// count the roads first, so they can be laid out in one array
+		int[] roadStart = new int[towns + 1];
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				int roads = (x > 0 ? 1 : 0) + (x < width - 1 ? 1 : 0) + (y > 0 ? 1 : 0) + (y < height - 1 ? 1 : 0);
+				roadStart[y * width + x + 1] = roadStart[y * width + x] + roads;
+			}
+		}
+
+		int[] roadEnd = new int[roadStart[towns]];
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				int town = y * width + x;
+				int road = roadStart[town];
+				if (y > 0) roadEnd[road++] = town - width;
+				if (x < width - 1) roadEnd[road++] = town + 1;
+				if (y < height - 1) roadEnd[road++] = town + width;
+				if (x > 0) roadEnd[road++] = town - 1;
+			}
+		}
+
+		return new WorldGraph(terrains, treasures, tough, roadStart, roadEnd, width, (height / 2) * width + width / 2);
+	}
+
+	/**
+	 * @return The number of towns in the world.
+	 */
+	public int size()
+	{
+		return terrains.length;
+	}
+
+	// World methods
+	public long getStartTown() { return startTown; }
+	public Terrain getTerrain(long town) { return Terrain.fromIndex(terrains[(int)town]); }
+	public Item getTreasure(long town) { return Item.fromOrdinal(Item.GOLD_THING.ordinal() + treasures[(int)town]); }
+	public boolean isToughTown(long town) { return tough.get((int)town); }
+	public boolean isTreasureFound(long town) { return found.get((int)town); }
+	public void setTreasureFound(long town) { found.set((int)town); }
+
+	public int getNeighborCount(long town)
+	{
+		return roadStart[(int)town + 1] - roadStart[(int)town];
+	}
+
+	public long getNeighbor(long town, int index)
+	{
+		return roadEnd[roadStart[(int)town] + index];
+	}
+
+	public int getDistanceLowerBound(long from, long to)
+	{
+		if (gridWidth == 0)
+		{
+			return 0;
+		}
+
+		// on a grid no route is shorter than the Manhattan distance
+		int a = (int)from;
+		int b = (int)to;
+		return Math.abs(a % gridWidth - b % gridWidth) + Math.abs(a / gridWidth - b / gridWidth);
+	}
+}
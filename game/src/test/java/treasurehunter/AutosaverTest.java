@@ -0,0 +1,76 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AutosaverTest
+{
+	@TempDir
+	Path dir;
+
+	@Test
+	void burstIsWrittenOnceAfterTheDebounceWindow() throws IOException, InterruptedException
+	{
+		Path file = dir.resolve("game.sav");
+		Autosaver saver = new Autosaver(file, 60000);
+		for (int i = 0; i < 100; i++)
+		{
+			saver.save(new byte[] { (byte)i });
+		}
+		Thread.sleep(100);
+		assertFalse(Files.exists(file), "nothing is written inside the debounce window");
+
+		saver.close();
+		assertArrayEquals(new byte[] { 99 }, Files.readAllBytes(file));
+	}
+
+	@Test
+	void latestSnapshotIsWrittenWithoutClosing() throws IOException, InterruptedException
+	{
+		Path file = dir.resolve("game.sav");
+		Autosaver saver = new Autosaver(file, 10);
+		saver.save(new byte[] { 1 });
+		saver.save(new byte[] { 2 });
+		for (int i = 0; i < 500 && !Files.exists(file); i++)
+		{
+			Thread.sleep(10);
+		}
+		assertArrayEquals(new byte[] { 2 }, Files.readAllBytes(file));
+
+		saver.discard();
+		saver.close();
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void quitGameCanBeResumed() throws IOException
+	{
+		Path file = dir.resolve("game.sav");
+		Autosaver saver = new Autosaver(file, 0);
+		TreasureHunter game = new TreasureHunter(new ScriptedIO(false, "Quitter", "n", "l", "x"), new GameRandom(4));
+		game.setAutosaver(saver);
+		game.play();
+		saver.close();
+		assertEquals(TreasureHunter.Outcome.QUIT, game.getOutcome());
+
+		ScriptedIO io = new ScriptedIO(true, "x");
+		TreasureHunter resumed = Autosaver.load(file, io);
+
+		assertNotNull(resumed, "quitting must keep the save");
+		assertEquals("Quitter", resumed.getHunter().getHunterName());
+		assertEquals(game.getHunter().getGold(), resumed.getHunter().getGold());
+		assertEquals(game.getActionCount(), resumed.getActionCount());
+		resumed.play();
+		assertTrue(io.getOutput().contains("Fare thee well, Quitter!"));
+	}
+}
@@ -0,0 +1,77 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Plays the same games with the object model and in batches, and checks that every game ends the
+ * same way and the reports are identical. GameBenchmark in the jmh module measures the speedup.
+ */
+class BatchSimulatorTest
+{
+	private static final int MAX_ACTIONS = 1000;
+
+	// small, so the policies solve quickly; richer hunters play as if they had this much
+	private static final int GOLD_CAP = 30;
+
+	// batches smaller than the games, so games from several batches are compared
+	private static final int BATCH = 4096;
+
+	@ParameterizedTest
+	@ValueSource(strings = { "e", "n", "h", "cheat" })
+	void explorerGamesMatchTheObjectModel(String mode)
+	{
+		assertSameGames(mode, null, 20000);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "e", "n", "h", "cheat" })
+	void optimalGamesMatchTheObjectModel(String mode)
+	{
+		assertSameGames(mode, OptimalPolicySolver.solve(Difficulty.fromInput(mode), GOLD_CAP), 5000);
+	}
+
+	/**
+	 * @param optimal The optimal policy to play, or null to play the explorer.
+	 */
+	private static void assertSameGames(String mode, OptimalPolicy optimal, int games)
+	{
+		GameRandom root = new GameRandom(7);
+		TreasureHunter.Outcome[] outcomes = new TreasureHunter.Outcome[games];
+		int[] actions = new int[games];
+		int[] gold = new int[games];
+		int[] kits = new int[games];
+		SimulationStats objectStats = LongStream.range(0, games).parallel().collect(
+			() -> new SimulationStats(MAX_ACTIONS),
+			(stats, gameNumber) -> {
+				Strategy strategy = optimal == null
+					? TreasureHunterSimulator.newStrategy("explorer", mode, root.fork(2 * gameNumber + 1))
+					: new OptimalStrategy(optimal);
+				TreasureHunter game = TreasureHunterSimulator.playGame(mode, strategy, MAX_ACTIONS, root.fork(2 * gameNumber), stats);
+				stats.record(game);
+				int g = (int)gameNumber;
+				outcomes[g] = game.getOutcome();
+				actions[g] = game.getActionCount();
+				gold[g] = game.getHunter().getGold();
+				kits[g] = (int)game.getHunter().getKit();
+			},
+			SimulationStats::merge);
+
+		int[][] endings = new int[4][games];
+		SimulationStats batchStats = BatchSimulator.play(Difficulty.fromInput(mode), optimal, games, MAX_ACTIONS, BATCH, root, endings);
+
+		for (int g = 0; g < games; g++)
+		{
+			String game = "mode " + mode + " game " + g;
+			assertEquals(outcomes[g], BatchSimulator.outcomeOf(endings[0][g]), game + " outcome");
+			assertEquals(actions[g], endings[1][g], game + " actions");
+			assertEquals(gold[g], endings[2][g], game + " gold");
+			assertEquals(Integer.toHexString(kits[g]), Integer.toHexString(endings[3][g]), game + " kit");
+		}
+		assertEquals(objectStats.report("Mode " + mode), batchStats.report("Mode " + mode));
+	}
+}
@@ -0,0 +1,104 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+
+import org.junit.jupiter.api.Test;
+
+class BrawlAnimatorTest
+{
+	/**
+	 * An interactive terminal, with the player's lines typed in advance.
+	 */
+	private static class Terminal implements GameIO
+	{
+		final ArrayDeque<String> lines = new ArrayDeque<String>();
+		final StringBuilder output = new StringBuilder();
+		final boolean cursorControl;
+
+		Terminal(boolean cursorControl) { this.cursorControl = cursorControl; }
+
+		Terminal() { this(true); }
+
+		public String readLine() { return lines.poll(); }
+		public boolean hasPendingInput() { return !lines.isEmpty(); }
+		public void print(String text) { output.append(text); }
+		public void println(String text) { output.append(text).append('\n'); }
+		public void println() { output.append('\n'); }
+		public boolean isInteractive() { return true; }
+		public boolean supportsCursorControl() { return cursorControl; }
+	}
+
+	@Test
+	void menuIsRedrawnInFullAfterABrawl()
+	{
+		Terminal terminal = new Terminal();
+		MenuRenderer renderer = new MenuRenderer(terminal);
+		BrawlAnimator animator = new BrawlAnimator(new CommandInput(renderer), new GameRandom(1));
+		animator.setFrameIntervalMs(0);
+
+		renderer.render("news", "status", "town");
+		animator.play(true);
+		terminal.output.setLength(0);
+		renderer.render("news", "status", "town");
+
+		assertTrue(terminal.output.toString().contains("(B)uy something at the shop."),
+			"the brawl cleared the screen, so the unchanged menu must be drawn again");
+	}
+
+	@Test
+	void commandTypedToSkipIsQueued()
+	{
+		Terminal terminal = new Terminal();
+		CommandInput input = new CommandInput(new MenuRenderer(terminal));
+		BrawlAnimator animator = new BrawlAnimator(input, new GameRandom(1));
+		animator.setFrameIntervalMs(1000);
+		terminal.lines.add("h; m");
+
+		animator.play(false);
+
+		assertTrue(terminal.output.toString().contains("You lost!"));
+		assertTrue(input.hasQueuedCommands());
+		assertEquals("h", input.nextCommand());
+		assertEquals("m", input.nextCommand());
+	}
+
+	@Test
+	void blankSkipLeavesNothingQueued()
+	{
+		Terminal terminal = new Terminal();
+		CommandInput input = new CommandInput(terminal);
+		BrawlAnimator animator = new BrawlAnimator(input, new GameRandom(1));
+		animator.setFrameIntervalMs(1000);
+		terminal.lines.add("");
+
+		animator.play(true);
+
+		assertTrue(terminal.output.toString().contains("You won!"));
+		assertFalse(input.hasQueuedCommands());
+	}
+
+	@Test
+	void framesAreClearedOnlyOnATerminalThatCan()
+	{
+		Terminal terminal = new Terminal(false);
+		BrawlAnimator animator = new BrawlAnimator(new CommandInput(terminal), new GameRandom(1));
+		animator.setFrameIntervalMs(1);
+
+		animator.play(true);
+
+		String output = terminal.output.toString();
+		assertFalse(output.contains("\033"), "a terminal without cursor control can't clear the screen");
+		assertTrue(output.startsWith("\nYou      <["));
+		assertTrue(output.endsWith("\nYou won!\n\n"));
+
+		Terminal console = new Terminal(true);
+		animator = new BrawlAnimator(new CommandInput(console), new GameRandom(1));
+		animator.setFrameIntervalMs(1);
+		animator.play(true);
+		assertEquals(output.replace("\nYou", "\033[H\033[2JYou"), console.output.toString());
+	}
+}
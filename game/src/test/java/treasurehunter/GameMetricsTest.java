@@ -0,0 +1,34 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GameMetricsTest
+{
+	private static long processChoiceCount()
+	{
+		return GameMetrics.get().getActionCounts().get(GameMetrics.Action.PROCESS_CHOICE.name());
+	}
+
+	@Test
+	void botGamesAreNotTimed()
+	{
+		long before = processChoiceCount();
+		TreasureHunter game = TreasureHunterSimulator.playGame("n",
+			TreasureHunterSimulator.newStrategy("explorer", "n", new GameRandom(1)), 200, new GameRandom(2));
+
+		assertTrue(game.getActionCount() > 0);
+		assertEquals(before, processChoiceCount());
+	}
+
+	@Test
+	void scriptedGamesAreTimed()
+	{
+		long before = processChoiceCount();
+		new TreasureHunter(new ScriptedIO(false, "Timed", "n", "l", "h", "x"), new GameRandom(3)).play();
+
+		assertTrue(processChoiceCount() >= before + 3);
+	}
+}
@@ -0,0 +1,101 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+class GameSnapshotTest
+{
+	/**
+	 * Plays an easy game of brawls, failed moves and hunts until the script runs out.
+	 */
+	private static TreasureHunter playedGame()
+	{
+		String[] script = new String[42];
+		script[0] = "Tester";
+		script[1] = "e";
+		for (int i = 2; i < script.length; i++)
+		{
+			script[i] = i % 7 == 0 ? "m" : i % 5 == 0 ? "h" : "l";
+		}
+		TreasureHunter game = new TreasureHunter(new ScriptedIO(false, script), new GameRandom(42));
+		game.play();
+		return game;
+	}
+
+	@Test
+	void restoredGameKeepsItsNewsAndCounts() throws IOException
+	{
+		TreasureHunter game = playedGame();
+		Town town = game.getCurrentTown();
+		assertTrue(town.getBrawlCount() > 0);
+
+		TreasureHunter restored = GameSnapshot.decode(GameSnapshot.encode(game), new ScriptedIO(false));
+		Town restoredTown = restored.getCurrentTown();
+
+		assertEquals(town.getNewsLog().getRecent(NewsLog.DEFAULT_CAPACITY), restoredTown.getNewsLog().getRecent(NewsLog.DEFAULT_CAPACITY));
+		assertEquals(town.getLatestNews(), restoredTown.getLatestNews());
+		assertEquals(town.getBrawlCount(), restoredTown.getBrawlCount());
+		assertEquals(town.getItemBreakCount(), restoredTown.getItemBreakCount());
+		assertEquals(game.getActionCount(), restored.getActionCount());
+		assertEquals(game.getHunter().getGold(), restored.getHunter().getGold());
+	}
+
+	@Test
+	void newsCommandShowsSavedEventsAfterRestore() throws IOException
+	{
+		TreasureHunter game = playedGame();
+		ScriptedIO io = new ScriptedIO(true, "n", "10");
+		GameSnapshot.decode(GameSnapshot.encode(game), io).play();
+
+		for (String event : game.getCurrentTown().getNewsLog().getRecent(10))
+		{
+			assertTrue(io.getOutput().contains("  " + event.replace("\n", "\n  ")), "missing after restore: " + event);
+		}
+	}
+
+	@Test
+	void versionOneSavesStillLoad() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		Difficulty normal = Difficulty.NORMAL;
+		out.writeInt(0x54485356);
+		out.writeShort(1);
+		out.writeUTF("Old");
+		out.writeInt(25);
+		out.writeLong(0);
+		out.writeBoolean(false);
+		out.writeUTF(normal.getCode());
+		out.writeDouble(normal.getMarkdown());
+		out.writeDouble(normal.getToughness());
+		out.writeDouble(normal.getPriceMod());
+		out.writeDouble(normal.getBrawlWinChance());
+		out.writeDouble(normal.getBrawlGoldExtra());
+		out.writeInt(normal.getStartingGold());
+		out.writeBoolean(normal.isCheating());
+		out.writeByte(0);
+		out.writeByte(Item.GOLD_THING.ordinal());
+		out.writeBoolean(false);
+		out.writeBoolean(false);
+		out.writeUTF("You couldn't find any trouble");
+		out.writeInt(3);
+		out.writeLong(1);
+		out.writeLong(1);
+		out.writeLong(2);
+		out.writeLong(3);
+		out.flush();
+
+		TreasureHunter restored = GameSnapshot.decode(bytes.toByteArray(), new ScriptedIO(false));
+
+		assertEquals("You couldn't find any trouble", restored.getCurrentTown().getLatestNews());
+		assertEquals(0, restored.getCurrentTown().getBrawlCount());
+		assertEquals(3, restored.getActionCount());
+		assertEquals(Difficulty.NORMAL, restored.getDifficulty());
+	}
+}
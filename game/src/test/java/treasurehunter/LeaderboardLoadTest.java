@@ -0,0 +1,131 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Floods a Leaderboard with game results from many threads, then checks the board against the
+ * results each thread submitted, and that a snapshot of it loads back the same.
+ * LeaderboardBenchmark in the jmh module measures how fast it goes.
+ */
+class LeaderboardLoadTest
+{
+	private static final int THREADS = 16;
+	private static final int RESULTS_PER_THREAD = 50000;
+	private static final int PLAYERS = 100000;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void boardMatchesEverythingSubmitted() throws Exception
+	{
+		Leaderboard board = new Leaderboard();
+		long[] ids = new long[PLAYERS];
+		for (int i = 0; i < PLAYERS; i++)
+		{
+			ids[i] = board.newPlayerId();
+		}
+		AtomicIntegerArray expectedBest = new AtomicIntegerArray(PLAYERS);
+		for (int i = 0; i < PLAYERS; i++)
+		{
+			expectedBest.set(i, -1);
+		}
+
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ArrayList<Thread> sessions = new ArrayList<Thread>();
+		for (int t = 0; t < THREADS; t++)
+		{
+			int seed = t;
+			Thread session = new Thread(() -> {
+				try
+				{
+					GameRandom random = new GameRandom(seed);
+					for (int i = 0; i < RESULTS_PER_THREAD; i++)
+					{
+						// results shaped like real games: mostly losses, and short
+						int player = random.nextInt(PLAYERS);
+						int treasures = random.nextDouble() < 0.3 ? 3 : random.nextInt(3);
+						int actions = 3 + random.nextInt(60);
+						int gold = random.nextInt(treasures == 3 ? 40 : 5);
+						board.submit(ids[player], "hunter" + player, treasures, actions, gold);
+
+						int score = Leaderboard.score(treasures, actions, gold);
+						int best;
+						while (score > (best = expectedBest.get(player)) && !expectedBest.compareAndSet(player, best, score))
+						{
+							// retry
+						}
+					}
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+			}, "session-" + t);
+			session.start();
+			sessions.add(session);
+		}
+		for (Thread session : sessions)
+		{
+			session.join();
+		}
+		if (failure.get() != null)
+		{
+			throw new AssertionError("session failed", failure.get());
+		}
+
+		// the board must match what was submitted, now that nothing is running
+		long ranked = 0;
+		int[] scoreCounts = new int[Leaderboard.SCORES];
+		for (int i = 0; i < PLAYERS; i++)
+		{
+			int best = expectedBest.get(i);
+			Leaderboard.Entry entry = board.getEntry(ids[i]);
+			assertEquals(best, entry == null ? -1 : entry.getScore(), "best score of player " + i);
+			if (best >= 0)
+			{
+				ranked++;
+				scoreCounts[best]++;
+			}
+		}
+		assertEquals(ranked, board.size());
+		List<Leaderboard.Entry> everyone = board.getTop(Integer.MAX_VALUE);
+		assertEquals(ranked, everyone.size());
+
+		long better = 0;
+		for (int score = Leaderboard.SCORES - 1; score >= 0; score--)
+		{
+			if (scoreCounts[score] > 0)
+			{
+				assertEquals(better + 1, board.getRankOfScore(score), "rank of score " + score);
+			}
+			better += scoreCounts[score];
+		}
+		for (int i = 1; i < everyone.size(); i++)
+		{
+			assertTrue(everyone.get(i - 1).getScore() >= everyone.get(i).getScore(), "top list out of order at " + i);
+		}
+
+		Path file = directory.resolve("leaderboard.bin");
+		board.save(file);
+		Leaderboard loaded = new Leaderboard();
+		loaded.load(file);
+		assertEquals(ranked, loaded.size());
+		for (int i = 0; i < PLAYERS; i += 97)
+		{
+			Leaderboard.Entry entry = board.getEntry(ids[i]);
+			Leaderboard.Entry reloaded = loaded.getEntry(ids[i]);
+			assertEquals(entry == null ? null : entry.toString(), reloaded == null ? null : reloaded.toString());
+		}
+	}
+}
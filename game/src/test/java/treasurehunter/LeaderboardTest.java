@@ -0,0 +1,110 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LeaderboardTest
+{
+	@TempDir
+	Path directory;
+
+	@Test
+	void playersWithTheSameNameAreRankedSeparately()
+	{
+		Leaderboard board = new Leaderboard();
+		long first = board.newPlayerId();
+		long second = board.newPlayerId();
+
+		board.submit(first, "Indy", 3, 40, 10);
+		board.submit(second, "Indy", 1, 40, 10);
+
+		assertEquals(2, board.size());
+		assertEquals(1, board.getEntry(first).getRank());
+		assertEquals(2, board.getEntry(second).getRank());
+		assertEquals("Indy", board.getEntry(second).getName());
+	}
+
+	@Test
+	void cheatGamesAreNotRanked()
+	{
+		Leaderboard board = new Leaderboard();
+		StrategyIO io = new StrategyIO(new ExplorerStrategy(), "Cheater", "cheat", 1000);
+		TreasureHunter game = new TreasureHunter(io, new GameRandom(5));
+		io.setGame(game);
+		game.setLeaderboard(board, board.newPlayerId());
+
+		game.play();
+
+		assertEquals(TreasureHunter.Outcome.WON, game.getOutcome());
+		assertEquals(0, board.size());
+	}
+
+	@Test
+	void lostGamesRankByHowLongTheHunterSurvived()
+	{
+		assertTrue(Leaderboard.score(0, 120, 0) > Leaderboard.score(0, 8, 0),
+			"a quick bankruptcy must not beat a long game that ended the same way");
+		assertTrue(Leaderboard.score(3, 20, 0) > Leaderboard.score(3, 40, 0), "a quicker win must rank higher");
+		assertTrue(Leaderboard.score(3, Leaderboard.MAX_ACTIONS, 0) > Leaderboard.score(2, 5, Leaderboard.MAX_GOLD),
+			"any win must beat any loss");
+	}
+
+	@Test
+	void longGamesAndBigPursesKeepTheirNumbers()
+	{
+		Leaderboard board = new Leaderboard();
+		long id = board.newPlayerId();
+		board.submit(id, "Rich", 3, 1500, 3000);
+
+		Leaderboard.Entry entry = board.getEntry(id);
+		assertEquals(1500, entry.getActions());
+		assertEquals(3000, entry.getGold());
+		assertNotEquals(Leaderboard.score(3, 1500, 3000), Leaderboard.score(3, 1500, 2999));
+		assertNotEquals(Leaderboard.score(0, 300, 0), Leaderboard.score(0, 301, 0));
+	}
+
+	@Test
+	void ranksCountEveryBetterPlayer()
+	{
+		Leaderboard board = new Leaderboard();
+		long[] ids = new long[5];
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = board.newPlayerId();
+		}
+		board.submit(ids[0], "a", 3, 30, 5);
+		board.submit(ids[1], "b", 3, 30, 700);
+		board.submit(ids[2], "c", 0, 200, 0);
+		board.submit(ids[3], "d", 0, 12, 0);
+		board.submit(ids[4], "e", 3, 30, 5);
+
+		assertEquals(1, board.getEntry(ids[1]).getRank());
+		assertEquals(2, board.getEntry(ids[0]).getRank());
+		assertEquals(2, board.getEntry(ids[4]).getRank());
+		assertEquals(4, board.getEntry(ids[2]).getRank());
+		assertEquals(5, board.getEntry(ids[3]).getRank());
+		assertEquals("b", board.getTop(1).get(0).getName());
+	}
+
+	@Test
+	void idsFromALoadedBoardAreNotHandedOutAgain() throws IOException
+	{
+		Leaderboard board = new Leaderboard();
+		board.submit(41, "Old timer", 2, 50, 3);
+		Path file = directory.resolve("board.bin");
+		board.save(file);
+
+		Leaderboard loaded = new Leaderboard();
+		loaded.load(file);
+
+		assertEquals("Old timer", loaded.getEntry(41).getName());
+		assertTrue(loaded.newPlayerId() > 41);
+	}
+}
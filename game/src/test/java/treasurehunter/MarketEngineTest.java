@@ -0,0 +1,240 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MarketEngineTest
+{
+	/**
+	 * A customer who makes the market tick while they think about the price, so it has moved by
+	 * the time they say yes.
+	 */
+	private static class SlowCustomer extends ScriptedIO
+	{
+		final MarketEngine market;
+		final long town;
+		final Item item;
+
+		SlowCustomer(MarketEngine market, long town, Item item, String... lines)
+		{
+			super(false, lines);
+			this.market = market;
+			this.town = town;
+			this.item = item;
+		}
+
+		public String readLine()
+		{
+			String line = super.readLine();
+			if ("y".equals(line))
+			{
+				trade(market, town, item, true);
+				market.tick();
+			}
+			return line;
+		}
+	}
+
+	private static Shop shopIn(MarketEngine market, long town)
+	{
+		return shopIn(market, town, new ScriptedIO(false));
+	}
+
+	private static Shop shopIn(MarketEngine market, long town, GameIO io)
+	{
+		Shop shop = new Shop(io, Difficulty.NORMAL.getPrices());
+		shop.setLocation(new SharedWorld(WorldGraph.grid(4, 4, 0.5, new GameRandom(1)), 100), town);
+		shop.setMarket(market);
+		return shop;
+	}
+
+	@Test
+	void pricesMoveOnlyOnATick()
+	{
+		MarketEngine market = new MarketEngine();
+		Shop shop = shopIn(market, 3);
+		int normal = shop.getCostOfItem(Item.BOAT);
+
+		trade(market, 3, Item.BOAT, true);
+		assertEquals(normal, shop.getCostOfItem(Item.BOAT), "trades wait for the next tick");
+
+		market.tick();
+		assertTrue(shop.getCostOfItem(Item.BOAT) > normal);
+		assertTrue(shop.getBuyBackCost(Item.BOAT) <= shop.getCostOfItem(Item.BOAT));
+		assertEquals(Difficulty.NORMAL.getPrices().getBuyPrice(Item.WATER), shop.getCostOfItem(Item.WATER));
+	}
+
+	@Test
+	void listingIsOnlyBuiltAgainAfterPricesChange()
+	{
+		MarketEngine market = new MarketEngine();
+		Shop shop = shopIn(market, 3);
+		String normal = shop.inventory();
+		assertEquals(Difficulty.NORMAL.getPrices().getListing(), normal);
+
+		trade(market, 3, Item.HORSE, true);
+		market.tick();
+		String raised = shop.inventory();
+		assertNotEquals(normal, raised);
+		assertTrue(raised.contains("(H)orse: " + shop.getCostOfItem(Item.HORSE) + " gold"));
+		assertSame(raised, shop.inventory(), "nothing changed, so the same listing is shown");
+	}
+
+	@Test
+	void pricesSettleBackToNormal()
+	{
+		MarketEngine market = new MarketEngine(0.05, 0.5);
+		Shop shop = shopIn(market, 3);
+		String normal = shop.inventory();
+		trade(market, 3, Item.ROPE, false);
+		market.tick();
+		assertTrue(shop.getCostOfItem(Item.ROPE) < Difficulty.NORMAL.getPrices().getBuyPrice(Item.ROPE));
+
+		for (int i = 0; i < 20; i++)
+		{
+			market.tick();
+		}
+		assertEquals(0, market.getActiveTownCount());
+		assertEquals(normal, shop.inventory());
+		assertEquals(1.0, market.getMultiplier(3, Item.ROPE));
+
+		// trades in another town leave this town's listing alone
+		String settled = shop.inventory();
+		trade(market, 5, Item.ROPE, true);
+		market.tick();
+		assertSame(settled, shop.inventory());
+	}
+
+	@Test
+	void settledTownsAreForgotten()
+	{
+		MarketEngine market = new MarketEngine(0.05, 0.5);
+		Shop shop = shopIn(market, 3);
+		trade(market, 3, Item.BOAT, true);
+		trade(market, 4, Item.BOAT, true);
+		market.tick();
+		assertEquals(2, market.getTownCount());
+
+		for (int i = 0; i < 20; i++)
+		{
+			market.tick();
+		}
+		assertEquals(0, market.getTownCount());
+		assertEquals(Difficulty.NORMAL.getPrices().getListing(), shop.inventory());
+
+		// the town is remembered again as soon as someone trades there
+		trade(market, 3, Item.BOAT, true);
+		market.tick();
+		assertEquals(1, market.getTownCount());
+		assertTrue(shop.getCostOfItem(Item.BOAT) > Difficulty.NORMAL.getPrices().getBuyPrice(Item.BOAT));
+	}
+
+	@Test
+	void tradesRacingATownBeingForgottenAreKept() throws InterruptedException
+	{
+		// prices settle on the tick after every trade, so towns are dropped while they're being traded in
+		MarketEngine market = new MarketEngine(1e-6, 1);
+		market.start(1);
+		Thread[] traders = new Thread[4];
+		for (int t = 0; t < traders.length; t++)
+		{
+			traders[t] = new Thread(() -> {
+				for (int i = 0; i < 200000; i++)
+				{
+					market.recordTrade(i % 3, Item.WATER, true);
+				}
+			});
+			traders[t].start();
+		}
+		for (Thread trader : traders)
+		{
+			trader.join();
+		}
+		market.close();
+		market.tick();
+
+		assertEquals(market.getTradeCount(), market.getAppliedTradeCount());
+		assertEquals(0, market.getTownCount());
+	}
+
+	@Test
+	void buyingAtTheShopRaisesThePrice()
+	{
+		// a big impact, so one trade moves the price by whole gold
+		MarketEngine market = new MarketEngine(0.5, 0.02);
+		Shop shop = shopIn(market, 3, new ScriptedIO(false, "Boat", "y"));
+		int normal = shop.getCostOfItem(Item.BOAT);
+		Hunter hunter = new Hunter("Shopper", 100);
+
+		shop.enter(hunter, "B");
+		assertTrue(hunter.hasItemInKit(Item.BOAT));
+		assertEquals(normal, shop.getCostOfItem(Item.BOAT), "trades wait for the next tick");
+
+		market.tick();
+		assertTrue(shop.getCostOfItem(Item.BOAT) > normal);
+	}
+
+	@Test
+	void sellingAtTheShopLowersThePrice()
+	{
+		MarketEngine market = new MarketEngine(0.5, 0.02);
+		Shop shop = shopIn(market, 3, new ScriptedIO(false, "Boat", "y"));
+		int normal = shop.getCostOfItem(Item.BOAT);
+		int normalBuyBack = shop.getBuyBackCost(Item.BOAT);
+		Hunter hunter = new Hunter("Seller", 100);
+		hunter.addItem(Item.BOAT);
+
+		shop.enter(hunter, "S");
+		assertFalse(hunter.hasItemInKit(Item.BOAT));
+
+		market.tick();
+		assertTrue(shop.getCostOfItem(Item.BOAT) < normal);
+		assertTrue(shop.getBuyBackCost(Item.BOAT) < normalBuyBack);
+	}
+
+	@Test
+	void buyerPaysThePriceTheyAgreedTo()
+	{
+		MarketEngine market = new MarketEngine();
+		Shop shop = shopIn(market, 3, new SlowCustomer(market, 3, Item.BOAT, "Boat", "y"));
+		int quoted = shop.getCostOfItem(Item.BOAT);
+		Hunter hunter = new Hunter("Haggler", 100);
+
+		shop.enter(hunter, "B");
+
+		assertTrue(shop.getCostOfItem(Item.BOAT) > quoted, "the price moved while the customer was deciding");
+		assertTrue(hunter.hasItemInKit(Item.BOAT));
+		assertEquals(100 - quoted, hunter.getGold());
+	}
+
+	@Test
+	void sellerGetsThePriceTheyAgreedTo()
+	{
+		MarketEngine market = new MarketEngine();
+		Shop shop = shopIn(market, 3, new SlowCustomer(market, 3, Item.BOAT, "Boat", "y"));
+		Hunter hunter = new Hunter("Haggler", 100);
+		hunter.addItem(Item.BOAT);
+		int quoted = shop.getBuyBackCost(Item.BOAT);
+
+		shop.enter(hunter, "S");
+
+		assertTrue(shop.getBuyBackCost(Item.BOAT) > quoted, "the price moved while the customer was deciding");
+		assertEquals(100 + quoted, hunter.getGold());
+	}
+
+	/**
+	 * Records enough of the same trade to move the item's price by a few gold.
+	 */
+	private static void trade(MarketEngine market, long town, Item item, boolean bought)
+	{
+		for (int i = 0; i < 10; i++)
+		{
+			market.recordTrade(town, item, bought);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PolicyCacheTest
+{
+	private static final int GOLD_CAP = 12;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void cachedPolicyMatchesTheSolvedOne() throws IOException
+	{
+		OptimalPolicy solved = OptimalPolicySolver.solve(Difficulty.NORMAL, GOLD_CAP);
+		new PolicyCache(directory).get(Difficulty.NORMAL, GOLD_CAP);
+		Path file = directory.resolve("policy-N-" + GOLD_CAP + ".bin");
+		long written = Files.getLastModifiedTime(file).toMillis();
+
+		OptimalPolicy loaded = new PolicyCache(directory).get(Difficulty.NORMAL, GOLD_CAP);
+
+		assertEquals(written, Files.getLastModifiedTime(file).toMillis(), "a cached policy must not be solved again");
+		assertSamePolicy(solved, loaded);
+	}
+
+	@Test
+	void policyForOtherRulesIsSolvedAgain() throws IOException
+	{
+		Difficulty luckier = new Difficulty("N", 0.5, 0.4, 1, 0.75, 0, 10, false);
+		OptimalPolicy normal = new PolicyCache(directory).get(Difficulty.NORMAL, GOLD_CAP);
+
+		OptimalPolicy loaded = new PolicyCache(directory).get(luckier, GOLD_CAP);
+
+		assertSamePolicy(OptimalPolicySolver.solve(luckier, GOLD_CAP), loaded);
+		assertNotEquals(normal.getStartingWinProbability(), loaded.getStartingWinProbability());
+	}
+
+	@Test
+	void damagedFileIsSolvedAgain() throws IOException
+	{
+		Files.write(directory.resolve("policy-N-" + GOLD_CAP + ".bin"), new byte[] { 'T', 'H', 'P', 'C', 0 });
+
+		OptimalPolicy loaded = new PolicyCache(directory).get(Difficulty.NORMAL, GOLD_CAP);
+
+		assertSamePolicy(OptimalPolicySolver.solve(Difficulty.NORMAL, GOLD_CAP), loaded);
+	}
+
+	private static void assertSamePolicy(OptimalPolicy expected, OptimalPolicy actual)
+	{
+		assertEquals(expected.size(), actual.size());
+		for (int gold = 0; gold <= GOLD_CAP; gold++)
+		{
+			for (int kit = 0; kit < OptimalPolicy.ALL_TREASURES << OptimalPolicy.SHOP_ITEMS; kit++)
+			{
+				for (int town = 0; town < OptimalPolicy.TOWNS; town++)
+				{
+					Terrain terrain = Terrain.fromIndex(OptimalPolicy.terrainOf(town));
+					Item treasure = Item.fromOrdinal(Item.GOLD_THING.ordinal() + OptimalPolicy.treasureTypeOf(town));
+					boolean tough = OptimalPolicy.isTough(town);
+					assertEquals(expected.getWinProbability(gold, kit, terrain, treasure, tough),
+						actual.getWinProbability(gold, kit, terrain, treasure, tough));
+					assertEquals(expected.getAction(gold, kit, town), actual.getAction(gold, kit, town));
+				}
+			}
+		}
+	}
+}
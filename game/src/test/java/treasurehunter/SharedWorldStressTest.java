@@ -0,0 +1,150 @@
+package treasurehunter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Hammers one SharedWorld town from many threads at once, to check that its shop stock and
+ * treasure claims stay right under contention.<p>
+ * Every thread buys random items from the same shop, handing half of them straight back, so the
+ * stock keeps hitting zero; afterwards every item's stock must equal what it started with, minus
+ * what was bought, plus what was handed back, and must never have gone below zero. Then every
+ * thread tries to dig up every treasure in a region of towns; each one must go to exactly one thread.
+ */
+class SharedWorldStressTest
+{
+	private static final int OPS = 400000;
+	private static final int STOCK = 100;
+	private static final int CLAIMS = 20000;
+
+	//instance variables
+	private SharedWorld world;
+	private long town;
+	private long[][] bought;
+	private long[][] returned;
+	private int[] won;
+	private final AtomicBoolean negative = new AtomicBoolean();
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 4, 8, 16 })
+	void stockAndClaimsAddUp(int threads) throws Exception
+	{
+		int side = (int)Math.ceil(Math.sqrt(CLAIMS));
+		world = new SharedWorld(WorldGraph.grid(side, side, 0.5, new GameRandom(threads)), STOCK);
+		town = world.getStartTown();
+		bought = new long[threads][Item.SHOP_ITEM_COUNT];
+		returned = new long[threads][Item.SHOP_ITEM_COUNT];
+		won = new int[threads];
+
+		runTogether(threads, this::shop);
+		assertFalse(negative.get(), "stock went below zero");
+		for (int i = 0; i < Item.SHOP_ITEM_COUNT; i++)
+		{
+			long expected = STOCK;
+			for (int t = 0; t < threads; t++)
+			{
+				expected += returned[t][i] - bought[t][i];
+			}
+			assertEquals(expected, world.getStock(town, Item.fromOrdinal(i)), Item.fromOrdinal(i) + " stock");
+		}
+
+		runTogether(threads, this::claim);
+		long claimed = 0;
+		for (int t = 0; t < threads; t++)
+		{
+			claimed += won[t];
+		}
+		assertEquals(CLAIMS, claimed, "every treasure must go to exactly one thread");
+		for (int i = 0; i < CLAIMS; i++)
+		{
+			assertTrue(world.isTreasureFound(i), "treasure " + i + " was never claimed");
+		}
+	}
+
+	private interface Worker
+	{
+		void run(int id, int threads);
+	}
+
+	/**
+	 * Runs a worker on every thread, all starting at once, and waits for them all to finish.
+	 */
+	private static void runTogether(int threads, Worker worker) throws Exception
+	{
+		CyclicBarrier start = new CyclicBarrier(threads);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ArrayList<Thread> running = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++)
+		{
+			int id = t;
+			Thread thread = new Thread(() -> {
+				try
+				{
+					start.await();
+					worker.run(id, threads);
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+			}, "stress-" + t);
+			thread.start();
+			running.add(thread);
+		}
+		for (Thread thread : running)
+		{
+			thread.join();
+		}
+		if (failure.get() != null)
+		{
+			throw new AssertionError("worker failed", failure.get());
+		}
+	}
+
+	private void shop(int id, int threads)
+	{
+		GameRandom random = new GameRandom(id * 31 + 7);
+		for (int op = 0; op < OPS / threads; op++)
+		{
+			Item item = Item.fromOrdinal(random.nextInt(Item.SHOP_ITEM_COUNT));
+			if (world.takeStock(town, item))
+			{
+				bought[id][item.ordinal()]++;
+				if (random.nextDouble() < 0.5)
+				{
+					world.returnStock(town, item);
+					returned[id][item.ordinal()]++;
+				}
+			}
+			if (world.getStock(town, item) < 0)
+			{
+				negative.set(true);
+			}
+		}
+	}
+
+	/**
+	 * Tries to claim every treasure, starting somewhere else in the region from the other threads
+	 * so they collide all over it.
+	 */
+	private void claim(int id, int threads)
+	{
+		long first = (long)id * CLAIMS / threads;
+		for (int i = 0; i < CLAIMS; i++)
+		{
+			if (world.claimTreasure((first + i) % CLAIMS))
+			{
+				won[id]++;
+			}
+		}
+	}
+}
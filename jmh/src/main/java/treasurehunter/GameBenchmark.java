@@ -0,0 +1,87 @@
+package treasurehunter;
+
+/**
+ * JMH benchmarks for whole games and the brawl health bar. The explorer bot's games are measured
+ * both on the object model and in BatchSimulator's batches; a batch counts as one operation per game.<p>
+ * java -jar jmh/target/benchmarks.jar Game -prof gc
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark
+{
+	// the commands for the scripted playthrough
+	private static final String[] PLAYTHROUGH = {
+		"Bench", "n",
+		"b", "w", "y", "b", "r", "y", "h", "h", "l", "s", "r", "y", "m", "h", "l", "m", "h", "b", "h", "y", "m", "x"
+	};
+
+	// the bot games are played on normal mode by the explorer, the one policy both models play
+	private static final String MODE = "n";
+	private static final int MAX_ACTIONS = 1000;
+	private static final int BATCH = 1024;
+
+	//instance variables
+	private long seed;
+	private int hp;
+	private GameRandom root;
+	private BatchSimulator batch;
+
+	@Setup
+	public void setUp()
+	{
+		seed = 0;
+		hp = 0;
+		root = new GameRandom(7);
+		batch = new BatchSimulator(Difficulty.fromInput(MODE), null, MAX_ACTIONS, BATCH);
+	}
+
+	@Benchmark
+	public int playthrough()
+	{
+		TreasureHunter game = new TreasureHunter(new ScriptedIO(false, PLAYTHROUGH), new GameRandom(seed++));
+		game.play();
+		return game.getActionCount();
+	}
+
+	@Benchmark
+	public int explorerGame()
+	{
+		long game = seed++;
+		return TreasureHunterSimulator.playGame(MODE, TreasureHunterSimulator.newStrategy("explorer", MODE, root.fork(2 * game + 1)),
+			MAX_ACTIONS, root.fork(2 * game)).getActionCount();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void explorerBatch()
+	{
+		batch.start(root, seed);
+		batch.play(null);
+		seed += BATCH;
+	}
+
+	@Benchmark
+	public String visualizeHpBar()
+	{
+		hp = hp == 100 ? 0 : hp + 1;
+		return BrawlAnimator.visualizeHpBar(50, hp, 100);
+	}
+}
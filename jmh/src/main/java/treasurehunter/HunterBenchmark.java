@@ -0,0 +1,77 @@
+package treasurehunter;
+
+/**
+ * JMH benchmarks for the hunter's kit, at each kit size from empty to full.<p>
+ * The item the benchmarks work on is missing from the kit unless the kit is full, so adding
+ * it really changes the kit and the printable inventory has to be rebuilt.<p>
+ * Run with the gc profiler to see the bytes allocated per operation:
+ * java -jar jmh/target/benchmarks.jar Hunter -prof gc -rf json -rff benchmark.json
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HunterBenchmark
+{
+	@Param({ "0", "3", "6", "9" })
+	public int kitSize;
+
+	//instance variables
+	private Hunter hunter;
+	private String probe;
+
+	@Setup
+	public void setUp()
+	{
+		hunter = new Hunter("Bench", 100);
+		for (int i = 0; i < kitSize; i++)
+		{
+			hunter.addItem(Item.fromOrdinal(i).getName());
+		}
+		probe = Item.fromOrdinal(Math.min(kitSize, Item.count() - 1)).getName();
+	}
+
+	@Benchmark
+	public boolean hasItemInKit()
+	{
+		return hunter.hasItemInKit(probe);
+	}
+
+	@Benchmark
+	public boolean addItemAndRemoveItemFromKit()
+	{
+		boolean added = hunter.addItem(probe);
+		hunter.removeItemFromKit(probe);
+		return added;
+	}
+
+	@Benchmark
+	public String getInventory()
+	{
+		return hunter.getInventory();
+	}
+
+	@Benchmark
+	public String getInventoryAfterChange()
+	{
+		hunter.addItem(probe);
+		hunter.removeItemFromKit(probe);
+		return hunter.getInventory();
+	}
+}
@@ -0,0 +1,92 @@
+package treasurehunter;
+
+/**
+ * JMH benchmarks for the leaderboard: results submitted from several threads at once into a board
+ * of a million players, and the top-K and rank queries against it.<p>
+ * java -jar jmh/target/benchmarks.jar Leaderboard -prof gc
+ */
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark
+{
+	private static final int PLAYERS = 1000000;
+
+	/**
+	 * The board every thread submits to, already holding a result for every player.
+	 */
+	@State(Scope.Benchmark)
+	public static class Board
+	{
+		Leaderboard board;
+		String[] names;
+
+		@Setup
+		public void setUp()
+		{
+			board = new Leaderboard();
+			names = new String[PLAYERS];
+			GameRandom random = new GameRandom(1);
+			for (int i = 0; i < PLAYERS; i++)
+			{
+				names[i] = "hunter" + i;
+				board.submit(board.newPlayerId(), names[i], random.nextInt(4), 3 + random.nextInt(60), random.nextInt(40));
+			}
+		}
+	}
+
+	/**
+	 * Each thread's own rolls.
+	 */
+	@State(Scope.Thread)
+	public static class Session
+	{
+		GameRandom random;
+
+		@Setup
+		public void setUp()
+		{
+			random = new GameRandom(Thread.currentThread().getId());
+		}
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean submit(Board board, Session session)
+	{
+		// results shaped like real games: mostly losses, and short
+		GameRandom random = session.random;
+		int player = random.nextInt(PLAYERS);
+		int treasures = random.nextDouble() < 0.3 ? 3 : random.nextInt(3);
+		return board.board.submit(player, board.names[player], treasures, 3 + random.nextInt(60), random.nextInt(treasures == 3 ? 40 : 5));
+	}
+
+	@Benchmark
+	public List<Leaderboard.Entry> getTop(Board board)
+	{
+		return board.board.getTop(10);
+	}
+
+	@Benchmark
+	public Leaderboard.Entry getEntry(Board board, Session session)
+	{
+		return board.board.getEntry(session.random.nextInt(PLAYERS));
+	}
+}
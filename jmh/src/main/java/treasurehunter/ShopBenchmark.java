@@ -0,0 +1,72 @@
+package treasurehunter;
+
+/**
+ * JMH benchmarks for the shop's price lookups and listing, cycling through the items it sells.<p>
+ * java -jar jmh/target/benchmarks.jar Shop -prof gc
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopBenchmark
+{
+	private static final String[] SHOP_ITEMS = new String[Item.SHOP_ITEM_COUNT];
+
+	static
+	{
+		for (int i = 0; i < SHOP_ITEMS.length; i++)
+		{
+			SHOP_ITEMS[i] = Item.fromOrdinal(i).getName();
+		}
+	}
+
+	//instance variables
+	private Shop shop;
+	private int next;
+
+	@Setup
+	public void setUp()
+	{
+		shop = new Shop(new ScriptedIO(false), Difficulty.NORMAL.getPrices());
+		next = 0;
+	}
+
+	@Benchmark
+	public int getCostOfItem()
+	{
+		return shop.getCostOfItem(nextItem());
+	}
+
+	@Benchmark
+	public int getBuyBackCost()
+	{
+		return shop.getBuyBackCost(nextItem());
+	}
+
+	@Benchmark
+	public String inventory()
+	{
+		return shop.inventory();
+	}
+
+	private String nextItem()
+	{
+		next = next + 1 == SHOP_ITEMS.length ? 0 : next + 1;
+		return SHOP_ITEMS[next];
+	}
+}